@@ -0,0 +1,29 @@
+package com.loadgenerator;
+
+/**
+ * Запросы к шлюзу из коллекций Postman
+ */
+enum Endpoint {
+    LIST_LIBRARIES("listLibraries", "GET /libraries?city"),
+    LIST_BOOKS("listBooks", "GET /libraries/{uid}/books"),
+    GET_RATING("getRating", "GET /rating"),
+    TAKE_BOOK("takeBook", "POST /reservations"),
+    LIST_RESERVATIONS("listReservations", "GET /reservations"),
+    RETURN_BOOK("returnBook", "POST /reservations/{uid}/return");
+
+    private final String label;
+    private final String route;
+
+    Endpoint(String label, String route) {
+        this.label = label;
+        this.route = route;
+    }
+
+    String getLabel() {
+        return label;
+    }
+
+    String getRoute() {
+        return route;
+    }
+}
@@ -0,0 +1,56 @@
+package com.loadgenerator;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Задержки и ошибки одного эндпоинта за время измерения
+ */
+final class EndpointStats {
+    private final Endpoint endpoint;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder errors = new LongAdder();
+
+    /**
+     * Ошибки по виду: код ответа или timeout/io
+     */
+    private final ConcurrentHashMap<String, LongAdder> errorKinds = new ConcurrentHashMap<>();
+
+    EndpointStats(Endpoint endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    void recordSuccess(long micros) {
+        latency.record(micros);
+    }
+
+    /**
+     * Ошибка тоже попадает в гистограмму: медленный отказ - часть задержки, которую видит клиент
+     */
+    void recordError(long micros, String kind) {
+        latency.record(micros);
+        errors.increment();
+        errorKinds.computeIfAbsent(kind, k -> new LongAdder()).increment();
+    }
+
+    Endpoint getEndpoint() {
+        return endpoint;
+    }
+
+    LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    long getErrors() {
+        return errors.sum();
+    }
+
+    Map<String, Long> getErrorKinds() {
+        Map<String, Long> kinds = new TreeMap<>();
+        for (Map.Entry<String, LongAdder> e : errorKinds.entrySet())
+            kinds.put(e.getKey(), e.getValue().sum());
+        return kinds;
+    }
+}
@@ -0,0 +1,131 @@
+package com.loadgenerator;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Запросы к шлюзу в том виде, в каком их отправляют коллекции Postman, и разбор ответов для следующих шагов
+ */
+final class GatewayClient {
+    private static final String USER_HEADER = "X-User-Name";
+
+    private final LoadConfig config;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    GatewayClient(LoadConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * Запрос шага
+     * @return запрос или null, если для шага нет данных (например, бронь не была создана)
+     */
+    HttpRequest request(Endpoint endpoint, Session session) throws IOException {
+        String api = config.baseUrl + "/api/v1";
+        switch (endpoint) {
+            case LIST_LIBRARIES:
+                return get(api + "/libraries?page=1&size=10&city="
+                        + URLEncoder.encode(config.city, StandardCharsets.UTF_8), null);
+            case LIST_BOOKS:
+                return get(api + "/libraries/" + session.getLibraryUid() + "/books?page=1&size=25&showAll=false",
+                        null);
+            case GET_RATING:
+                return get(api + "/rating", session.getUsername());
+            case TAKE_BOOK: {
+                ObjectNode body = mapper.createObjectNode()
+                        .put("bookUid", session.getBookUid())
+                        .put("libraryUid", session.getLibraryUid())
+                        .put("tillDate", LocalDate.now().plusDays(config.tillDays).toString());
+                return post(api + "/reservations", session.getUsername(), body);
+            }
+            case LIST_RESERVATIONS:
+                return get(api + "/reservations", session.getUsername());
+            case RETURN_BOOK: {
+                if (session.getReservationUid() == null)
+                    return null;
+                ObjectNode body = mapper.createObjectNode()
+                        .put("condition", config.condition)
+                        .put("date", LocalDate.now().toString());
+                return post(api + "/reservations/" + session.getReservationUid() + "/return",
+                        session.getUsername(), body);
+            }
+            default:
+                throw new IllegalStateException("Неизвестный эндпоинт: " + endpoint);
+        }
+    }
+
+    /**
+     * Сохранение в сессии данных из успешного ответа
+     * Библиотека остаётся заданной, если она есть в ответе, иначе берётся первая; книга выбирается
+     * случайно среди доступных
+     */
+    void onResponse(Endpoint endpoint, Session session, byte[] body) throws IOException {
+        switch (endpoint) {
+            case LIST_LIBRARIES: {
+                List<String> uids = uids(mapper.readTree(body).path("items"), "libraryUid", null);
+                if (!uids.isEmpty() && !uids.contains(session.getLibraryUid()))
+                    session.setLibraryUid(uids.get(0));
+                break;
+            }
+            case LIST_BOOKS: {
+                List<String> uids = uids(mapper.readTree(body).path("items"), "bookUid", "availableCount");
+                if (!uids.isEmpty())
+                    session.setBookUid(uids.get(ThreadLocalRandom.current().nextInt(uids.size())));
+                break;
+            }
+            case TAKE_BOOK: {
+                JsonNode uid = mapper.readTree(body).path("reservationUid");
+                session.setReservationUid(uid.isTextual() ? uid.asText() : null);
+                break;
+            }
+            case RETURN_BOOK:
+                session.setReservationUid(null);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private HttpRequest get(String url, String username) {
+        return builder(url, username).GET().build();
+    }
+
+    private HttpRequest post(String url, String username, ObjectNode body) throws IOException {
+        return builder(url, username)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(mapper.writeValueAsBytes(body)))
+                .build();
+    }
+
+    private HttpRequest.Builder builder(String url, String username) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url)).timeout(config.timeout);
+        if (username != null)
+            builder.header(USER_HEADER, username);
+        return builder;
+    }
+
+    /**
+     * UUID элементов массива; если задано поле количества, только элементов с положительным количеством
+     */
+    private static List<String> uids(JsonNode items, String uidField, String countField) {
+        List<String> uids = new ArrayList<>();
+        for (JsonNode item : items) {
+            if (countField != null && item.path(countField).asInt(1) <= 0)
+                continue;
+            if (item.path(uidField).isTextual())
+                uids.add(item.path(uidField).asText());
+        }
+        return uids;
+    }
+}
@@ -0,0 +1,113 @@
+package com.loadgenerator;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Гистограмма задержек с логарифмически-линейными корзинами, как в HdrHistogram
+ * Значения до 256 мкс хранятся точно, большие - в корзинах шириной не больше 1/128 значения,
+ * поэтому ошибка процентилей меньше 1% во всём диапазоне до 2^36 мкс. Запись не блокирует
+ */
+final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKET_HALF = 1 << SUB_BUCKET_BITS;
+    private static final int LINEAR_LIMIT = SUB_BUCKET_HALF << 1;
+    private static final long MAX_VALUE = (1L << 36) - 1;
+    private static final int SIZE = LINEAR_LIMIT + (36 - SUB_BUCKET_BITS - 1) * SUB_BUCKET_HALF;
+
+    private final AtomicLongArray counts = new AtomicLongArray(SIZE);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * @param micros задержка в микросекундах; отрицательные значения считаются нулём
+     */
+    void record(long micros) {
+        long value = Math.min(MAX_VALUE, Math.max(0, micros));
+        counts.incrementAndGet(indexOf(value));
+        total.increment();
+        sum.add(value);
+        min.accumulateAndGet(value, Math::min);
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    /**
+     * Добавление значений другой гистограммы, например для итога по всем эндпоинтам
+     */
+    void add(LatencyHistogram other) {
+        long count = other.getCount();
+        if (count == 0)
+            return;
+
+        for (int i = 0; i < SIZE; i++) {
+            long c = other.counts.get(i);
+            if (c != 0)
+                counts.addAndGet(i, c);
+        }
+        total.add(count);
+        sum.add(other.sum.sum());
+        min.accumulateAndGet(other.getMin(), Math::min);
+        max.accumulateAndGet(other.getMax(), Math::max);
+    }
+
+    long getCount() {
+        return total.sum();
+    }
+
+    long getMin() {
+        return getCount() == 0 ? 0 : min.get();
+    }
+
+    long getMax() {
+        return max.get();
+    }
+
+    double getMean() {
+        long count = getCount();
+        return count == 0 ? 0 : (double) sum.sum() / count;
+    }
+
+    /**
+     * Процентиль задержки
+     * @param percentile процентиль от 0 до 100
+     * @return верхняя граница корзины, в которую попадает процентиль, но не больше максимума; 0, если значений нет
+     */
+    long percentile(double percentile) {
+        long count = getCount();
+        if (count == 0)
+            return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(count * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < SIZE; i++) {
+            seen += counts.get(i);
+            if (seen >= rank)
+                return Math.min(highestEquivalent(i), getMax());
+        }
+        return getMax();
+    }
+
+    static int indexOf(long value) {
+        if (value < LINEAR_LIMIT)
+            return (int) value;
+
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        int sub = (int) (value >>> shift);
+        return LINEAR_LIMIT + (shift - 1) * SUB_BUCKET_HALF + (sub - SUB_BUCKET_HALF);
+    }
+
+    /**
+     * Наибольшее значение, попадающее в корзину
+     */
+    static long highestEquivalent(int index) {
+        if (index < LINEAR_LIMIT)
+            return index;
+
+        int shift = (index - LINEAR_LIMIT) / SUB_BUCKET_HALF + 1;
+        long sub = (index - LINEAR_LIMIT) % SUB_BUCKET_HALF + SUB_BUCKET_HALF;
+        return ((sub + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,152 @@
+package com.loadgenerator;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Параметры нагрузки из аргументов вида --имя=значение
+ * Длительности задаются с единицами: 500ms, 10s, 2m; число без единиц - миллисекунды
+ */
+final class LoadConfig {
+    enum Model {
+        /**
+         * Сценарии начинаются с заданной частотой независимо от ответов: очередь растёт, если шлюз не успевает
+         */
+        OPEN,
+
+        /**
+         * Фиксированное число пользователей, каждый начинает следующий сценарий после предыдущего
+         */
+        CLOSED
+    }
+
+    enum Arrivals {
+        POISSON,
+        UNIFORM
+    }
+
+    enum ThinkTime {
+        EXPONENTIAL,
+        FIXED
+    }
+
+    /**
+     * Значения из коллекций Postman
+     */
+    static final String DEFAULT_LIBRARY_UID = "83575e12-7ce0-48ee-9931-51919ff3c9ee";
+    static final String DEFAULT_BOOK_UID = "f7cdc58f-2caf-4b15-9727-f89dcc629b27";
+
+    String baseUrl = "http://localhost:8080";
+    Model model = Model.CLOSED;
+    double rate = 10;
+    Arrivals arrivals = Arrivals.POISSON;
+    int users = 10;
+    int population = 100;
+    String userPrefix = "load-user-";
+    Duration thinkTime = Duration.ofMillis(500);
+    ThinkTime thinkDistribution = ThinkTime.EXPONENTIAL;
+    Duration warmup = Duration.ofSeconds(10);
+    Duration duration = Duration.ofSeconds(60);
+    Duration rampUp = Duration.ZERO;
+    Duration drain = Duration.ofSeconds(30);
+    Duration timeout = Duration.ofSeconds(10);
+    Duration progress = Duration.ofSeconds(10);
+    int maxSessions = 10000;
+    Map<Scenario, Integer> mix = defaultMix();
+    String city = "Москва";
+    String libraryUid = DEFAULT_LIBRARY_UID;
+    String bookUid = DEFAULT_BOOK_UID;
+    int tillDays = 7;
+    String condition = "EXCELLENT";
+    String report;
+
+    static LoadConfig parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || arg.indexOf('=') < 0)
+                throw new IllegalArgumentException("Ожидался аргумент вида --имя=значение: " + arg);
+            values.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+
+        LoadConfig c = new LoadConfig();
+        for (Map.Entry<String, String> e : values.entrySet()) {
+            String v = e.getValue();
+            switch (e.getKey()) {
+                case "base-url": c.baseUrl = v.endsWith("/") ? v.substring(0, v.length() - 1) : v; break;
+                case "model": c.model = Model.valueOf(v.toUpperCase(Locale.ROOT)); break;
+                case "rate": c.rate = Double.parseDouble(v); break;
+                case "arrivals": c.arrivals = Arrivals.valueOf(v.toUpperCase(Locale.ROOT)); break;
+                case "users": c.users = Integer.parseInt(v); break;
+                case "population": c.population = Integer.parseInt(v); break;
+                case "user-prefix": c.userPrefix = v; break;
+                case "think-time": c.thinkTime = duration(v); break;
+                case "think-distribution": c.thinkDistribution = ThinkTime.valueOf(v.toUpperCase(Locale.ROOT)); break;
+                case "warmup": c.warmup = duration(v); break;
+                case "duration": c.duration = duration(v); break;
+                case "ramp-up": c.rampUp = duration(v); break;
+                case "drain": c.drain = duration(v); break;
+                case "timeout": c.timeout = duration(v); break;
+                case "progress": c.progress = duration(v); break;
+                case "max-sessions": c.maxSessions = Integer.parseInt(v); break;
+                case "mix": c.mix = mix(v); break;
+                case "city": c.city = v; break;
+                case "library-uid": c.libraryUid = v; break;
+                case "book-uid": c.bookUid = v; break;
+                case "till-days": c.tillDays = Integer.parseInt(v); break;
+                case "condition": c.condition = v; break;
+                case "report": c.report = v; break;
+                default: throw new IllegalArgumentException("Неизвестный параметр: --" + e.getKey());
+            }
+        }
+
+        if (c.rate <= 0 || c.users < 1 || c.population < 1 || c.maxSessions < 1)
+            throw new IllegalArgumentException("rate, users, population и max-sessions должны быть положительными");
+        if (c.duration.isZero() || c.duration.isNegative())
+            throw new IllegalArgumentException("duration должна быть положительной");
+        return c;
+    }
+
+    /**
+     * Длительность: 500ms, 10s, 2m или число миллисекунд
+     */
+    static Duration duration(String value) {
+        String v = value.trim().toLowerCase(Locale.ROOT);
+        if (v.endsWith("ms"))
+            return Duration.ofMillis(Long.parseLong(v.substring(0, v.length() - 2)));
+        if (v.endsWith("s"))
+            return Duration.ofMillis(Math.round(Double.parseDouble(v.substring(0, v.length() - 1)) * 1000));
+        if (v.endsWith("m"))
+            return Duration.ofMillis(Math.round(Double.parseDouble(v.substring(0, v.length() - 1)) * 60_000));
+        return Duration.ofMillis(Long.parseLong(v));
+    }
+
+    /**
+     * Доли сценариев: checkout:1,browse:6,profile:3
+     */
+    static Map<Scenario, Integer> mix(String value) {
+        Map<Scenario, Integer> mix = new EnumMap<>(Scenario.class);
+        for (String part : value.split(",")) {
+            String[] kv = part.split(":");
+            int weight = kv.length > 1 ? Integer.parseInt(kv[1].trim()) : 1;
+            if (weight < 0)
+                throw new IllegalArgumentException("Доля сценария не может быть отрицательной: " + part);
+            if (weight > 0)
+                mix.put(Scenario.of(kv[0]), weight);
+        }
+
+        if (mix.isEmpty())
+            throw new IllegalArgumentException("Не задан ни один сценарий: " + value);
+        return mix;
+    }
+
+    private static Map<Scenario, Integer> defaultMix() {
+        Map<Scenario, Integer> mix = new EnumMap<>(Scenario.class);
+        mix.put(Scenario.CHECKOUT, 1);
+        mix.put(Scenario.BROWSE, 6);
+        mix.put(Scenario.PROFILE, 3);
+        return mix;
+    }
+}
@@ -0,0 +1,51 @@
+package com.loadgenerator;
+
+import java.io.IOException;
+
+/**
+ * Генератор нагрузки на шлюз, воспроизводящий сценарии коллекций Postman
+ */
+public final class LoadGenerator {
+    private static final String USAGE = String.join(System.lineSeparator(),
+            "Использование: java -jar LoadGenerator.jar [--имя=значение ...]",
+            "  --base-url=http://localhost:8080   адрес шлюза",
+            "  --model=closed|open                закрытая модель (users) или открытая (rate)",
+            "  --rate=10                          сценариев в секунду в открытой модели",
+            "  --arrivals=poisson|uniform         распределение прибытий в открытой модели",
+            "  --max-sessions=10000               предел одновременных сценариев открытой модели",
+            "  --users=10                         одновременных пользователей в закрытой модели",
+            "  --ramp-up=0s                       время вступления пользователей закрытой модели",
+            "  --population=100                   число разных пользователей (X-User-Name)",
+            "  --user-prefix=load-user-           префикс имён пользователей",
+            "  --think-time=500ms                 средняя пауза пользователя между запросами",
+            "  --think-distribution=exponential|fixed",
+            "  --mix=checkout:1,browse:6,profile:3 доли сценариев",
+            "  --warmup=10s --duration=60s        разогрев без записи и время замера",
+            "  --drain=30s                        ожидание начатых сценариев после замера",
+            "  --timeout=10s                      таймаут запроса",
+            "  --progress=10s                     интервал строк о ходе прогона, 0 - не выводить",
+            "  --city=Москва --library-uid=... --book-uid=... --till-days=7 --condition=EXCELLENT",
+            "  --report=report.json               файл для итогов в JSON");
+
+    private LoadGenerator() {
+    }
+
+    public static void main(String[] args) throws InterruptedException, IOException {
+        LoadConfig config;
+        try {
+            config = LoadConfig.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+
+        Report report = new LoadRunner(config).run();
+        report.print(System.out);
+        if (config.report != null) {
+            report.write(config.report);
+            System.out.println("Итоги записаны в " + config.report);
+        }
+    }
+}
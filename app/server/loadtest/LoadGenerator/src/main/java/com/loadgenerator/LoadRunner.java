@@ -0,0 +1,373 @@
+package com.loadgenerator;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Прогон нагрузки: разогрев, замер и завершение начатых сценариев
+ * Задержка запроса отсчитывается от момента, когда он должен был начаться по расписанию, а не от фактической
+ * отправки: если генератор или шлюз не успевают, ожидание в очереди попадает в задержку (без coordinated omission).
+ * В статистику попадают запросы, запланированные внутри окна замера. После окончания замера начатые сценарии
+ * доходят до конца без пауз и без записи, чтобы взятые книги были возвращены
+ */
+final class LoadRunner {
+    private final LoadConfig config;
+    private final GatewayClient gateway;
+    private final ExecutorService httpExecutor;
+    private final HttpClient http;
+    private final ScheduledExecutorService timer;
+
+    private final Map<Endpoint, EndpointStats> stats = new EnumMap<>(Endpoint.class);
+    private final Map<Scenario, ScenarioCounters> sessions = new EnumMap<>(Scenario.class);
+    private final Scenario[] scenarios;
+    private final int[] cumulativeWeights;
+
+    private final AtomicInteger active = new AtomicInteger();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    private volatile long measureFrom;
+    private volatile long stopAt;
+
+    LoadRunner(LoadConfig config) {
+        this.config = config;
+        this.gateway = new GatewayClient(config);
+        this.httpExecutor = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "load-http");
+            t.setDaemon(true);
+            return t;
+        });
+        this.http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(config.timeout)
+                .executor(httpExecutor)
+                .build();
+        this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "load-timer");
+            t.setDaemon(true);
+            return t;
+        });
+
+        for (Endpoint endpoint : Endpoint.values())
+            stats.put(endpoint, new EndpointStats(endpoint));
+        for (Scenario scenario : Scenario.values())
+            sessions.put(scenario, new ScenarioCounters());
+
+        scenarios = config.mix.keySet().toArray(new Scenario[0]);
+        cumulativeWeights = new int[scenarios.length];
+        int sum = 0;
+        for (int i = 0; i < scenarios.length; i++) {
+            sum += config.mix.get(scenarios[i]);
+            cumulativeWeights[i] = sum;
+        }
+    }
+
+    Report run() throws InterruptedException {
+        long start = System.nanoTime();
+        measureFrom = start + config.warmup.toNanos();
+        stopAt = measureFrom + config.duration.toNanos();
+
+        long progressMs = config.progress.toMillis();
+        ScheduledFuture<?> progress = progressMs > 0
+                ? timer.scheduleAtFixedRate(new Progress(start), progressMs, progressMs, TimeUnit.MILLISECONDS)
+                : null;
+        try {
+            if (config.model == LoadConfig.Model.OPEN)
+                arrivals(start);
+            else
+                startUsers(start);
+
+            parkUntil(stopAt);
+            drain();
+        } finally {
+            if (progress != null)
+                progress.cancel(false);
+            timer.shutdownNow();
+            httpExecutor.shutdownNow();
+        }
+
+        Map<Scenario, Report.Sessions> sessionCounts = new EnumMap<>(Scenario.class);
+        for (Scenario scenario : scenarios)
+            sessionCounts.put(scenario, sessions.get(scenario).snapshot());
+
+        return new Report(config, stats.values(), sessionCounts, dropped.sum());
+    }
+
+    /**
+     * Открытая модель: сценарии начинаются по расписанию прибытий, не дожидаясь ответов
+     * Если одновременно идёт max-sessions сценариев, прибытие отбрасывается и учитывается отдельно
+     */
+    private void arrivals(long start) throws InterruptedException {
+        long next = start;
+        while (next < stopAt) {
+            parkUntil(next);
+            if (active.get() >= config.maxSessions) {
+                if (inWindow(next))
+                    dropped.increment();
+            } else {
+                startSession(next);
+            }
+            next += interarrivalNanos();
+        }
+    }
+
+    /**
+     * Закрытая модель: users пользователей, каждый начинает следующий сценарий после паузы;
+     * пользователи вступают равномерно в течение ramp-up
+     */
+    private void startUsers(long start) {
+        long rampUp = config.rampUp.toNanos();
+        for (int i = 0; i < config.users; i++) {
+            long delay = rampUp * i / config.users;
+            timer.schedule(() -> userLoop(start + delay), delay, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void userLoop(long intended) {
+        if (intended >= stopAt)
+            return;
+
+        startSession(intended).whenComplete((ignored, e) -> {
+            long now = System.nanoTime();
+            if (now >= stopAt)
+                return;
+
+            long think = thinkNanos();
+            timer.schedule(() -> userLoop(now + think), think, TimeUnit.NANOSECONDS);
+        });
+    }
+
+    private CompletableFuture<Void> startSession(long intended) {
+        Scenario scenario = pickScenario();
+        String username = config.userPrefix + ThreadLocalRandom.current().nextInt(config.population);
+        Session session = new Session(scenario, username, config.libraryUid, config.bookUid);
+
+        boolean recorded = inWindow(intended);
+        ScenarioCounters counters = sessions.get(scenario);
+        if (recorded)
+            counters.started.increment();
+
+        active.incrementAndGet();
+        CompletableFuture<Void> result;
+        try {
+            result = step(session, 0, intended);
+        } catch (RuntimeException e) {
+            result = new CompletableFuture<>();
+            result.completeExceptionally(e);
+        }
+
+        return result.whenComplete((ignored, e) -> {
+            active.decrementAndGet();
+            if (e != null)
+                session.markFailed();
+            if (recorded)
+                (session.isFailed() ? counters.failed : counters.completed).increment();
+        });
+    }
+
+    /**
+     * Выполнение шага сценария и всех следующих
+     * @param intended момент, когда шаг должен был начаться
+     */
+    private CompletableFuture<Void> step(Session session, int index, long intended) {
+        List<Endpoint> steps = session.getScenario().getSteps();
+        if (index >= steps.size())
+            return CompletableFuture.completedFuture(null);
+
+        Endpoint endpoint = steps.get(index);
+        HttpRequest request;
+        try {
+            request = gateway.request(endpoint, session);
+        } catch (IOException e) {
+            CompletableFuture<Void> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+
+        if (request == null)
+            return step(session, index + 1, intended);
+
+        return http.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .handle((response, error) -> {
+                    onResult(endpoint, session, intended, response, error);
+                    return null;
+                })
+                .thenCompose(ignored -> next(session, index + 1));
+    }
+
+    /**
+     * Пауза пользователя перед следующим шагом; после окончания замера шаги идут без пауз
+     */
+    private CompletableFuture<Void> next(Session session, int index) {
+        if (index >= session.getScenario().getSteps().size())
+            return CompletableFuture.completedFuture(null);
+
+        long now = System.nanoTime();
+        long think = now < stopAt ? thinkNanos() : 0;
+        if (think == 0)
+            return step(session, index, now);
+
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        timer.schedule(() -> {
+            try {
+                step(session, index, now + think).whenComplete((ignored, e) -> {
+                    if (e != null)
+                        result.completeExceptionally(e);
+                    else
+                        result.complete(null);
+                });
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        }, think, TimeUnit.NANOSECONDS);
+        return result;
+    }
+
+    private void onResult(Endpoint endpoint, Session session, long intended, HttpResponse<byte[]> response,
+                          Throwable error) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intended);
+
+        String kind = null;
+        if (error != null) {
+            kind = kindOf(error);
+        } else if (response.statusCode() / 100 != 2) {
+            kind = String.valueOf(response.statusCode());
+        } else {
+            try {
+                gateway.onResponse(endpoint, session, response.body());
+            } catch (IOException | RuntimeException e) {
+                kind = "parse";
+            }
+        }
+
+        requests.increment();
+        if (kind != null) {
+            errors.increment();
+            session.markFailed();
+        }
+
+        if (!inWindow(intended))
+            return;
+
+        if (kind == null)
+            stats.get(endpoint).recordSuccess(micros);
+        else
+            stats.get(endpoint).recordError(micros, kind);
+    }
+
+    /**
+     * Ожидание сценариев, начатых до окончания замера, но не дольше drain
+     */
+    private void drain() throws InterruptedException {
+        long deadline = System.nanoTime() + config.drain.toNanos();
+        while (active.get() > 0 && System.nanoTime() < deadline)
+            Thread.sleep(50);
+
+        if (active.get() > 0)
+            System.err.printf("Не завершено сценариев: %d, взятые в них книги могли остаться невозвращёнными%n",
+                    active.get());
+    }
+
+    private boolean inWindow(long nanos) {
+        return nanos >= measureFrom && nanos < stopAt;
+    }
+
+    private Scenario pickScenario() {
+        int r = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (r < cumulativeWeights[i])
+                return scenarios[i];
+        }
+        return scenarios[scenarios.length - 1];
+    }
+
+    private long interarrivalNanos() {
+        double mean = 1e9 / config.rate;
+        if (config.arrivals == LoadConfig.Arrivals.UNIFORM)
+            return Math.max(1, (long) mean);
+
+        return Math.max(1, (long) (-Math.log(1 - ThreadLocalRandom.current().nextDouble()) * mean));
+    }
+
+    private long thinkNanos() {
+        long mean = config.thinkTime.toNanos();
+        if (mean <= 0 || config.thinkDistribution == LoadConfig.ThinkTime.FIXED)
+            return Math.max(0, mean);
+
+        return (long) (-Math.log(1 - ThreadLocalRandom.current().nextDouble()) * mean);
+    }
+
+    private static void parkUntil(long deadline) throws InterruptedException {
+        long left;
+        while ((left = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(left);
+            if (Thread.interrupted())
+                throw new InterruptedException();
+        }
+    }
+
+    private static String kindOf(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof HttpTimeoutException)
+            return "timeout";
+        if (cause instanceof ConnectException)
+            return "connect";
+        return "io";
+    }
+
+    private static final class ScenarioCounters {
+        final LongAdder started = new LongAdder();
+        final LongAdder completed = new LongAdder();
+        final LongAdder failed = new LongAdder();
+
+        Report.Sessions snapshot() {
+            return new Report.Sessions(started.sum(), completed.sum(), failed.sum());
+        }
+    }
+
+    /**
+     * Строка о ходе прогона: фаза, идущие сценарии и пропускная способность за последний интервал
+     */
+    private final class Progress implements Runnable {
+        private final long start;
+        private long lastNanos;
+        private long lastRequests;
+
+        Progress(long start) {
+            this.start = start;
+            this.lastNanos = start;
+        }
+
+        @Override
+        public void run() {
+            long now = System.nanoTime();
+            long total = requests.sum();
+            double rps = (total - lastRequests) * 1e9 / Math.max(1, now - lastNanos);
+            lastNanos = now;
+            lastRequests = total;
+
+            String phase = now < measureFrom ? "разогрев" : now < stopAt ? "замер" : "завершение";
+            System.out.printf("[%5ds] %-10s сценариев: %d, запросов: %d (%.1f/с), ошибок: %d%n",
+                    TimeUnit.NANOSECONDS.toSeconds(now - start), phase, active.get(), total, rps, errors.sum());
+        }
+    }
+}
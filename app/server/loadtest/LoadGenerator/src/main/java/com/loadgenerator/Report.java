@@ -0,0 +1,170 @@
+package com.loadgenerator;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Итоги замера: задержки и пропускная способность по эндпоинтам и число сценариев
+ */
+final class Report {
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    /**
+     * Сценарии одного вида, начатые в окне замера
+     */
+    static final class Sessions {
+        final long started;
+        final long completed;
+        final long failed;
+
+        Sessions(long started, long completed, long failed) {
+            this.started = started;
+            this.completed = completed;
+            this.failed = failed;
+        }
+    }
+
+    private final LoadConfig config;
+    private final List<EndpointStats> endpoints;
+    private final LatencyHistogram total = new LatencyHistogram();
+    private final long totalErrors;
+    private final Map<Scenario, Sessions> sessions;
+    private final long dropped;
+    private final double seconds;
+
+    Report(LoadConfig config, Collection<EndpointStats> endpoints, Map<Scenario, Sessions> sessions, long dropped) {
+        this.config = config;
+        this.endpoints = new ArrayList<>(endpoints);
+        this.sessions = sessions;
+        this.dropped = dropped;
+        this.seconds = config.duration.toMillis() / 1000.0;
+
+        long errors = 0;
+        for (EndpointStats stats : this.endpoints) {
+            total.add(stats.getLatency());
+            errors += stats.getErrors();
+        }
+        this.totalErrors = errors;
+    }
+
+    void print(PrintStream out) {
+        out.println();
+        if (config.model == LoadConfig.Model.OPEN)
+            out.printf("Открытая модель: %.1f сценариев/с (%s), пользователей: %d%n", config.rate,
+                    config.arrivals.name().toLowerCase(), config.population);
+        else
+            out.printf("Закрытая модель: %d одновременных из %d пользователей, пауза %d мс (%s)%n", config.users,
+                    config.population, config.thinkTime.toMillis(), config.thinkDistribution.name().toLowerCase());
+        out.printf("Замер %.0f с после разогрева %d с, задержки в мс%n%n", seconds, config.warmup.getSeconds());
+
+        out.printf("%-18s %-32s %8s %7s %8s %8s %8s %8s %8s %8s%n",
+                "endpoint", "route", "count", "errors", "rps", "p50", "p90", "p99", "p99.9", "max");
+        for (EndpointStats stats : endpoints) {
+            if (stats.getLatency().getCount() > 0)
+                printRow(out, stats.getEndpoint().getLabel(), stats.getEndpoint().getRoute(), stats.getLatency(),
+                        stats.getErrors());
+        }
+        printRow(out, "total", "", total, totalErrors);
+
+        out.println();
+        for (Map.Entry<Scenario, Sessions> e : sessions.entrySet()) {
+            Sessions s = e.getValue();
+            out.printf("Сценарий %-9s начато: %d, без ошибок: %d, с ошибками: %d, не завершено: %d%n",
+                    e.getKey().getLabel(), s.started, s.completed, s.failed,
+                    Math.max(0, s.started - s.completed - s.failed));
+        }
+        if (config.model == LoadConfig.Model.OPEN)
+            out.printf("Отброшено прибытий (max-sessions=%d): %d%n", config.maxSessions, dropped);
+
+        for (EndpointStats stats : endpoints) {
+            if (stats.getErrors() > 0)
+                out.printf("Ошибки %s: %s%n", stats.getEndpoint().getLabel(), stats.getErrorKinds());
+        }
+    }
+
+    /**
+     * Запись итогов в JSON, например для сравнения прогонов
+     */
+    void write(String file) throws IOException {
+        Path path = Paths.get(file);
+        if (path.getParent() != null)
+            Files.createDirectories(path.getParent());
+
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("model", config.model.name().toLowerCase());
+        if (config.model == LoadConfig.Model.OPEN)
+            json.put("rate", config.rate);
+        else
+            json.put("users", config.users);
+        json.put("population", config.population);
+        json.put("thinkTimeMs", config.thinkTime.toMillis());
+        json.put("warmupSeconds", config.warmup.getSeconds());
+        json.put("durationSeconds", seconds);
+
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (EndpointStats stats : endpoints) {
+            if (stats.getLatency().getCount() == 0)
+                continue;
+
+            Map<String, Object> row = row(stats.getEndpoint().getLabel(), stats.getLatency(), stats.getErrors());
+            row.put("route", stats.getEndpoint().getRoute());
+            row.put("errorKinds", stats.getErrorKinds());
+            rows.add(row);
+        }
+        json.put("endpoints", rows);
+        json.put("total", row("total", total, totalErrors));
+
+        Map<String, Object> scenarios = new LinkedHashMap<>();
+        for (Map.Entry<Scenario, Sessions> e : sessions.entrySet()) {
+            Map<String, Object> s = new LinkedHashMap<>();
+            s.put("started", e.getValue().started);
+            s.put("completed", e.getValue().completed);
+            s.put("failed", e.getValue().failed);
+            scenarios.put(e.getKey().getLabel(), s);
+        }
+        json.put("scenarios", scenarios);
+        json.put("droppedArrivals", dropped);
+
+        new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(path.toFile(), json);
+    }
+
+    private void printRow(PrintStream out, String label, String route, LatencyHistogram latency, long errors) {
+        out.printf("%-18s %-32s %8d %7d %8.1f", label, route, latency.getCount(), errors,
+                latency.getCount() / seconds);
+        for (double p : PERCENTILES)
+            out.printf(" %8.1f", ms(latency.percentile(p)));
+        out.printf(" %8.1f%n", ms(latency.getMax()));
+    }
+
+    private Map<String, Object> row(String label, LatencyHistogram latency, long errors) {
+        Map<String, Object> latencyMs = new LinkedHashMap<>();
+        latencyMs.put("min", ms(latency.getMin()));
+        latencyMs.put("mean", latency.getMean() / 1000);
+        for (double p : PERCENTILES)
+            latencyMs.put("p" + (p == Math.rint(p) ? String.valueOf((long) p) : String.valueOf(p)),
+                    ms(latency.percentile(p)));
+        latencyMs.put("max", ms(latency.getMax()));
+
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("endpoint", label);
+        row.put("count", latency.getCount());
+        row.put("errors", errors);
+        row.put("rps", latency.getCount() / seconds);
+        row.put("latencyMs", latencyMs);
+        return row;
+    }
+
+    private static double ms(long micros) {
+        return micros / 1000.0;
+    }
+}
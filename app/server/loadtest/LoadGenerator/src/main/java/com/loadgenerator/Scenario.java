@@ -0,0 +1,45 @@
+package com.loadgenerator;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Сценарии пользователя, составленные из шагов коллекций Postman
+ */
+enum Scenario {
+    /**
+     * Папка success коллекций v1-v4: найти книгу, взять её, посмотреть брони, вернуть и проверить рейтинг
+     */
+    CHECKOUT(Endpoint.LIST_LIBRARIES, Endpoint.LIST_BOOKS, Endpoint.GET_RATING, Endpoint.TAKE_BOOK,
+            Endpoint.LIST_RESERVATIONS, Endpoint.RETURN_BOOK, Endpoint.GET_RATING),
+
+    /**
+     * Просмотр библиотек города и книг одной из них
+     */
+    BROWSE(Endpoint.LIST_LIBRARIES, Endpoint.LIST_BOOKS),
+
+    /**
+     * Просмотр своего рейтинга и броней
+     */
+    PROFILE(Endpoint.GET_RATING, Endpoint.LIST_RESERVATIONS);
+
+    private final List<Endpoint> steps;
+
+    Scenario(Endpoint... steps) {
+        this.steps = Collections.unmodifiableList(Arrays.asList(steps));
+    }
+
+    List<Endpoint> getSteps() {
+        return steps;
+    }
+
+    String getLabel() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    static Scenario of(String label) {
+        return valueOf(label.trim().toUpperCase(Locale.ROOT));
+    }
+}
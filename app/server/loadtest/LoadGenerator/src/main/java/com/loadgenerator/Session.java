@@ -0,0 +1,65 @@
+package com.loadgenerator;
+
+/**
+ * Один проход сценария: пользователь и данные, полученные на предыдущих шагах
+ */
+final class Session {
+    private final Scenario scenario;
+    private final String username;
+
+    private String libraryUid;
+    private String bookUid;
+    private String reservationUid;
+
+    /**
+     * Был ли в проходе хотя бы один неуспешный запрос
+     */
+    private volatile boolean failed;
+
+    Session(Scenario scenario, String username, String libraryUid, String bookUid) {
+        this.scenario = scenario;
+        this.username = username;
+        this.libraryUid = libraryUid;
+        this.bookUid = bookUid;
+    }
+
+    Scenario getScenario() {
+        return scenario;
+    }
+
+    String getUsername() {
+        return username;
+    }
+
+    String getLibraryUid() {
+        return libraryUid;
+    }
+
+    void setLibraryUid(String libraryUid) {
+        this.libraryUid = libraryUid;
+    }
+
+    String getBookUid() {
+        return bookUid;
+    }
+
+    void setBookUid(String bookUid) {
+        this.bookUid = bookUid;
+    }
+
+    String getReservationUid() {
+        return reservationUid;
+    }
+
+    void setReservationUid(String reservationUid) {
+        this.reservationUid = reservationUid;
+    }
+
+    boolean isFailed() {
+        return failed;
+    }
+
+    void markFailed() {
+        this.failed = true;
+    }
+}
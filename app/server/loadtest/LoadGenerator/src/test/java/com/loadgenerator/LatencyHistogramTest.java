@@ -0,0 +1,82 @@
+package com.loadgenerator;
+
+import io.qameta.allure.Description;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyHistogramTest {
+    @Test
+    @Description("Значения до 256 мкс хранятся точно")
+    public void testSmallValuesAreExact() {
+        // arrange
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        // act
+        for (int i = 1; i <= 100; i++)
+            histogram.record(i);
+
+        // assert
+        assertEquals(100, histogram.getCount());
+        assertEquals(1, histogram.getMin());
+        assertEquals(100, histogram.getMax());
+        assertEquals(50, histogram.percentile(50));
+        assertEquals(99, histogram.percentile(99));
+        assertEquals(100, histogram.percentile(100));
+    }
+
+    @Test
+    @Description("Ошибка процентилей больших значений меньше 1%")
+    public void testLargeValuesRelativeError() {
+        // arrange
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        // act
+        for (long v = 1_000; v <= 10_000_000; v += 1_000)
+            histogram.record(v);
+
+        // assert
+        long p50 = histogram.percentile(50);
+        long p99 = histogram.percentile(99);
+        assertTrue("p50 = " + p50, p50 >= 5_000_000 && p50 <= 5_000_000 * 1.01);
+        assertTrue("p99 = " + p99, p99 >= 9_900_000 && p99 <= 9_900_000 * 1.01);
+        assertEquals(10_000_000, histogram.percentile(100));
+    }
+
+    @Test
+    @Description("Корзина содержит своё наибольшее значение, а следующее значение попадает в следующую корзину")
+    public void testBucketBoundaries() {
+        for (int index = 0; index < LatencyHistogram.indexOf((1L << 36) - 1); index++) {
+            // arrange
+            long highest = LatencyHistogram.highestEquivalent(index);
+
+            // act & assert
+            assertEquals(index, LatencyHistogram.indexOf(highest));
+            assertEquals(index + 1, LatencyHistogram.indexOf(highest + 1));
+        }
+    }
+
+    @Test
+    @Description("Сложение гистограмм сохраняет число значений, минимум и максимум")
+    public void testAdd() {
+        // arrange
+        LatencyHistogram first = new LatencyHistogram();
+        LatencyHistogram second = new LatencyHistogram();
+        first.record(10);
+        first.record(20);
+        second.record(5_000);
+
+        // act
+        LatencyHistogram total = new LatencyHistogram();
+        total.add(first);
+        total.add(second);
+        total.add(new LatencyHistogram());
+
+        // assert
+        assertEquals(3, total.getCount());
+        assertEquals(10, total.getMin());
+        assertEquals(5_000, total.getMax());
+        assertEquals(20, total.percentile(50));
+    }
+}
@@ -0,0 +1,98 @@
+package com.gatewayservice.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.gatewayservice.dto.BookInfo;
+import com.gatewayservice.dto.BookReservationResponse;
+import com.gatewayservice.dto.LibraryBookPaginationResponse;
+import com.gatewayservice.dto.LibraryBookResponse;
+import com.gatewayservice.dto.LibraryResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Разбор и сериализация ответов, проходящих через шлюз
+ * Страница книг читается из ответа сервиса библиотек и пишется клиенту, брони с книгами и библиотеками
+ * собираются в шлюзе и только пишутся
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+    @Param({"10", "100", "1000"})
+    int size;
+
+    private ObjectReader pageReader;
+    private ObjectWriter pageWriter;
+    private ObjectWriter reservationsWriter;
+
+    private LibraryBookPaginationResponse page;
+    private byte[] pageJson;
+    private BookReservationResponse[] reservations;
+
+    @Setup
+    public void setUp() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        pageReader = mapper.readerFor(LibraryBookPaginationResponse.class);
+        pageWriter = mapper.writerFor(LibraryBookPaginationResponse.class);
+        reservationsWriter = mapper.writerFor(BookReservationResponse[].class);
+
+        Random random = new Random(42);
+        String[] conditions = {"EXCELLENT", "GOOD", "BAD"};
+        String[] statuses = {"RENTED", "RETURNED", "EXPIRED"};
+        LocalDate start = LocalDate.of(2020, 1, 1);
+
+        ArrayList<LibraryBookResponse> items = new ArrayList<>(size);
+        reservations = new BookReservationResponse[size];
+        for (int i = 0; i < size; i++) {
+            UUID bookUid = new UUID(random.nextLong(), random.nextLong());
+            items.add(new LibraryBookResponse(bookUid, "Краткий курс C++ в 7 томах " + i, "Бьерн Страуструп",
+                    "Научная фантастика", conditions[i % 3], random.nextInt(10)));
+
+            LocalDate startDate = start.plusDays(random.nextInt(1500));
+            reservations[i] = new BookReservationResponse(new UUID(random.nextLong(), random.nextLong()),
+                    statuses[i % 3], startDate.toString(), startDate.plusDays(14).toString(),
+                    new BookInfo(bookUid.toString(), "Краткий курс C++ в 7 томах " + i, "Бьерн Страуструп",
+                            "Научная фантастика"),
+                    new LibraryResponse(new UUID(random.nextLong(), random.nextLong()),
+                            "Библиотека имени 7 Непьющих", "2-я Бауманская ул., д.5, стр.1", "Москва"));
+        }
+
+        page = new LibraryBookPaginationResponse(1, size, size * 10, items);
+        pageJson = pageWriter.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public LibraryBookPaginationResponse readBooksPage() throws Exception {
+        return pageReader.readValue(pageJson);
+    }
+
+    @Benchmark
+    public byte[] writeBooksPage() throws Exception {
+        return pageWriter.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public byte[] writeReservations() throws Exception {
+        return reservationsWriter.writeValueAsBytes(reservations);
+    }
+}
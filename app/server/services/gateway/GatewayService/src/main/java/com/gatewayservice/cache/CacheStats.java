@@ -0,0 +1,19 @@
+package com.gatewayservice.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Снимок счётчиков кэша
+ */
+@Getter
+@AllArgsConstructor
+public class CacheStats {
+    String name;
+    int size;
+    int maxSize;
+    long hits;
+    long misses;
+    long evictions;
+    long expirations;
+}
@@ -0,0 +1,232 @@
+package com.gatewayservice.cache;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Ограниченный по размеру кэш со временем жизни записей
+ * При переполнении вытесняется запись, к которой дольше всего не обращались
+ * @param <K> тип ключа
+ * @param <V> тип значения
+ */
+public class TtlCache<K, V> {
+    private final String name;
+    private final int maxSize;
+    private final long ttlNanos;
+    private final Function<String, K> keyParser;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    /**
+     * @param name название кэша для статистики и инвалидации
+     * @param maxSize максимальное число записей
+     * @param ttl время жизни записи
+     * @param keyParser разбор ключа из строки для инвалидации по HTTP
+     */
+    public TtlCache(String name, int maxSize, Duration ttl, Function<String, K> keyParser) {
+        if (maxSize < 1)
+            throw new IllegalArgumentException("Размер кэша должен быть положительным: " + maxSize);
+
+        this.name = name;
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.keyParser = keyParser;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() <= TtlCache.this.maxSize)
+                    return false;
+
+                evictions.increment();
+                return true;
+            }
+        };
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Получение значения из кэша или загрузка его при отсутствии
+     * Загрузка выполняется вне блокировки, пустой результат не кэшируется
+     * @param key ключ
+     * @param loader функция загрузки значения
+     * @return значение из кэша или загруженное значение
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        V value = getIfPresent(key);
+        if (value != null)
+            return value;
+
+        value = loader.apply(key);
+        if (value != null)
+            put(key, value);
+
+        return value;
+    }
+
+    /**
+     * Получение значения из кэша или асинхронная загрузка его при отсутствии
+     * @param key ключ
+     * @param loader функция, запускающая загрузку значения
+     * @return значение из кэша или результат загрузки
+     */
+    public CompletableFuture<V> getAsync(K key, Function<? super K, CompletableFuture<V>> loader) {
+        V value = getIfPresent(key);
+        if (value != null)
+            return CompletableFuture.completedFuture(value);
+
+        return loader.apply(key).thenApply(loaded -> {
+            if (loaded != null)
+                put(key, loaded);
+            return loaded;
+        });
+    }
+
+    /**
+     * Получение значения без загрузки
+     * @return значение или null, если записи нет или её время жизни истекло
+     */
+    public V getIfPresent(K key) {
+        long now = System.nanoTime();
+        lock.lock();
+        try {
+            V value = lookup(key, now);
+            if (value == null)
+                misses.increment();
+            else
+                hits.increment();
+            return value;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Получение всех присутствующих в кэше значений для набора ключей
+     * @param keys ключи
+     * @return найденные значения; ключи, которых нет в результате, нужно загрузить
+     */
+    public Map<K, V> getAllPresent(Collection<K> keys) {
+        Map<K, V> found = new HashMap<>();
+        long now = System.nanoTime();
+        lock.lock();
+        try {
+            for (K key : keys) {
+                V value = lookup(key, now);
+                if (value == null) {
+                    misses.increment();
+                } else {
+                    hits.increment();
+                    found.put(key, value);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        return found;
+    }
+
+    public void put(K key, V value) {
+        long expiresAt = System.nanoTime() + ttlNanos;
+        lock.lock();
+        try {
+            entries.put(key, new Entry<>(value, expiresAt));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void putAll(Map<? extends K, ? extends V> values) {
+        long expiresAt = System.nanoTime() + ttlNanos;
+        lock.lock();
+        try {
+            values.forEach((k, v) -> entries.put(k, new Entry<>(v, expiresAt)));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Удаление записи, например, после изменения данных в нижележащем сервисе
+     */
+    public void invalidate(K key) {
+        lock.lock();
+        try {
+            entries.remove(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Удаление записи по строковому представлению ключа
+     * @throws IllegalArgumentException если строка не является ключом этого кэша
+     */
+    public void invalidateKey(String key) {
+        invalidate(keyParser.apply(key));
+    }
+
+    public void invalidateAll() {
+        lock.lock();
+        try {
+            entries.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public CacheStats getStats() {
+        int size;
+        lock.lock();
+        try {
+            size = entries.size();
+        } finally {
+            lock.unlock();
+        }
+
+        return new CacheStats(name, size, maxSize, hits.sum(), misses.sum(), evictions.sum(), expirations.sum());
+    }
+
+    /**
+     * Поиск записи под блокировкой, устаревшая запись удаляется
+     */
+    private V lookup(K key, long now) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null)
+            return null;
+
+        if (now - entry.expiresAt >= 0) {
+            entries.remove(key);
+            expirations.increment();
+            return null;
+        }
+
+        return entry.value;
+    }
+
+    private static final class Entry<V> {
+        final V value;
+        final long expiresAt;
+
+        Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
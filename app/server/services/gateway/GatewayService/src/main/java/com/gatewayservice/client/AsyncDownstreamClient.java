@@ -0,0 +1,87 @@
+package com.gatewayservice.client;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.web.client.RestClientException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Неблокирующий клиент на пулах соединений PooledHttpClient
+ * Ни ожидание соединения, ни ожидание ответа не занимают поток: ответы обрабатываются небольшим
+ * фиксированным пулом, поэтому число одновременных запросов не ограничено числом потоков
+ */
+public class AsyncDownstreamClient implements DownstreamClient {
+    private final ObjectMapper objectMapper;
+
+    /**
+     * HTTP-клиенты нижележащих сервисов с пулами соединений
+     */
+    private final HttpPools pools;
+
+    public AsyncDownstreamClient(ObjectMapper objectMapper, HttpPools pools) {
+        this.objectMapper = objectMapper;
+        this.pools = pools;
+    }
+
+    @Override
+    public <T> CompletableFuture<T> exchange(Downstream target, String operation, String path, HttpMethod method,
+                                             HttpHeaders headers, Object body, ParameterizedTypeReference<T> responseType) {
+        PooledHttpClient client = pools.get(target);
+        String url = client.getBaseUrl() + path;
+        HttpRequest.Builder request = client.newRequest(client.toUri(path), headers)
+                .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE);
+
+        if (body == null) {
+            request.method(method.name(), HttpRequest.BodyPublishers.noBody());
+        } else {
+            try {
+                request.header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE);
+                request.method(method.name(),
+                        HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)));
+            } catch (JsonProcessingException e) {
+                return CompletableFuture.failedFuture(
+                        new RestClientException("Не удалось сериализовать тело запроса " + url, e));
+            }
+        }
+
+        return client.sendAsync(request.build())
+                .handle((response, e) -> {
+                    if (e != null)
+                        throw ResponseErrors.toException(method, url, e);
+                    return decode(url, response, responseType);
+                });
+    }
+
+    @Override
+    public CompletableFuture<InputStream> openStream(Downstream target, String operation, String path,
+                                                     HttpHeaders headers) {
+        return pools.get(target).openStream(path, headers);
+    }
+
+    private <T> T decode(String url, HttpResponse<byte[]> response, ParameterizedTypeReference<T> responseType) {
+        int status = response.statusCode();
+        if (status >= 400)
+            throw ResponseErrors.toException(status, response.headers(), response.body());
+
+        byte[] body = response.body();
+        if (responseType.getType() == Void.class || body == null || body.length == 0)
+            return null;
+
+        try {
+            JavaType type = objectMapper.getTypeFactory().constructType(responseType.getType());
+            return objectMapper.readValue(body, type);
+        } catch (IOException e) {
+            throw new RestClientException("Не удалось разобрать ответ " + url, e);
+        }
+    }
+}
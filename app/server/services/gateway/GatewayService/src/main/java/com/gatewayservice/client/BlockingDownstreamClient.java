@@ -0,0 +1,46 @@
+package com.gatewayservice.client;
+
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Клиент на RestTemplate: каждый запрос занимает поток пула на всё время ожидания ответа,
+ * поэтому число одновременных запросов ограничено размером пула
+ */
+public class BlockingDownstreamClient implements DownstreamClient {
+    private final RestTemplate restTemplate;
+    private final HttpPools pools;
+    private final ExecutorService executor;
+
+    public BlockingDownstreamClient(RestTemplate restTemplate, HttpPools pools, ExecutorService executor) {
+        this.restTemplate = restTemplate;
+        this.pools = pools;
+        this.executor = executor;
+    }
+
+    @Override
+    public <T> CompletableFuture<T> exchange(Downstream target, String operation, String path, HttpMethod method,
+                                             HttpHeaders headers, Object body, ParameterizedTypeReference<T> responseType) {
+        String url = pools.get(target).getBaseUrl() + path;
+        HttpEntity<Object> entity = new HttpEntity<>(body, headers);
+
+        return CompletableFuture.supplyAsync(
+                () -> restTemplate.exchange(url, method, entity, responseType).getBody(), executor);
+    }
+
+    /**
+     * RestTemplate буферизует ответ целиком, поэтому поток открывается напрямую через пул соединений сервиса
+     */
+    @Override
+    public CompletableFuture<InputStream> openStream(Downstream target, String operation, String path,
+                                                     HttpHeaders headers) {
+        return pools.get(target).openStream(path, headers);
+    }
+}
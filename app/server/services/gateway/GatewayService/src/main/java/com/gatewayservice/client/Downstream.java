@@ -0,0 +1,10 @@
+package com.gatewayservice.client;
+
+/**
+ * Нижележащие сервисы, к которым обращается шлюз
+ */
+public enum Downstream {
+    RATING,
+    LIBRARY,
+    RESERVATIONS
+}
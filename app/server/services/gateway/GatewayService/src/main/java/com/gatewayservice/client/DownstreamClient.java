@@ -0,0 +1,70 @@
+package com.gatewayservice.client;
+
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+
+import java.io.InputStream;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Клиент для запросов шлюза к нижележащим сервисам
+ * Все запросы асинхронные: поток, обрабатывающий входящий запрос, не ждёт ответа нижележащего сервиса
+ * Ответ 4xx завершает результат исключением HttpClientErrorException, ответ 5xx - HttpServerErrorException
+ */
+public interface DownstreamClient {
+    ParameterizedTypeReference<Void> NO_BODY = new ParameterizedTypeReference<Void>() {
+    };
+
+    /**
+     * Запрос к нижележащему сервису
+     * @param target сервис, которому отправляется запрос
+     * @param operation имя операции шлюза, по которому запрос учитывается в метриках
+     * @param path путь относительно адреса сервиса
+     * @param method HTTP-метод
+     * @param headers заголовки запроса, может быть null
+     * @param body тело запроса, сериализуемое в JSON, может быть null
+     * @param responseType тип тела ответа
+     * @return тело ответа
+     */
+    <T> CompletableFuture<T> exchange(Downstream target, String operation, String path, HttpMethod method,
+                                      HttpHeaders headers, Object body, ParameterizedTypeReference<T> responseType);
+
+    /**
+     * Потоковое чтение тела ответа на GET-запрос
+     * Результат завершается, когда получены заголовки ответа; ответ 4xx и 5xx завершает его исключением
+     * @param target сервис, которому отправляется запрос
+     * @param operation имя операции шлюза, по которому запрос учитывается в метриках
+     * @param path путь относительно адреса сервиса
+     * @param headers заголовки запроса, может быть null
+     * @return поток тела ответа; соединение занято, пока поток не закрыт
+     */
+    CompletableFuture<InputStream> openStream(Downstream target, String operation, String path, HttpHeaders headers);
+
+    /**
+     * Запрос без тела ответа
+     */
+    default CompletableFuture<Void> send(Downstream target, String operation, String path, HttpMethod method,
+                                         HttpHeaders headers, Object body) {
+        return exchange(target, operation, path, method, headers, body, NO_BODY);
+    }
+
+    /**
+     * Заголовки с именем пользователя, от лица которого выполняется запрос
+     */
+    static HttpHeaders userHeaders(String username) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("X-User-Name", username);
+        return headers;
+    }
+
+    /**
+     * Заголовки с ключом операции, по которому сервис отбрасывает повтор уже применённого запроса
+     */
+    static HttpHeaders idempotencyHeaders(UUID operationKey) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Idempotency-Key", operationKey.toString());
+        return headers;
+    }
+}
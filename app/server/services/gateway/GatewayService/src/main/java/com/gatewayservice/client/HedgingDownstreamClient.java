@@ -0,0 +1,156 @@
+package com.gatewayservice.client;
+
+import com.gatewayservice.resilience.DownstreamRejectedException;
+import com.gatewayservice.resilience.Fallbacks;
+import com.gatewayservice.resilience.HedgingPolicy;
+import com.gatewayservice.resilience.RetryBudget;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+
+import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Клиент, отправляющий дополнительный запрос для идемпотентных GET
+ * Если исходный запрос не завершился за задержку из HedgingPolicy, отправляется параллельный запрос,
+ * результатом становится первый ответ. Если исходный запрос завершился ошибкой недоступности раньше,
+ * он один раз повторяется. На вызов приходится не больше одного дополнительного запроса, и каждый
+ * забирает маркер из бюджета сервиса. Проигравший запрос не отменяется: его ответ отбрасывается
+ */
+public class HedgingDownstreamClient implements DownstreamClient {
+    private final DownstreamClient delegate;
+    private final HedgingPolicy policy;
+
+    public HedgingDownstreamClient(DownstreamClient delegate, HedgingPolicy policy) {
+        this.delegate = delegate;
+        this.policy = policy;
+    }
+
+    @Override
+    public <T> CompletableFuture<T> exchange(Downstream target, String operation, String path, HttpMethod method,
+                                             HttpHeaders headers, Object body, ParameterizedTypeReference<T> responseType) {
+        if (!policy.isHedged(operation, method))
+            return delegate.exchange(target, operation, path, method, headers, body, responseType);
+
+        policy.budget(target).deposit();
+        return new HedgedCall<>(target, operation,
+                () -> delegate.exchange(target, operation, path, method, headers, body, responseType)).start();
+    }
+
+    @Override
+    public CompletableFuture<InputStream> openStream(Downstream target, String operation, String path,
+                                                     HttpHeaders headers) {
+        return delegate.openStream(target, operation, path, headers);
+    }
+
+    /**
+     * Один вызов: исходный запрос и не больше одного дополнительного
+     */
+    private final class HedgedCall<T> {
+        private final Downstream target;
+        private final String operation;
+        private final Supplier<CompletableFuture<T>> request;
+        private final RetryBudget budget;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+
+        /**
+         * Состояние защищено монитором this
+         */
+        private int outstanding;
+        private boolean extraSent;
+        private ScheduledFuture<?> hedgeTimer;
+
+        HedgedCall(Downstream target, String operation, Supplier<CompletableFuture<T>> request) {
+            this.target = target;
+            this.operation = operation;
+            this.request = request;
+            this.budget = policy.budget(target);
+        }
+
+        CompletableFuture<T> start() {
+            send(false);
+
+            long delay = policy.hedgeDelayNanos(target, operation);
+            if (delay >= 0) {
+                synchronized (this) {
+                    if (!result.isDone())
+                        hedgeTimer = policy.timer().schedule(this::hedge, delay, TimeUnit.NANOSECONDS);
+                }
+            }
+            return result;
+        }
+
+        private void hedge() {
+            synchronized (this) {
+                if (result.isDone() || extraSent || !budget.tryWithdraw())
+                    return;
+                extraSent = true;
+            }
+
+            policy.hedgeSent(target);
+            send(true);
+        }
+
+        private void send(boolean hedge) {
+            synchronized (this) {
+                outstanding++;
+            }
+
+            long startedAt = System.nanoTime();
+            CompletableFuture<T> attempt;
+            try {
+                attempt = request.get();
+            } catch (RuntimeException e) {
+                attempt = new CompletableFuture<>();
+                attempt.completeExceptionally(e);
+            }
+
+            attempt.whenComplete((value, e) -> complete(value, e, hedge, System.nanoTime() - startedAt));
+        }
+
+        private void complete(T value, Throwable e, boolean hedge, long nanos) {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if (cause == null || !Fallbacks.isUnavailable(cause)) {
+                if (cause == null)
+                    policy.recordLatency(target, operation, nanos);
+
+                synchronized (this) {
+                    outstanding--;
+                    if (hedgeTimer != null)
+                        hedgeTimer.cancel(false);
+                }
+
+                boolean won = cause == null ? result.complete(value) : result.completeExceptionally(cause);
+                if (won && hedge)
+                    policy.hedgeWon(target);
+                return;
+            }
+
+            boolean retry;
+            synchronized (this) {
+                outstanding--;
+                if (outstanding > 0 || result.isDone())
+                    return;
+
+                retry = !extraSent && !(cause instanceof DownstreamRejectedException) && budget.tryWithdraw();
+                if (retry) {
+                    extraSent = true;
+                    if (hedgeTimer != null)
+                        hedgeTimer.cancel(false);
+                }
+            }
+
+            if (retry) {
+                policy.retrySent(target);
+                send(false);
+            } else {
+                result.completeExceptionally(cause);
+            }
+        }
+    }
+}
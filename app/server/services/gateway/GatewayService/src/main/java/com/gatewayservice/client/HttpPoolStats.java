@@ -0,0 +1,24 @@
+package com.gatewayservice.client;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Снимок состояния HTTP-клиента нижележащего сервиса
+ */
+@Getter
+@AllArgsConstructor
+public class HttpPoolStats {
+    String downstream;
+    String baseUrl;
+    int maxConnections;
+    int inFlight;
+    int waiting;
+    long connectTimeoutMs;
+    long readTimeoutMs;
+    long acquireTimeoutMs;
+    long requests;
+    long errors;
+    long readTimeouts;
+    long acquireTimeouts;
+}
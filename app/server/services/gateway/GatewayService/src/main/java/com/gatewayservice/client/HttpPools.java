@@ -0,0 +1,57 @@
+package com.gatewayservice.client;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * HTTP-клиенты всех нижележащих сервисов, у каждого сервиса свой пул соединений
+ */
+public class HttpPools {
+    private final Map<Downstream, PooledHttpClient> pools = new EnumMap<>(Downstream.class);
+
+    public HttpPools(Iterable<PooledHttpClient> clients) {
+        for (PooledHttpClient client : clients)
+            pools.put(client.getDownstream(), client);
+
+        for (Downstream downstream : Downstream.values()) {
+            if (!pools.containsKey(downstream))
+                throw new IllegalArgumentException("Не настроен HTTP-клиент сервиса " + downstream);
+        }
+    }
+
+    public PooledHttpClient get(Downstream downstream) {
+        return pools.get(downstream);
+    }
+
+    /**
+     * Поиск клиента по адресу запроса
+     * @param uri полный адрес запроса
+     * @return клиент сервиса, адрес которого совпадает по схеме, хосту и порту, или null
+     */
+    public PooledHttpClient forUri(URI uri) {
+        for (PooledHttpClient client : pools.values()) {
+            URI base = URI.create(client.getBaseUrl());
+            if (base.getScheme().equalsIgnoreCase(uri.getScheme())
+                    && base.getHost().equalsIgnoreCase(uri.getHost())
+                    && port(base) == port(uri))
+                return client;
+        }
+        return null;
+    }
+
+    public ArrayList<HttpPoolStats> getStats() {
+        ArrayList<HttpPoolStats> stats = new ArrayList<>();
+        for (PooledHttpClient client : pools.values())
+            stats.add(client.getStats());
+
+        return stats;
+    }
+
+    private static int port(URI uri) {
+        if (uri.getPort() != -1)
+            return uri.getPort();
+        return "https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80;
+    }
+}
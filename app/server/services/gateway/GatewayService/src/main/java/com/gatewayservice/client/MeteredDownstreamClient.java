@@ -0,0 +1,54 @@
+package com.gatewayservice.client;
+
+import com.gatewayservice.metrics.DownstreamMetrics;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+
+import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Клиент, учитывающий запросы другого клиента в DownstreamMetrics
+ * Длительность отсчитывается от вызова до завершения результата и включает ожидание свободного соединения;
+ * для потокового чтения - до получения заголовков ответа
+ */
+public class MeteredDownstreamClient implements DownstreamClient {
+    private final DownstreamClient delegate;
+    private final DownstreamMetrics metrics;
+
+    public MeteredDownstreamClient(DownstreamClient delegate, DownstreamMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public <T> CompletableFuture<T> exchange(Downstream target, String operation, String path, HttpMethod method,
+                                             HttpHeaders headers, Object body, ParameterizedTypeReference<T> responseType) {
+        DownstreamMetrics.Sample sample = metrics.start(target, operation);
+        CompletableFuture<T> result;
+        try {
+            result = delegate.exchange(target, operation, path, method, headers, body, responseType);
+        } catch (RuntimeException e) {
+            sample.stop(e);
+            throw e;
+        }
+
+        return result.whenComplete((ignored, e) -> sample.stop(e));
+    }
+
+    @Override
+    public CompletableFuture<InputStream> openStream(Downstream target, String operation, String path,
+                                                     HttpHeaders headers) {
+        DownstreamMetrics.Sample sample = metrics.start(target, operation);
+        CompletableFuture<InputStream> result;
+        try {
+            result = delegate.openStream(target, operation, path, headers);
+        } catch (RuntimeException e) {
+            sample.stop(e);
+            throw e;
+        }
+
+        return result.whenComplete((ignored, e) -> sample.stop(e));
+    }
+}
@@ -0,0 +1,125 @@
+package com.gatewayservice.client;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.AbstractClientHttpRequest;
+import org.springframework.http.client.AbstractClientHttpResponse;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+/**
+ * Фабрика запросов RestTemplate, отправляющая запросы через пул соединений нужного сервиса
+ * Запросы к адресам, не относящимся ни к одному сервису, отправляются через запасную фабрику
+ */
+public class PooledClientHttpRequestFactory implements ClientHttpRequestFactory {
+    private final HttpPools pools;
+    private final ClientHttpRequestFactory fallback;
+
+    public PooledClientHttpRequestFactory(HttpPools pools, ClientHttpRequestFactory fallback) {
+        this.pools = pools;
+        this.fallback = fallback;
+    }
+
+    @Override
+    public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) throws IOException {
+        PooledHttpClient client = pools.forUri(uri);
+        if (client == null)
+            return fallback.createRequest(uri, httpMethod);
+
+        return new PooledClientHttpRequest(client, uri, httpMethod);
+    }
+
+    /**
+     * Запрос с телом, накапливаемым в памяти до отправки
+     */
+    private static final class PooledClientHttpRequest extends AbstractClientHttpRequest {
+        private final PooledHttpClient client;
+        private final URI uri;
+        private final HttpMethod method;
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream(256);
+
+        PooledClientHttpRequest(PooledHttpClient client, URI uri, HttpMethod method) {
+            this.client = client;
+            this.uri = uri;
+            this.method = method;
+        }
+
+        @Override
+        public String getMethodValue() {
+            return method.name();
+        }
+
+        @Override
+        public URI getURI() {
+            return uri;
+        }
+
+        @Override
+        protected OutputStream getBodyInternal(HttpHeaders headers) {
+            return body;
+        }
+
+        @Override
+        protected ClientHttpResponse executeInternal(HttpHeaders headers) throws IOException {
+            HttpRequest.BodyPublisher publisher = body.size() == 0
+                    ? HttpRequest.BodyPublishers.noBody()
+                    : HttpRequest.BodyPublishers.ofByteArray(body.toByteArray());
+
+            HttpRequest request = client.newRequest(uri, headers)
+                    .method(method.name(), publisher)
+                    .build();
+
+            return new PooledClientHttpResponse(client.send(request));
+        }
+    }
+
+    private static final class PooledClientHttpResponse extends AbstractClientHttpResponse {
+        private final HttpResponse<byte[]> response;
+        private HttpHeaders headers;
+
+        PooledClientHttpResponse(HttpResponse<byte[]> response) {
+            this.response = response;
+        }
+
+        @Override
+        public int getRawStatusCode() {
+            return response.statusCode();
+        }
+
+        @Override
+        public String getStatusText() {
+            HttpStatus status = HttpStatus.resolve(response.statusCode());
+            return status == null ? "" : status.getReasonPhrase();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            if (headers == null) {
+                headers = new HttpHeaders();
+                headers.putAll(response.headers().map());
+            }
+            return headers;
+        }
+
+        @Override
+        public InputStream getBody() {
+            byte[] bytes = response.body();
+            return new ByteArrayInputStream(bytes == null ? new byte[0] : bytes);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package com.gatewayservice.client;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * HTTP-клиент одного нижележащего сервиса
+ * Соединения переиспользуются (keep-alive), число одновременных запросов и, следовательно,
+ * открытых соединений ограничено maxConnections; запрос сверх лимита ждёт свободного
+ * соединения не дольше acquireTimeout
+ */
+public class PooledHttpClient {
+    private static final Set<String> RESTRICTED_HEADERS =
+            Set.of("connection", "content-length", "expect", "host", "upgrade");
+
+    private final Downstream downstream;
+    private final String baseUrl;
+    private final HttpClient httpClient;
+    private final int maxConnections;
+    private final Duration connectTimeout;
+    private final Duration readTimeout;
+    private final Duration acquireTimeout;
+
+    /**
+     * Свободные разрешения и очередь ожидающих запросов, защищены монитором this
+     */
+    private int available;
+    private final ArrayDeque<CompletableFuture<Void>> waiters = new ArrayDeque<>();
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder readTimeouts = new LongAdder();
+    private final LongAdder acquireTimeouts = new LongAdder();
+
+    /**
+     * @param downstream сервис, к которому относится клиент
+     * @param baseUrl адрес сервиса
+     * @param maxConnections максимальное число одновременных запросов
+     * @param connectTimeout время ожидания установки соединения
+     * @param readTimeout время ожидания ответа
+     * @param acquireTimeout время ожидания свободного соединения
+     * @param executor пул, в котором обрабатываются ответы
+     */
+    public PooledHttpClient(Downstream downstream, String baseUrl, int maxConnections, Duration connectTimeout,
+                            Duration readTimeout, Duration acquireTimeout, Executor executor) {
+        if (maxConnections < 1)
+            throw new IllegalArgumentException("Число соединений должно быть положительным: " + maxConnections);
+
+        this.downstream = downstream;
+        this.baseUrl = baseUrl;
+        this.maxConnections = maxConnections;
+        this.available = maxConnections;
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
+        this.acquireTimeout = acquireTimeout;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(connectTimeout)
+                .executor(executor)
+                .build();
+    }
+
+    public Downstream getDownstream() {
+        return downstream;
+    }
+
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    /**
+     * Построитель запроса с таймаутом ответа этого сервиса и заданными заголовками
+     * Заголовки, которыми управляет сам HttpClient (Host, Content-Length и т.п.), пропускаются
+     */
+    public HttpRequest.Builder newRequest(URI uri, HttpHeaders headers) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri).timeout(readTimeout);
+        if (headers != null) {
+            headers.forEach((name, values) -> {
+                if (!RESTRICTED_HEADERS.contains(name.toLowerCase(Locale.ROOT)))
+                    values.forEach(value -> request.header(name, value));
+            });
+        }
+        return request;
+    }
+
+    /**
+     * Адрес запроса к сервису; кодирование такое же, как у RestTemplate
+     * @param path путь относительно адреса сервиса
+     */
+    public URI toUri(String path) {
+        return UriComponentsBuilder.fromUriString(baseUrl + path).encode().build().toUri();
+    }
+
+    /**
+     * GET-запрос с потоковым чтением тела ответа
+     * Разрешение на запрос возвращается при закрытии потока, а не при получении заголовков
+     * @param path путь относительно адреса сервиса
+     * @param headers заголовки запроса, может быть null
+     * @return поток тела ответа; ответ 4xx и 5xx завершает результат исключением RestClientException
+     */
+    public CompletableFuture<InputStream> openStream(String path, HttpHeaders headers) {
+        String url = baseUrl + path;
+        HttpRequest request = newRequest(toUri(path), headers)
+                .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
+                .GET()
+                .build();
+
+        requests.increment();
+        return acquire().thenCompose(ignored -> {
+            AtomicBoolean released = new AtomicBoolean();
+            Runnable releaseOnce = () -> {
+                if (released.compareAndSet(false, true))
+                    release();
+            };
+
+            CompletableFuture<HttpResponse<InputStream>> response;
+            try {
+                response = httpClient.sendAsync(request, info -> HttpResponse.BodySubscribers.mapping(
+                        HttpResponse.BodySubscribers.ofInputStream(), in -> new FilterInputStream(in) {
+                            @Override
+                            public void close() throws IOException {
+                                try {
+                                    super.close();
+                                } finally {
+                                    releaseOnce.run();
+                                }
+                            }
+                        }));
+            } catch (RuntimeException e) {
+                releaseOnce.run();
+                throw e;
+            }
+
+            return response.handle((r, e) -> {
+                if (e != null) {
+                    releaseOnce.run();
+                    errors.increment();
+                    if (unwrap(e) instanceof HttpTimeoutException)
+                        readTimeouts.increment();
+                    throw ResponseErrors.toException(HttpMethod.GET, url, e);
+                }
+
+                if (r.statusCode() >= 400) {
+                    byte[] body;
+                    try (InputStream in = r.body()) {
+                        body = in.readAllBytes();
+                    } catch (IOException io) {
+                        body = new byte[0];
+                    }
+                    throw ResponseErrors.toException(r.statusCode(), r.headers(), body);
+                }
+
+                return r.body();
+            });
+        });
+    }
+
+    /**
+     * Синхронная отправка запроса
+     * @throws IOException при ошибке соединения, таймауте или отсутствии свободного соединения
+     */
+    public HttpResponse<byte[]> send(HttpRequest request) throws IOException {
+        try {
+            return sendAsync(request).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException)
+                throw (IOException) e.getCause();
+            throw e;
+        }
+    }
+
+    /**
+     * Асинхронная отправка запроса: ни ожидание соединения, ни ожидание ответа не занимают поток
+     * Ошибки соединения и таймауты завершают результат исключением IOException
+     */
+    public CompletableFuture<HttpResponse<byte[]>> sendAsync(HttpRequest request) {
+        requests.increment();
+
+        return acquire().thenCompose(ignored -> {
+            CompletableFuture<HttpResponse<byte[]>> response;
+            try {
+                response = httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray());
+            } catch (RuntimeException e) {
+                release();
+                throw e;
+            }
+
+            return response.whenComplete((r, e) -> {
+                release();
+                if (e != null) {
+                    errors.increment();
+                    if (unwrap(e) instanceof HttpTimeoutException)
+                        readTimeouts.increment();
+                }
+            });
+        });
+    }
+
+    public HttpPoolStats getStats() {
+        int inFlight;
+        int waiting;
+        synchronized (this) {
+            inFlight = maxConnections - available;
+            waiting = waiters.size();
+        }
+
+        return new HttpPoolStats(downstream.name(), baseUrl, maxConnections, inFlight, waiting,
+                connectTimeout.toMillis(), readTimeout.toMillis(), acquireTimeout.toMillis(),
+                requests.sum(), errors.sum(), readTimeouts.sum(), acquireTimeouts.sum());
+    }
+
+    /**
+     * Получение разрешения на запрос
+     * Если все соединения заняты, результат завершится при освобождении соединения
+     * или исключением по истечении acquireTimeout
+     */
+    private CompletableFuture<Void> acquire() {
+        CompletableFuture<Void> permit = new CompletableFuture<>();
+        synchronized (this) {
+            if (available > 0) {
+                available--;
+                permit.complete(null);
+                return permit;
+            }
+            waiters.add(permit);
+        }
+
+        return permit.orTimeout(acquireTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                .exceptionally(e -> {
+                    synchronized (this) {
+                        waiters.remove(permit);
+                    }
+                    acquireTimeouts.increment();
+                    errors.increment();
+                    throw new CompletionException(new IOException("Нет свободного соединения с сервисом "
+                            + downstream + " за " + acquireTimeout.toMillis() + " мс"));
+                });
+    }
+
+    /**
+     * Возврат разрешения: оно передаётся первому ожидающему запросу, который ещё не отменён по таймауту
+     */
+    private void release() {
+        CompletableFuture<Void> next;
+        synchronized (this) {
+            do {
+                next = waiters.poll();
+            } while (next != null && next.isDone());
+
+            if (next == null) {
+                available++;
+                return;
+            }
+        }
+
+        // ожидающий мог истечь между проверкой и завершением, тогда разрешение возвращается снова
+        if (!next.complete(null))
+            release();
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+}
@@ -0,0 +1,77 @@
+package com.gatewayservice.client;
+
+import com.gatewayservice.resilience.Bulkhead;
+import com.gatewayservice.resilience.CircuitBreaker;
+import com.gatewayservice.resilience.DownstreamGuards;
+import com.gatewayservice.resilience.DownstreamRejectedException;
+import com.gatewayservice.resilience.Fallbacks;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+
+import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Клиент, защищающий шлюз от медленных и недоступных сервисов
+ * Запрос к сервису сверх лимита одновременных запросов или при разомкнутом автомате сразу завершается
+ * исключением DownstreamRejectedException, не занимая соединения. Ошибкой для автомата считаются отсутствие
+ * ответа и ответ 5xx (Fallbacks.isUnavailable); ответ 4xx и ошибки разбора ответа - нет.
+ * Для потокового чтения запрос занимает место до получения заголовков
+ */
+public class ResilientDownstreamClient implements DownstreamClient {
+    private final DownstreamClient delegate;
+    private final DownstreamGuards guards;
+
+    public ResilientDownstreamClient(DownstreamClient delegate, DownstreamGuards guards) {
+        this.delegate = delegate;
+        this.guards = guards;
+    }
+
+    @Override
+    public <T> CompletableFuture<T> exchange(Downstream target, String operation, String path, HttpMethod method,
+                                             HttpHeaders headers, Object body, ParameterizedTypeReference<T> responseType) {
+        return guarded(target, () -> delegate.exchange(target, operation, path, method, headers, body, responseType));
+    }
+
+    @Override
+    public CompletableFuture<InputStream> openStream(Downstream target, String operation, String path,
+                                                     HttpHeaders headers) {
+        return guarded(target, () -> delegate.openStream(target, operation, path, headers));
+    }
+
+    private <T> CompletableFuture<T> guarded(Downstream target, Supplier<CompletableFuture<T>> request) {
+        Bulkhead bulkhead = guards.bulkhead(target);
+        CircuitBreaker breaker = guards.breaker(target);
+
+        if (!bulkhead.tryAcquire())
+            return rejected(target, "превышен лимит одновременных запросов");
+
+        long epoch = breaker.tryAcquire();
+        if (epoch == CircuitBreaker.NOT_PERMITTED) {
+            bulkhead.release();
+            return rejected(target, "автомат разомкнут");
+        }
+
+        CompletableFuture<T> result;
+        try {
+            result = request.get();
+        } catch (RuntimeException e) {
+            bulkhead.release();
+            breaker.onResult(epoch, true);
+            throw e;
+        }
+
+        return result.whenComplete((ignored, e) -> {
+            bulkhead.release();
+            breaker.onResult(epoch, e != null && Fallbacks.isUnavailable(e));
+        });
+    }
+
+    private static <T> CompletableFuture<T> rejected(Downstream target, String reason) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        result.completeExceptionally(new DownstreamRejectedException(target, reason));
+        return result;
+    }
+}
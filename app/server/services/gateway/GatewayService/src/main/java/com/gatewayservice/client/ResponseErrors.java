@@ -0,0 +1,53 @@
+package com.gatewayservice.client;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.UnknownHttpStatusCodeException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Преобразование ошибок HttpClient в те же исключения, что выбрасывает RestTemplate
+ */
+final class ResponseErrors {
+    private ResponseErrors() {
+    }
+
+    /**
+     * Ошибка ввода-вывода оборачивается в ResourceAccessException
+     */
+    static CompletionException toException(HttpMethod method, String url, Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof IOException)
+            cause = new ResourceAccessException("I/O error on " + method.name() + " request for \"" + url
+                    + "\": " + cause.getMessage(), (IOException) cause);
+
+        return new CompletionException(cause);
+    }
+
+    /**
+     * Ответ 4xx - HttpClientErrorException, 5xx - HttpServerErrorException
+     */
+    static RestClientException toException(int statusCode, java.net.http.HttpHeaders responseHeaders, byte[] body) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.putAll(responseHeaders.map());
+
+        HttpStatus status = HttpStatus.resolve(statusCode);
+        if (status == null)
+            return new UnknownHttpStatusCodeException(statusCode, "", headers, body, StandardCharsets.UTF_8);
+
+        if (status.is4xxClientError())
+            return HttpClientErrorException.create(status, status.getReasonPhrase(), headers, body,
+                    StandardCharsets.UTF_8);
+
+        return HttpServerErrorException.create(status, status.getReasonPhrase(), headers, body,
+                StandardCharsets.UTF_8);
+    }
+}
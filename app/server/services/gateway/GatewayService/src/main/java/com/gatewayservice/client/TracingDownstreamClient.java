@@ -0,0 +1,96 @@
+package com.gatewayservice.client;
+
+import com.gatewayservice.tracing.Span;
+import com.gatewayservice.tracing.SpanContext;
+import com.gatewayservice.tracing.Tracer;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Клиент, создающий клиентскую операцию трассы для каждого запроса другого клиента
+ * В запрос добавляется заголовок traceparent с контекстом операции. Результат завершается
+ * с контекстом потока, действовавшим при вызове, поэтому запросы, отправленные из продолжений
+ * (thenCompose и т.п.) в потоках HTTP-клиента, остаются в той же трассе
+ */
+public class TracingDownstreamClient implements DownstreamClient {
+    private final DownstreamClient delegate;
+    private final Tracer tracer;
+
+    public TracingDownstreamClient(DownstreamClient delegate, Tracer tracer) {
+        this.delegate = delegate;
+        this.tracer = tracer;
+    }
+
+    @Override
+    public <T> CompletableFuture<T> exchange(Downstream target, String operation, String path, HttpMethod method,
+                                             HttpHeaders headers, Object body, ParameterizedTypeReference<T> responseType) {
+        Span span = start(target, operation, path, method.name());
+        SpanContext caller = tracer.current();
+        CompletableFuture<T> result;
+        try {
+            result = delegate.exchange(target, operation, path, method, propagate(headers, span), body, responseType);
+        } catch (RuntimeException e) {
+            span.error(e).end();
+            throw e;
+        }
+
+        return finish(result, span, caller);
+    }
+
+    @Override
+    public CompletableFuture<InputStream> openStream(Downstream target, String operation, String path,
+                                                     HttpHeaders headers) {
+        Span span = start(target, operation, path, HttpMethod.GET.name());
+        SpanContext caller = tracer.current();
+        CompletableFuture<InputStream> result;
+        try {
+            result = delegate.openStream(target, operation, path, propagate(headers, span));
+        } catch (RuntimeException e) {
+            span.error(e).end();
+            throw e;
+        }
+
+        return finish(result, span, caller);
+    }
+
+    private Span start(Downstream target, String operation, String path, String method) {
+        int query = path.indexOf('?');
+        return tracer.startSpan(target.name().toLowerCase(Locale.ROOT) + " " + operation, Span.Kind.CLIENT)
+                .tag("http.method", method)
+                .tag("http.path", query < 0 ? path : path.substring(0, query))
+                .tag("peer.service", target.name().toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Копия заголовков с traceparent: заголовки вызывающего не изменяются
+     */
+    private static HttpHeaders propagate(HttpHeaders headers, Span span) {
+        HttpHeaders traced = new HttpHeaders();
+        if (headers != null)
+            traced.putAll(headers);
+        traced.set(SpanContext.HEADER, span.context().toTraceparent());
+        return traced;
+    }
+
+    private <T> CompletableFuture<T> finish(CompletableFuture<T> result, Span span, SpanContext caller) {
+        CompletableFuture<T> traced = new CompletableFuture<>();
+        result.whenComplete((value, e) -> {
+            if (e != null)
+                span.error(e);
+            span.end();
+
+            try (Tracer.Scope ignored = tracer.activate(caller)) {
+                if (e == null)
+                    traced.complete(value);
+                else
+                    traced.completeExceptionally(e);
+            }
+        });
+        return traced;
+    }
+}
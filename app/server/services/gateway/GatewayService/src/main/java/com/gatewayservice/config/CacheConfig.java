@@ -0,0 +1,50 @@
+package com.gatewayservice.config;
+
+import com.gatewayservice.cache.TtlCache;
+import com.gatewayservice.dto.BookInfo;
+import com.gatewayservice.dto.LibraryResponse;
+import com.gatewayservice.dto.UserRatingResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.function.Function;
+
+@Configuration
+public class CacheConfig {
+    /**
+     * Кэш информации о книгах, которая почти не меняется
+     * @param maxSize максимальное число книг в кэше
+     * @param ttl время жизни записи
+     */
+    @Bean
+    public TtlCache<UUID, BookInfo> bookInfoCache(@Value("${gateway.cache.books.max-size:10000}") int maxSize,
+                                                  @Value("${gateway.cache.books.ttl:10m}") Duration ttl) {
+        return new TtlCache<>("books", maxSize, ttl, UUID::fromString);
+    }
+
+    /**
+     * Кэш информации о библиотеках
+     * @param maxSize максимальное число библиотек в кэше
+     * @param ttl время жизни записи
+     */
+    @Bean
+    public TtlCache<UUID, LibraryResponse> libraryInfoCache(@Value("${gateway.cache.libraries.max-size:1000}") int maxSize,
+                                                            @Value("${gateway.cache.libraries.ttl:10m}") Duration ttl) {
+        return new TtlCache<>("libraries", maxSize, ttl, UUID::fromString);
+    }
+
+    /**
+     * Последние полученные рейтинги читателей, ответ при недоступности сервиса рейтингов
+     * @param maxSize максимальное число читателей в кэше
+     * @param ttl время, в течение которого рейтинг можно отдавать вместо ответа сервиса
+     */
+    @Bean
+    public TtlCache<String, UserRatingResponse> lastKnownRatingCache(
+            @Value("${gateway.cache.ratings.max-size:10000}") int maxSize,
+            @Value("${gateway.cache.ratings.ttl:1h}") Duration ttl) {
+        return new TtlCache<>("ratings", maxSize, ttl, Function.identity());
+    }
+}
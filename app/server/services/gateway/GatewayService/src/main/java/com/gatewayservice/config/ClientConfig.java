@@ -0,0 +1,59 @@
+package com.gatewayservice.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gatewayservice.client.AsyncDownstreamClient;
+import com.gatewayservice.client.BlockingDownstreamClient;
+import com.gatewayservice.client.DownstreamClient;
+import com.gatewayservice.client.HedgingDownstreamClient;
+import com.gatewayservice.client.HttpPools;
+import com.gatewayservice.client.MeteredDownstreamClient;
+import com.gatewayservice.client.ResilientDownstreamClient;
+import com.gatewayservice.client.TracingDownstreamClient;
+import com.gatewayservice.metrics.DownstreamMetrics;
+import com.gatewayservice.resilience.DownstreamGuards;
+import com.gatewayservice.resilience.HedgingPolicy;
+import com.gatewayservice.tracing.Tracer;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.concurrent.ExecutorService;
+
+@Configuration
+public class ClientConfig {
+    /**
+     * Клиент на RestTemplate, запросы выполняются в пуле downstreamExecutor
+     * Используется, только если gateway.client.mode не задан или равен blocking;
+     * в поставляемом application.properties задан режим async
+     * Клиенты оборачиваются в ResilientDownstreamClient и MeteredDownstreamClient, поэтому все запросы шлюза
+     * проходят через автоматы защиты и попадают в метрики, включая отклонённые.
+     * Между ними HedgingDownstreamClient: каждый дополнительный запрос тоже проходит автомат защиты,
+     * а в метрики попадает длительность вызова целиком. Снаружи TracingDownstreamClient: он передаёт
+     * контекст трассы в заголовке traceparent
+     */
+    @Bean
+    @ConditionalOnProperty(name = "gateway.client.mode", havingValue = "blocking", matchIfMissing = true)
+    public DownstreamClient blockingDownstreamClient(RestTemplate restTemplate, HttpPools pools,
+                                                     @Qualifier("downstreamExecutor") ExecutorService executor,
+                                                     DownstreamMetrics metrics, DownstreamGuards guards,
+                                                     HedgingPolicy hedging, Tracer tracer) {
+        return new TracingDownstreamClient(new MeteredDownstreamClient(new HedgingDownstreamClient(
+                new ResilientDownstreamClient(new BlockingDownstreamClient(restTemplate, pools, executor), guards),
+                hedging), metrics), tracer);
+    }
+
+    /**
+     * Неблокирующий клиент (gateway.client.mode=async), режим поставляемого application.properties
+     */
+    @Bean
+    @ConditionalOnProperty(name = "gateway.client.mode", havingValue = "async")
+    public DownstreamClient asyncDownstreamClient(ObjectMapper objectMapper, HttpPools pools,
+                                                  DownstreamMetrics metrics, DownstreamGuards guards,
+                                                  HedgingPolicy hedging, Tracer tracer) {
+        return new TracingDownstreamClient(new MeteredDownstreamClient(new HedgingDownstreamClient(
+                new ResilientDownstreamClient(new AsyncDownstreamClient(objectMapper, pools), guards),
+                hedging), metrics), tracer);
+    }
+}
@@ -0,0 +1,30 @@
+package com.gatewayservice.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class ExecutorConfig {
+    /**
+     * Пул потоков для параллельных запросов к нижележащим сервисам
+     * Размер пула и очереди ограничен: при переполнении задача выполняется в вызывающем потоке,
+     * поэтому всплеск нагрузки замедляет запрос, но не приводит к отказу
+     * @param threads число потоков
+     * @param queueCapacity максимальная длина очереди задач
+     */
+    @Bean(name = "downstreamExecutor", destroyMethod = "shutdown")
+    public ExecutorService downstreamExecutor(@Value("${gateway.downstream.threads:32}") int threads,
+                                              @Value("${gateway.downstream.queue-capacity:1000}") int queueCapacity) {
+        return new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("downstream-"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+}
@@ -0,0 +1,82 @@
+package com.gatewayservice.config;
+
+import com.gatewayservice.client.Downstream;
+import com.gatewayservice.resilience.Bulkhead;
+import com.gatewayservice.resilience.CircuitBreaker;
+import com.gatewayservice.resilience.DownstreamGuards;
+import com.gatewayservice.resilience.HedgingPolicy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Locale;
+
+@Configuration
+public class ResilienceConfig {
+    /**
+     * Префикс настроек защиты: gateway.resilience.<параметр> задаёт значение для всех сервисов,
+     * gateway.resilience.<сервис>.<параметр> - для одного сервиса
+     */
+    private static final String PREFIX = "gateway.resilience.";
+
+    private final Environment env;
+
+    public ResilienceConfig(Environment env) {
+        this.env = env;
+    }
+
+    /**
+     * Автоматы защиты и лимиты одновременных запросов нижележащих сервисов
+     * Лимит одновременных запросов по умолчанию равен размеру пула соединений сервиса,
+     * поэтому запросы не ждут соединения дольше, чем занимает один запрос
+     */
+    @Bean
+    public DownstreamGuards downstreamGuards() {
+        DownstreamGuards guards = new DownstreamGuards();
+        for (Downstream downstream : Downstream.values()) {
+            String name = downstream.name().toLowerCase(Locale.ROOT);
+            int maxConnections = env.getProperty("gateway.http." + name + ".max-connections", Integer.class,
+                    env.getProperty("gateway.http.max-connections", Integer.class, 50));
+
+            CircuitBreaker breaker = new CircuitBreaker(
+                    property(name, "window-size", Integer.class, 20),
+                    property(name, "minimum-calls", Integer.class, 10),
+                    property(name, "failure-rate-threshold", Integer.class, 50),
+                    property(name, "open-duration", Duration.class, Duration.ofSeconds(10)).toMillis(),
+                    property(name, "half-open-probes", Integer.class, 3));
+            Bulkhead bulkhead = new Bulkhead(property(name, "max-concurrent", Integer.class, maxConnections));
+
+            guards.add(downstream, breaker, bulkhead);
+        }
+        return guards;
+    }
+
+    /**
+     * Параллельные и повторные запросы для идемпотентных GET
+     * Включаются параметром gateway.hedging.enabled для операций из gateway.hedging.operations
+     */
+    @Bean(destroyMethod = "shutdown")
+    public HedgingPolicy hedgingPolicy() {
+        String[] operations = env.getProperty("gateway.hedging.enabled", Boolean.class, false)
+                ? env.getProperty("gateway.hedging.operations", String[].class, new String[0])
+                : new String[0];
+
+        return new HedgingPolicy(Arrays.asList(operations),
+                env.getProperty("gateway.hedging.percentile", Double.class, 95.0),
+                env.getProperty("gateway.hedging.min-delay", Duration.class, Duration.ofMillis(5)).toMillis(),
+                env.getProperty("gateway.hedging.min-samples", Long.class, 100L),
+                env.getProperty("gateway.hedging.window", Duration.class, Duration.ofMinutes(1)).toMillis(),
+                env.getProperty("gateway.hedging.budget-percent", Integer.class, 10),
+                env.getProperty("gateway.hedging.budget-burst", Integer.class, 10));
+    }
+
+    /**
+     * Значение для сервиса с подстановкой общего значения и значения по умолчанию
+     */
+    private <T> T property(String name, String key, Class<T> type, T defaultValue) {
+        T common = env.getProperty(PREFIX + key, type, defaultValue);
+        return env.getProperty(PREFIX + name + "." + key, type, common);
+    }
+}
@@ -1,15 +1,114 @@
 package com.gatewayservice.config;
 
+import com.gatewayservice.client.Downstream;
+import com.gatewayservice.client.HttpPools;
+import com.gatewayservice.client.PooledClientHttpRequestFactory;
+import com.gatewayservice.client.PooledHttpClient;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 @Configuration
 public class RestTemplateConfig {
+    /**
+     * Префикс настроек HTTP-клиентов: gateway.http.<параметр> задаёт значение для всех сервисов,
+     * gateway.http.<сервис>.<параметр> - для одного сервиса
+     */
+    private static final String PREFIX = "gateway.http.";
+
+    /**
+     * Системное свойство JDK HttpClient: время, через которое закрывается простаивающее соединение
+     */
+    private static final String KEEP_ALIVE_PROPERTY = "jdk.httpclient.keepalive.timeout";
+
+    private final Environment env;
+
+    public RestTemplateConfig(Environment env) {
+        this.env = env;
+    }
+
+    /**
+     * Пул, в котором HTTP-клиенты обрабатывают ответы; ожидание ответа поток не занимает
+     * @param threads число потоков
+     */
+    @Bean(name = "httpClientExecutor", destroyMethod = "shutdown")
+    public ExecutorService httpClientExecutor(@Value("${gateway.http.threads:4}") int threads) {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("http-client-");
+        threadFactory.setDaemon(true);
+
+        return Executors.newFixedThreadPool(threads, threadFactory);
+    }
+
+    /**
+     * HTTP-клиенты нижележащих сервисов, у каждого свой пул соединений и свои таймауты
+     * @param keepAlive время жизни простаивающего соединения, общее для всех клиентов JVM
+     */
+    @Bean
+    public HttpPools httpPools(@Qualifier("httpClientExecutor") ExecutorService executor,
+                               @Value("${gateway.http.keep-alive:60s}") Duration keepAlive,
+                               @Value("${rating.server.url}") String ratingServerUrl,
+                               @Value("${library.server.url}") String libServerUrl,
+                               @Value("${reservations.server.url}") String reservServerUrl) {
+        // свойство читается при создании первого HttpClient, поэтому задаётся до создания клиентов
+        if (System.getProperty(KEEP_ALIVE_PROPERTY) == null)
+            System.setProperty(KEEP_ALIVE_PROPERTY, Long.toString(Math.max(1, keepAlive.getSeconds())));
 
+        List<PooledHttpClient> clients = new ArrayList<>();
+        clients.add(pool(Downstream.RATING, ratingServerUrl, executor));
+        clients.add(pool(Downstream.LIBRARY, libServerUrl, executor));
+        clients.add(pool(Downstream.RESERVATIONS, reservServerUrl, executor));
+
+        return new HttpPools(clients);
+    }
+
+    /**
+     * RestTemplate, отправляющий запросы через пулы соединений нижележащих сервисов
+     * Запросы на прочие адреса выполняются с таймаутами по умолчанию
+     */
     @Bean
-    public RestTemplate restTemplate(RestTemplateBuilder restTemplateBuilder) {
-        return restTemplateBuilder.build();
+    public RestTemplate restTemplate(RestTemplateBuilder restTemplateBuilder, HttpPools pools) {
+        SimpleClientHttpRequestFactory fallback = new SimpleClientHttpRequestFactory();
+        fallback.setConnectTimeout((int) duration(null, "connect-timeout", Duration.ofSeconds(2)).toMillis());
+        fallback.setReadTimeout((int) duration(null, "read-timeout", Duration.ofSeconds(10)).toMillis());
+
+        return restTemplateBuilder
+                .requestFactory(() -> new PooledClientHttpRequestFactory(pools, fallback))
+                .build();
+    }
+
+    private PooledHttpClient pool(Downstream downstream, String baseUrl, ExecutorService executor) {
+        String name = downstream.name().toLowerCase(Locale.ROOT);
+
+        return new PooledHttpClient(downstream, baseUrl,
+                env.getProperty(PREFIX + name + ".max-connections", Integer.class,
+                        env.getProperty(PREFIX + "max-connections", Integer.class, 50)),
+                duration(name, "connect-timeout", Duration.ofSeconds(2)),
+                duration(name, "read-timeout", Duration.ofSeconds(10)),
+                duration(name, "acquire-timeout", Duration.ofSeconds(2)),
+                executor);
+    }
+
+    /**
+     * Значение длительности для сервиса с подстановкой общего значения и значения по умолчанию
+     */
+    private Duration duration(String name, String key, Duration defaultValue) {
+        Duration common = env.getProperty(PREFIX + key, Duration.class, defaultValue);
+        if (name == null)
+            return common;
+
+        return env.getProperty(PREFIX + name + "." + key, Duration.class, common);
     }
 }
@@ -0,0 +1,44 @@
+package com.gatewayservice.controller;
+
+import com.gatewayservice.dto.BorrowerProfileResponse;
+import com.gatewayservice.service.ReservationService;
+import com.gatewayservice.service.StepTimings;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.concurrent.CompletableFuture;
+
+@RestController
+@Tag(name = "BORROWER")
+@RequestMapping("/borrower")
+public class BorrowerController {
+    /**
+     * Сервис, работающий с прокатом книг
+     */
+    private final ReservationService reservationService;
+
+    public BorrowerController(ReservationService reservationService) {
+        this.reservationService = reservationService;
+    }
+
+    /**
+     * Получение числа книг на руках и рейтинга читателя одним запросом
+     * @param username имя читателя
+     * @return профиль читателя и статус 200 OK
+     */
+    @Operation(summary = "Получить число книг на руках и рейтинг читателя")
+    @GetMapping()
+    public CompletableFuture<ResponseEntity<BorrowerProfileResponse>> getProfile(@RequestHeader("X-User-Name") String username) {
+        StepTimings timings = new StepTimings();
+        return reservationService.getBorrowerProfile(username, timings)
+                .thenApply(profile -> ResponseEntity.status(HttpStatus.OK)
+                        .header(StepTimings.HEADER, timings.toServerTiming())
+                        .body(profile));
+    }
+}
@@ -0,0 +1,87 @@
+package com.gatewayservice.controller;
+
+import com.gatewayservice.cache.CacheStats;
+import com.gatewayservice.cache.TtlCache;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RestController
+@Tag(name = "CACHES")
+@RequestMapping("/manage/caches")
+public class CacheController {
+    private final List<TtlCache<?, ?>> caches;
+
+    public CacheController(List<TtlCache<?, ?>> caches) {
+        this.caches = caches;
+    }
+
+    /**
+     * Статистика кэшей шлюза
+     * @return размер, попадания, промахи, вытеснения и истечения для каждого кэша
+     */
+    @Operation(summary = "Статистика кэшей")
+    @GetMapping
+    public ResponseEntity<ArrayList<CacheStats>> getStats() {
+        ArrayList<CacheStats> stats = new ArrayList<>();
+        for (TtlCache<?, ?> cache : caches)
+            stats.add(cache.getStats());
+
+        return ResponseEntity.status(HttpStatus.OK).body(stats);
+    }
+
+    /**
+     * Очистка кэша целиком
+     * @param name название кэша
+     * @return 204 NO CONTENT или 404 NOT FOUND, если кэша с таким названием нет
+     */
+    @Operation(summary = "Очистить кэш")
+    @DeleteMapping("/{name}")
+    public ResponseEntity<?> invalidateAll(@PathVariable String name) {
+        TtlCache<?, ?> cache = find(name);
+        if (cache == null)
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+
+        cache.invalidateAll();
+        return ResponseEntity.status(HttpStatus.NO_CONTENT).build();
+    }
+
+    /**
+     * Удаление одной записи из кэша после изменения данных в нижележащем сервисе
+     * @param name название кэша
+     * @param key ключ записи: UUID книги или библиотеки, имя читателя для кэша ratings
+     * @return 204 NO CONTENT, 404 NOT FOUND, если кэша с таким названием нет,
+     * или 400 BAD REQUEST, если ключ не подходит кэшу
+     */
+    @Operation(summary = "Удалить запись из кэша")
+    @DeleteMapping("/{name}/{key}")
+    public ResponseEntity<?> invalidate(@PathVariable String name, @PathVariable String key) {
+        TtlCache<?, ?> cache = find(name);
+        if (cache == null)
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+
+        try {
+            cache.invalidateKey(key);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+        return ResponseEntity.status(HttpStatus.NO_CONTENT).build();
+    }
+
+    private TtlCache<?, ?> find(String name) {
+        for (TtlCache<?, ?> cache : caches) {
+            if (cache.getName().equals(name))
+                return cache;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,23 @@
+package com.gatewayservice.controller;
+
+import com.gatewayservice.dto.ErrorResponse;
+import com.gatewayservice.resilience.DownstreamRejectedException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+@RestControllerAdvice
+public class DownstreamExceptionHandler {
+    /**
+     * Запрос к нижележащему сервису отклонён автоматом защиты или лимитом одновременных запросов
+     * @return статус 503 SERVICE UNAVAILABLE с причиной отказа
+     */
+    @ExceptionHandler(DownstreamRejectedException.class)
+    public ResponseEntity<ErrorResponse> handleRejected(DownstreamRejectedException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(new ErrorResponse(e.getMessage()));
+    }
+}
@@ -1,5 +1,16 @@
 package com.gatewayservice.controller;
 
+import com.gatewayservice.client.HttpPoolStats;
+import com.gatewayservice.client.HttpPools;
+import com.gatewayservice.event.RatingEventBus;
+import com.gatewayservice.event.RatingEventStats;
+import com.gatewayservice.metrics.DownstreamMetrics;
+import com.gatewayservice.resilience.DownstreamGuards;
+import com.gatewayservice.resilience.HedgingPolicy;
+import com.gatewayservice.resilience.HedgingStats;
+import com.gatewayservice.resilience.ResilienceStats;
+import com.gatewayservice.saga.SagaCoordinator;
+import com.gatewayservice.saga.SagaStats;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.http.HttpStatus;
@@ -8,11 +19,52 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.ArrayList;
+
 @RestController
 @Tag(name = "HEALTHCHECK")
 @RequestMapping("/manage")
 public class HealthcheckController {
-    public HealthcheckController() {}
+    /**
+     * HTTP-клиенты нижележащих сервисов
+     */
+    private final HttpPools httpPools;
+
+    /**
+     * Координатор шагов, выполняемых после ответа клиенту
+     */
+    private final SagaCoordinator sagas;
+
+    /**
+     * Очередь изменений рейтинга
+     */
+    private final RatingEventBus ratingEvents;
+
+    /**
+     * Метрики запросов к нижележащим сервисам
+     */
+    private final DownstreamMetrics downstreamMetrics;
+
+    /**
+     * Автоматы защиты и лимиты одновременных запросов к нижележащим сервисам
+     */
+    private final DownstreamGuards downstreamGuards;
+
+    /**
+     * Параллельные и повторные запросы к нижележащим сервисам
+     */
+    private final HedgingPolicy hedging;
+
+    public HealthcheckController(HttpPools httpPools, SagaCoordinator sagas, RatingEventBus ratingEvents,
+                                 DownstreamMetrics downstreamMetrics, DownstreamGuards downstreamGuards,
+                                 HedgingPolicy hedging) {
+        this.httpPools = httpPools;
+        this.sagas = sagas;
+        this.ratingEvents = ratingEvents;
+        this.downstreamMetrics = downstreamMetrics;
+        this.downstreamGuards = downstreamGuards;
+        this.hedging = hedging;
+    }
 
     /**
      * Специальная ручка для проверки готовности сервиса
@@ -23,4 +75,64 @@ public class HealthcheckController {
     public ResponseEntity<String> returnOk() {
         return ResponseEntity.status(HttpStatus.OK).build();
     }
+
+    /**
+     * Состояние пулов соединений с нижележащими сервисами
+     * @return число занятых соединений, ожидающих запросов, таймаутов и ошибок для каждого сервиса
+     */
+    @Operation(summary = "HTTP connection pools statistics")
+    @GetMapping("/http-pools")
+    public ResponseEntity<ArrayList<HttpPoolStats>> getHttpPoolStats() {
+        return ResponseEntity.status(HttpStatus.OK).body(httpPools.getStats());
+    }
+
+    /**
+     * Состояние координатора саг
+     * @return число незавершённых шагов, счётчики выполненных, повторённых, неудачных и компенсированных шагов
+     */
+    @Operation(summary = "Saga outbox statistics")
+    @GetMapping("/saga")
+    public ResponseEntity<SagaStats> getSagaStats() {
+        return ResponseEntity.status(HttpStatus.OK).body(sagas.getStats());
+    }
+
+    /**
+     * Состояние очереди изменений рейтинга
+     * @return длина очереди, счётчики опубликованных и отклонённых изменений, отправленных и неудачных пакетов
+     */
+    @Operation(summary = "Rating event queue statistics")
+    @GetMapping("/rating-events")
+    public ResponseEntity<RatingEventStats> getRatingEventStats() {
+        return ResponseEntity.status(HttpStatus.OK).body(ratingEvents.getStats());
+    }
+
+    /**
+     * Метрики запросов к нижележащим сервисам для сбора Prometheus
+     * @return гистограммы длительности, счётчики ошибок и число выполняющихся запросов по сервисам и операциям
+     */
+    @Operation(summary = "Downstream call metrics in Prometheus text format")
+    @GetMapping(value = "/prometheus", produces = DownstreamMetrics.CONTENT_TYPE)
+    public ResponseEntity<String> getPrometheusMetrics() {
+        return ResponseEntity.status(HttpStatus.OK).body(downstreamMetrics.scrape());
+    }
+
+    /**
+     * Состояние защиты запросов к нижележащим сервисам
+     * @return состояние автомата, доля ошибок, занятые места и счётчики отклонённых запросов для каждого сервиса
+     */
+    @Operation(summary = "Circuit breaker and bulkhead state")
+    @GetMapping("/resilience")
+    public ResponseEntity<ArrayList<ResilienceStats>> getResilienceStats() {
+        return ResponseEntity.status(HttpStatus.OK).body(downstreamGuards.getStats());
+    }
+
+    /**
+     * Дополнительные запросы к нижележащим сервисам
+     * @return запас бюджета, счётчики параллельных запросов, их побед, повторов и отказов из-за бюджета
+     */
+    @Operation(summary = "Hedged request and retry budget statistics")
+    @GetMapping("/hedging")
+    public ResponseEntity<ArrayList<HedgingStats>> getHedgingStats() {
+        return ResponseEntity.status(HttpStatus.OK).body(hedging.getStats());
+    }
 }
@@ -1,9 +1,7 @@
 package com.gatewayservice.controller;
 
 import com.gatewayservice.dto.LibraryBookPaginationResponse;
-import com.gatewayservice.dto.LibraryBookResponse;
 import com.gatewayservice.dto.LibraryPaginationResponse;
-import com.gatewayservice.dto.LibraryResponse;
 import com.gatewayservice.service.LibraryService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -11,8 +9,8 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.ArrayList;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @Tag(name = "LIBRARIES")
@@ -37,22 +35,15 @@ public class LibraryController {
      */
     @Operation(summary = "Получить список библиотек в городе")
     @GetMapping()
-    public ResponseEntity<LibraryPaginationResponse> getLibrariesByCity(@RequestParam(value = "city", required = true) String city,
-                                                                        @RequestParam(value = "page", required = false) Integer page,
-                                                                        @RequestParam(value = "size", required = false) Integer size) {
-        ArrayList<LibraryResponse> allLibs = libraryService.getLibrariesByCity(city);
-        if (page == null)
-            return ResponseEntity.status(HttpStatus.OK).body(new LibraryPaginationResponse(1, 1, allLibs.size(), allLibs));
+    public CompletableFuture<ResponseEntity<LibraryPaginationResponse>> getLibrariesByCity(@RequestParam(value = "city", required = true) String city,
+                                                                                           @RequestParam(value = "page", required = false) Integer page,
+                                                                                           @RequestParam(value = "size", required = false) Integer size) {
+        if (page == null || size == null)
+            return libraryService.getLibrariesByCity(city).thenApply(allLibs ->
+                    ResponseEntity.status(HttpStatus.OK).body(new LibraryPaginationResponse(1, 1, allLibs.size(), allLibs)));
 
-        int maxPage = allLibs.size() / size + 1;
-
-        if (page > maxPage)
-            page = maxPage;
-
-        ArrayList<LibraryResponse> pageLibs =
-                new ArrayList<>(allLibs.subList((page - 1) * size, Integer.min(page * size, allLibs.size())));
-
-        return ResponseEntity.status(HttpStatus.OK).body(new LibraryPaginationResponse(page, size, allLibs.size(), pageLibs));
+        return libraryService.getLibrariesByCity(city, page, size)
+                .thenApply(libs -> ResponseEntity.status(HttpStatus.OK).body(libs));
     }
 
     /**
@@ -64,22 +55,15 @@ public class LibraryController {
      */
     @Operation(summary = "Получить список книг в библиотеке")
     @GetMapping("/{libraryUid}/books")
-    public ResponseEntity<LibraryBookPaginationResponse> updateRating(@PathVariable UUID libraryUid,
-                                                                      @RequestParam(value = "page", required = false) Integer page,
-                                                                      @RequestParam(value = "size", required = false) Integer size,
-                                                                      @RequestParam(value = "showAll", required = false, defaultValue = "true") boolean showAll)  {
-        ArrayList<LibraryBookResponse> books = libraryService.getBooksByLibrary(libraryUid, showAll);
-        if (page == null)
-            return ResponseEntity.status(HttpStatus.OK).body(new LibraryBookPaginationResponse(1, 1, books.size(), books));
-
-        int maxPage = books.size() / size + 1;
-
-        if (page > maxPage)
-            page = maxPage;
-
-        ArrayList<LibraryBookResponse> pageLibs =
-                new ArrayList<>(books.subList((page - 1) * size, Integer.min(page * size, books.size())));
+    public CompletableFuture<ResponseEntity<LibraryBookPaginationResponse>> updateRating(@PathVariable UUID libraryUid,
+                                                                                         @RequestParam(value = "page", required = false) Integer page,
+                                                                                         @RequestParam(value = "size", required = false) Integer size,
+                                                                                         @RequestParam(value = "showAll", required = false, defaultValue = "true") boolean showAll)  {
+        if (page == null || size == null)
+            return libraryService.getBooksByLibrary(libraryUid, showAll).thenApply(books ->
+                    ResponseEntity.status(HttpStatus.OK).body(new LibraryBookPaginationResponse(1, 1, books.size(), books)));
 
-        return ResponseEntity.status(HttpStatus.OK).body(new LibraryBookPaginationResponse(page, size, books.size(), pageLibs));
+        return libraryService.getBooksByLibrary(libraryUid, showAll, page, size)
+                .thenApply(books -> ResponseEntity.status(HttpStatus.OK).body(books));
     }
 }
@@ -12,6 +12,8 @@ import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.concurrent.CompletableFuture;
+
 @RestController
 @Tag(name = "RATING")
 @RequestMapping("/rating")
@@ -36,9 +38,8 @@ public class RatingController {
      */
     @Operation(summary = "Получить рейтинг пользователя")
     @GetMapping()
-    public ResponseEntity<UserRatingResponse> getPersonById(@RequestHeader("X-User-Name") String username) throws Exception {
-        UserRatingResponse rating = ratingService.getUserRating(username);
-
-        return ResponseEntity.status(HttpStatus.OK).body(rating);
+    public CompletableFuture<ResponseEntity<UserRatingResponse>> getPersonById(@RequestHeader("X-User-Name") String username) throws Exception {
+        return ratingService.getUserRating(username)
+                .thenApply(rating -> ResponseEntity.status(HttpStatus.OK).body(rating));
     }
 }
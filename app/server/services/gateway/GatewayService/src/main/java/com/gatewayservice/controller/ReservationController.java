@@ -1,23 +1,39 @@
 package com.gatewayservice.controller;
 
-import com.gatewayservice.dto.BookReservationResponse;
+import com.gatewayservice.dto.BookReservationPageResponse;
 import com.gatewayservice.dto.ReturnBookRequest;
 import com.gatewayservice.dto.TakeBookRequest;
 import com.gatewayservice.dto.TakeBookResponse;
 import com.gatewayservice.service.ReservationService;
+import com.gatewayservice.service.StepTimings;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.regex.Pattern;
 
 @RestController
 @Tag(name = "RESERVATIONS")
 @RequestMapping("/reservations")
 public class ReservationController {
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private static final Set<String> STATUSES = new HashSet<>(Arrays.asList("RENTED", "RETURNED", "EXPIRED"));
+
+    /**
+     * Курсор сервиса броней - строка base64url, поэтому передаётся в запрос без кодирования
+     */
+    private static final Pattern CURSOR = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+
     /**
      * Сервис, работающий с прокатом книг
      */
@@ -30,14 +46,37 @@ public class ReservationController {
     /**
      * Получение списка книг, взятых в прокат по имени пользователя
      * @param username имя пользователя, информацию о котором нужно получить
-     * @return список книг, взятых в прокат
+     * @return список книг, взятых в прокат; записывается в ответ по мере получения от сервиса броней
      */
     @Operation(summary = "Получение списка книг, взятых пользователем в прокат")
-    @GetMapping()
-    public ResponseEntity<ArrayList<BookReservationResponse>> getReservations(@RequestHeader("X-User-Name") String username) {
-        ArrayList<BookReservationResponse> reservations = reservationService.getAllReservations(username);
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public CompletableFuture<ResponseEntity<StreamingResponseBody>> getReservations(@RequestHeader("X-User-Name") String username) {
+        return reservationService.openReservations(username)
+                .thenApply(in -> ResponseEntity.status(HttpStatus.OK)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(out -> reservationService.writeReservations(in, out)));
+    }
 
-        return ResponseEntity.status(HttpStatus.OK).body(reservations);
+    /**
+     * Получение одной страницы истории броней пользователя, от новых к старым
+     * @param username имя пользователя, информацию о котором нужно получить
+     * @param size размер страницы, от 1 до 100
+     * @param status статус броней (RENTED, RETURNED, EXPIRED), без параметра - брони в любом статусе
+     * @param cursor курсор nextCursor предыдущей страницы, без параметра - первая страница
+     * @return страница книг, взятых в прокат, 400 BAD REQUEST при недопустимых параметрах
+     */
+    @Operation(summary = "Получение страницы истории броней пользователя")
+    @GetMapping(params = "size")
+    public CompletableFuture<ResponseEntity<BookReservationPageResponse>> getReservationsPage(@RequestHeader("X-User-Name") String username,
+                                                                                             @RequestParam("size") int size,
+                                                                                             @RequestParam(value = "status", required = false) String status,
+                                                                                             @RequestParam(value = "cursor", required = false) String cursor) {
+        if (size < 1 || size > MAX_PAGE_SIZE || (status != null && !STATUSES.contains(status))
+                || (cursor != null && !CURSOR.matcher(cursor).matches()))
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.BAD_REQUEST).build());
+
+        return reservationService.getReservationsPage(username, size, status, cursor)
+                .thenApply(page -> ResponseEntity.status(HttpStatus.OK).body(page));
     }
 
     /**
@@ -47,11 +86,13 @@ public class ReservationController {
      */
     @Operation(summary = "Получение списка книг, взятых пользователем в прокат")
     @PostMapping()
-    public ResponseEntity<TakeBookResponse> takeBook(@RequestHeader("X-User-Name") String username,
-                                                     @RequestBody TakeBookRequest req) {
-        TakeBookResponse reservation = reservationService.takeBook(username, req);
-
-        return ResponseEntity.status(HttpStatus.OK).body(reservation);
+    public CompletableFuture<ResponseEntity<TakeBookResponse>> takeBook(@RequestHeader("X-User-Name") String username,
+                                                                        @RequestBody TakeBookRequest req) {
+        StepTimings timings = new StepTimings();
+        return reservationService.takeBook(username, req, timings)
+                .thenApply(reservation -> ResponseEntity.status(HttpStatus.OK)
+                        .header(StepTimings.HEADER, timings.toServerTiming())
+                        .body(reservation));
     }
 
     /**
@@ -62,11 +103,10 @@ public class ReservationController {
      */
     @Operation(summary = "Вернуть книгу в библиотеку")
     @PostMapping("/{reservationUid}/return")
-    public ResponseEntity<String> returnBook(@PathVariable UUID reservationUid,
-                                                   @RequestHeader("X-User-Name") String username,
-                                                   @RequestBody ReturnBookRequest req) {
-        reservationService.returnBook(reservationUid, username, req);
-
-        return ResponseEntity.status(HttpStatus.NO_CONTENT).build();
+    public CompletableFuture<ResponseEntity<String>> returnBook(@PathVariable UUID reservationUid,
+                                                                @RequestHeader("X-User-Name") String username,
+                                                                @RequestBody ReturnBookRequest req) {
+        return reservationService.returnBook(reservationUid, username, req)
+                .thenApply(ignored -> ResponseEntity.status(HttpStatus.NO_CONTENT).<String>build());
     }
 }
@@ -0,0 +1,23 @@
+package com.gatewayservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+
+@Getter
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookReservationPageResponse {
+    int pageSize;
+
+    /**
+     * Курсор следующей страницы, null на последней странице
+     */
+    String nextCursor;
+
+    ArrayList<BookReservationResponse> items;
+}
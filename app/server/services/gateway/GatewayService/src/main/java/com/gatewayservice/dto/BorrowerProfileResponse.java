@@ -0,0 +1,24 @@
+package com.gatewayservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@Getter
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BorrowerProfileResponse {
+    /**
+     * Число книг, находящихся у читателя
+     */
+    int rentedCount;
+
+    UserRatingResponse rating;
+
+    /**
+     * Может ли читатель взять ещё одну книгу: число книг на руках меньше рейтинга
+     */
+    boolean canTakeBook;
+}
@@ -0,0 +1,25 @@
+package com.gatewayservice.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * Изменение рейтинга одного пользователя в пакетном запросе к сервису рейтингов
+ */
+@Getter
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RatingDelta {
+    /**
+     * Идентификатор изменения, по которому сервис рейтингов отбрасывает повторы
+     */
+    private UUID id;
+
+    private String username;
+    private int delta;
+}
@@ -0,0 +1,36 @@
+package com.gatewayservice.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * Итог одного изменения из пакетного запроса к сервису рейтингов
+ */
+@Getter
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RatingDeltaResult {
+    public static final String APPLIED = "APPLIED";
+    public static final String DUPLICATE = "DUPLICATE";
+    public static final String REJECTED = "REJECTED";
+
+    private UUID id;
+    private String username;
+
+    /**
+     * APPLIED, DUPLICATE (применено раньше) или REJECTED
+     */
+    private String status;
+
+    private int stars;
+
+    /**
+     * Причина отклонения изменения
+     */
+    private String error;
+}
@@ -0,0 +1,232 @@
+package com.gatewayservice.event;
+
+import com.gatewayservice.client.Downstream;
+import com.gatewayservice.client.DownstreamClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClientException;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Очередь изменений рейтинга с пакетной отправкой
+ * Изменения копятся в ограниченной очереди; поток-потребитель забирает до batch-size изменений,
+ * подождав после первого не дольше linger, и отправляет их одним запросом PUT /rating/batch.
+ * Следующий пакет отправляется после ответа на предыдущий, поэтому изменения одного пользователя
+ * применяются в порядке публикации.
+ * Сервис рейтингов отвечает итогом по каждому изменению: отклонённое изменение завершается ошибкой 4xx
+ * только у опубликовавшего его, остальные изменения пакета не страдают. При ошибке всего пакета
+ * повтор безопасен: сервис рейтингов пропускает изменения, идентификаторы которых уже применены
+ */
+@Component
+public class RatingEventBus {
+    private static final Logger log = LoggerFactory.getLogger(RatingEventBus.class);
+
+    /**
+     * Изменение, ожидающее отправки, и результат, который получит опубликовавший его
+     */
+    private static final class Pending {
+        final RatingDelta delta;
+        final CompletableFuture<Void> result = new CompletableFuture<>();
+
+        Pending(RatingDelta delta) {
+            this.delta = delta;
+        }
+    }
+
+    private final DownstreamClient client;
+    private final int capacity;
+    private final int batchSize;
+    private final long lingerNanos;
+    private final BlockingQueue<Pending> queue;
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder failedBatches = new LongAdder();
+    private final LongAdder refusedDeltas = new LongAdder();
+
+    private Thread consumer;
+    private volatile boolean running;
+
+    public RatingEventBus(DownstreamClient client,
+                          @Value("${gateway.rating-events.queue-capacity:10000}") int capacity,
+                          @Value("${gateway.rating-events.batch-size:500}") int batchSize,
+                          @Value("${gateway.rating-events.linger:100ms}") Duration linger) {
+        this.client = client;
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.lingerNanos = linger.toNanos();
+        this.queue = new ArrayBlockingQueue<>(capacity);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        consumer = new Thread(this::consume, "rating-events");
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
+    /**
+     * Остановка потребителя; изменения, уже стоящие в очереди, отправляются
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        consumer.interrupt();
+        consumer.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    /**
+     * Публикация изменения рейтинга
+     * @param id идентификатор изменения; повторная публикация с тем же идентификатором не меняет рейтинг второй раз
+     * @param username имя пользователя
+     * @param delta изменение рейтинга
+     * @return завершается, когда сервис рейтингов применил это изменение (сейчас или раньше);
+     * если сервис его отклонил, завершается исключением HttpClientErrorException;
+     * если очередь заполнена, сразу завершается исключением RejectedExecutionException
+     */
+    public CompletableFuture<Void> publish(UUID id, String username, int delta) {
+        Pending pending = new Pending(new RatingDelta(id, username, delta));
+        if (!queue.offer(pending)) {
+            rejected.increment();
+            pending.result.completeExceptionally(
+                    new RejectedExecutionException("Очередь изменений рейтинга заполнена"));
+            return pending.result;
+        }
+
+        published.increment();
+        return pending.result;
+    }
+
+    public RatingEventStats getStats() {
+        return new RatingEventStats(queue.size(), capacity, published.sum(), rejected.sum(), batches.sum(),
+                failedBatches.sum(), refusedDeltas.sum());
+    }
+
+    private void consume() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                collect(batch);
+            } catch (InterruptedException e) {
+                if (running)
+                    continue;
+                queue.drainTo(batch, batchSize - batch.size());
+            }
+
+            if (!batch.isEmpty()) {
+                send(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Ожидание первого изменения, затем добор пакета в течение linger
+     */
+    private void collect(List<Pending> batch) throws InterruptedException {
+        Pending first = queue.poll(1, TimeUnit.SECONDS);
+        if (first == null)
+            return;
+
+        batch.add(first);
+        long deadline = System.nanoTime() + lingerNanos;
+        while (batch.size() < batchSize) {
+            queue.drainTo(batch, batchSize - batch.size());
+            long left = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || left <= 0)
+                break;
+
+            Pending next = queue.poll(left, TimeUnit.NANOSECONDS);
+            if (next == null)
+                break;
+            batch.add(next);
+        }
+    }
+
+    private void send(List<Pending> batch) {
+        List<RatingDelta> body = new ArrayList<>(batch.size());
+        for (Pending p : batch)
+            body.add(p.delta);
+
+        List<RatingDeltaResult> results = null;
+        Throwable error = null;
+        try {
+            results = client.exchange(Downstream.RATING, "applyRatingBatch", "/api/v1/rating/batch", HttpMethod.PUT,
+                    null, body, new ParameterizedTypeReference<List<RatingDeltaResult>>() {
+                    }).join();
+        } catch (CompletionException e) {
+            error = e.getCause() != null ? e.getCause() : e;
+        } catch (RuntimeException e) {
+            error = e;
+        }
+
+        batches.increment();
+        if (error instanceof HttpClientErrorException && batch.size() > 1) {
+            // пакет целиком не принят (например, не разобран), отправляем изменения по одному,
+            // чтобы ошибка досталась только виновному
+            failedBatches.increment();
+            log.warn("Пакет из {} изменений рейтинга отклонён ({}), изменения отправляются по одному",
+                    batch.size(), error.getMessage());
+            for (Pending p : batch)
+                send(Collections.singletonList(p));
+            return;
+        }
+
+        if (error != null) {
+            failedBatches.increment();
+            log.warn("Пакет из {} изменений рейтинга не отправлен: {}", batch.size(), error.getMessage());
+            for (Pending p : batch)
+                p.result.completeExceptionally(error);
+            return;
+        }
+
+        for (int i = 0; i < batch.size(); i++)
+            complete(batch.get(i), results != null && i < results.size() ? results.get(i) : null);
+    }
+
+    /**
+     * Завершение изменения по итогу от сервиса рейтингов; итоги идут в порядке изменений пакета
+     */
+    private void complete(Pending pending, RatingDeltaResult result) {
+        if (result == null) {
+            pending.result.completeExceptionally(
+                    new RestClientException("Сервис рейтингов не вернул итог изменения " + pending.delta.getId()));
+            return;
+        }
+
+        if (RatingDeltaResult.REJECTED.equals(result.getStatus())) {
+            refusedDeltas.increment();
+            log.warn("Изменение рейтинга {} пользователя {} отклонено: {}",
+                    pending.delta.getId(), pending.delta.getUsername(), result.getError());
+            pending.result.completeExceptionally(HttpClientErrorException.create(HttpStatus.UNPROCESSABLE_ENTITY,
+                    result.getError() != null ? result.getError() : "Изменение рейтинга отклонено",
+                    HttpHeaders.EMPTY, null, null));
+            return;
+        }
+
+        pending.result.complete(null);
+    }
+}
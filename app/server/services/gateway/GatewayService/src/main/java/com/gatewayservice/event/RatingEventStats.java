@@ -0,0 +1,23 @@
+package com.gatewayservice.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Снимок состояния очереди изменений рейтинга
+ */
+@Getter
+@AllArgsConstructor
+public class RatingEventStats {
+    int queued;
+    int capacity;
+    long published;
+    long rejected;
+    long batches;
+    long failedBatches;
+
+    /**
+     * Изменения, отклонённые сервисом рейтингов
+     */
+    long refusedDeltas;
+}
@@ -0,0 +1,177 @@
+package com.gatewayservice.metrics;
+
+import com.gatewayservice.client.Downstream;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.UnknownHttpStatusCodeException;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Метрики запросов шлюза к нижележащим сервисам в разрезе сервиса и операции
+ * Для каждой пары ведутся гистограмма длительности, счётчики ошибок по видам и число выполняющихся запросов.
+ * Отдаются в текстовом формате Prometheus
+ */
+@Component
+public class DownstreamMetrics {
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    /**
+     * Вид ошибки запроса, значение метки kind
+     */
+    public enum ErrorKind {
+        /**
+         * Ответ 4xx
+         */
+        CLIENT_ERROR,
+
+        /**
+         * Ответ 5xx или неизвестный код
+         */
+        SERVER_ERROR,
+
+        /**
+         * Ошибка соединения или таймаут
+         */
+        IO_ERROR,
+
+        /**
+         * Запрос не отправлен: отклонён до обращения к сервису
+         */
+        REJECTED,
+
+        OTHER;
+
+        final String label = name().toLowerCase(Locale.ROOT);
+
+        static ErrorKind of(Throwable e) {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof HttpClientErrorException)
+                return CLIENT_ERROR;
+            if (cause instanceof HttpServerErrorException || cause instanceof UnknownHttpStatusCodeException)
+                return SERVER_ERROR;
+            if (cause instanceof ResourceAccessException)
+                return IO_ERROR;
+            if (cause instanceof RejectedExecutionException)
+                return REJECTED;
+            return OTHER;
+        }
+    }
+
+    /**
+     * Метрики одной пары сервис - операция
+     */
+    private static final class CallMetrics {
+        final String downstream;
+        final String operation;
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LongAdder[] errors = new LongAdder[ErrorKind.values().length];
+        final AtomicInteger inFlight = new AtomicInteger();
+
+        CallMetrics(Downstream target, String operation) {
+            this.downstream = target.name().toLowerCase(Locale.ROOT);
+            this.operation = operation;
+            for (int i = 0; i < errors.length; i++)
+                errors[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Начатый запрос; stop вызывается ровно один раз
+     */
+    public final class Sample {
+        private final CallMetrics metrics;
+        private final long startNanos;
+
+        private Sample(CallMetrics metrics) {
+            this.metrics = metrics;
+            this.startNanos = System.nanoTime();
+        }
+
+        /**
+         * Завершение запроса
+         * @param error ошибка запроса, null при успехе
+         */
+        public void stop(Throwable error) {
+            metrics.latency.record(System.nanoTime() - startNanos);
+            metrics.inFlight.decrementAndGet();
+            if (error != null)
+                metrics.errors[ErrorKind.of(error).ordinal()].increment();
+        }
+    }
+
+    private final ConcurrentHashMap<String, CallMetrics> calls = new ConcurrentHashMap<>();
+
+    /**
+     * Начало запроса к сервису
+     * @param target сервис
+     * @param operation имя операции шлюза
+     */
+    public Sample start(Downstream target, String operation) {
+        String key = target.name() + '/' + operation;
+        CallMetrics metrics = calls.get(key);
+        if (metrics == null)
+            metrics = calls.computeIfAbsent(key, k -> new CallMetrics(target, operation));
+
+        metrics.inFlight.incrementAndGet();
+        return new Sample(metrics);
+    }
+
+    /**
+     * Текущие значения в текстовом формате Prometheus
+     */
+    public String scrape() {
+        Map<String, CallMetrics> sorted = new TreeMap<>(calls);
+        StringBuilder sb = new StringBuilder(4096);
+
+        sb.append("# HELP gateway_downstream_request_duration_seconds Длительность запросов к нижележащим сервисам\n");
+        sb.append("# TYPE gateway_downstream_request_duration_seconds histogram\n");
+        for (CallMetrics m : sorted.values()) {
+            long[] counts = m.latency.cumulativeCounts();
+            for (int i = 0; i < LatencyHistogram.BOUNDS_SECONDS.length; i++) {
+                sb.append("gateway_downstream_request_duration_seconds_bucket");
+                labels(sb, m).append(",le=\"").append(LatencyHistogram.BOUNDS_SECONDS[i]).append("\"} ")
+                        .append(counts[i]).append('\n');
+            }
+            sb.append("gateway_downstream_request_duration_seconds_bucket");
+            labels(sb, m).append(",le=\"+Inf\"} ").append(counts[counts.length - 1]).append('\n');
+            sb.append("gateway_downstream_request_duration_seconds_sum");
+            labels(sb, m).append("} ").append(m.latency.sumSeconds()).append('\n');
+            sb.append("gateway_downstream_request_duration_seconds_count");
+            labels(sb, m).append("} ").append(counts[counts.length - 1]).append('\n');
+        }
+
+        sb.append("# HELP gateway_downstream_errors_total Запросы к нижележащим сервисам, завершившиеся ошибкой\n");
+        sb.append("# TYPE gateway_downstream_errors_total counter\n");
+        for (CallMetrics m : sorted.values()) {
+            for (ErrorKind kind : ErrorKind.values()) {
+                sb.append("gateway_downstream_errors_total");
+                labels(sb, m).append(",kind=\"").append(kind.label).append("\"} ")
+                        .append(m.errors[kind.ordinal()].sum()).append('\n');
+            }
+        }
+
+        sb.append("# HELP gateway_downstream_in_flight Выполняющиеся запросы к нижележащим сервисам\n");
+        sb.append("# TYPE gateway_downstream_in_flight gauge\n");
+        for (CallMetrics m : sorted.values()) {
+            sb.append("gateway_downstream_in_flight");
+            labels(sb, m).append("} ").append(m.inFlight.get()).append('\n');
+        }
+
+        return sb.toString();
+    }
+
+    private static StringBuilder labels(StringBuilder sb, CallMetrics m) {
+        return sb.append("{downstream=\"").append(m.downstream).append("\",operation=\"").append(m.operation)
+                .append('"');
+    }
+}
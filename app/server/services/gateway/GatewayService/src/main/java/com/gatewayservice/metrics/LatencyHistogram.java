@@ -0,0 +1,80 @@
+package com.gatewayservice.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Гистограмма длительностей с фиксированными границами корзин
+ * Запись не блокирует: каждая корзина - отдельный LongAdder. Значения хранятся в наносекундах,
+ * границы и сумма отдаются в секундах, как принято для гистограмм Prometheus
+ */
+public final class LatencyHistogram {
+    /**
+     * Верхние границы корзин в секундах, последняя корзина +Inf не хранится
+     */
+    static final double[] BOUNDS_SECONDS = {
+            0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10
+    };
+
+    private static final long[] BOUNDS_NANOS = new long[BOUNDS_SECONDS.length];
+
+    static {
+        for (int i = 0; i < BOUNDS_SECONDS.length; i++)
+            BOUNDS_NANOS[i] = (long) (BOUNDS_SECONDS[i] * 1_000_000_000L);
+    }
+
+    /**
+     * Число значений в каждой корзине (не накопительно), последний элемент - значения больше всех границ
+     */
+    private final LongAdder[] buckets = new LongAdder[BOUNDS_SECONDS.length + 1];
+    private final LongAdder sumNanos = new LongAdder();
+
+    public LatencyHistogram() {
+        for (int i = 0; i < buckets.length; i++)
+            buckets[i] = new LongAdder();
+    }
+
+    public void record(long nanos) {
+        int i = 0;
+        while (i < BOUNDS_NANOS.length && nanos > BOUNDS_NANOS[i])
+            i++;
+        buckets[i].increment();
+        sumNanos.add(nanos);
+    }
+
+    /**
+     * Накопительные счётчики корзин: элемент i - число значений не больше BOUNDS_SECONDS[i],
+     * последний элемент - общее число значений
+     */
+    public long[] cumulativeCounts() {
+        long[] counts = new long[buckets.length];
+        long total = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            total += buckets[i].sum();
+            counts[i] = total;
+        }
+        return counts;
+    }
+
+    public double sumSeconds() {
+        return sumNanos.sum() / 1e9;
+    }
+
+    /**
+     * Оценка процентиля сверху: граница корзины, в которую он попадает
+     * @param percentile процентиль от 0 до 100
+     * @return граница в наносекундах; Long.MAX_VALUE, если процентиль больше всех границ или значений нет
+     */
+    public long percentileNanos(double percentile) {
+        long[] counts = cumulativeCounts();
+        long total = counts[counts.length - 1];
+        if (total == 0)
+            return Long.MAX_VALUE;
+
+        long rank = (long) Math.ceil(total * percentile / 100);
+        for (int i = 0; i < BOUNDS_NANOS.length; i++) {
+            if (counts[i] >= rank)
+                return BOUNDS_NANOS[i];
+        }
+        return Long.MAX_VALUE;
+    }
+}
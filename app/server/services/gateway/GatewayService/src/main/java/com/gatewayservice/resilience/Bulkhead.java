@@ -0,0 +1,49 @@
+package com.gatewayservice.resilience;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ограничение числа одновременных запросов к одному сервису без ожидания
+ * Запрос сверх лимита сразу отклоняется, поэтому медленный сервис не накапливает очередь запросов шлюза
+ */
+public class Bulkhead {
+    private final int maxConcurrent;
+    private final Semaphore permits;
+    private final LongAdder rejected = new LongAdder();
+
+    public Bulkhead(int maxConcurrent) {
+        if (maxConcurrent < 1)
+            throw new IllegalArgumentException("Лимит запросов должен быть положительным: " + maxConcurrent);
+
+        this.maxConcurrent = maxConcurrent;
+        this.permits = new Semaphore(maxConcurrent);
+    }
+
+    /**
+     * @return true, если запрос можно выполнить; тогда по его завершении нужно вызвать release
+     */
+    public boolean tryAcquire() {
+        if (permits.tryAcquire())
+            return true;
+
+        rejected.increment();
+        return false;
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public int getInUse() {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+}
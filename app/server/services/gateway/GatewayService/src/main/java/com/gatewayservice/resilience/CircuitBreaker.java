@@ -0,0 +1,167 @@
+package com.gatewayservice.resilience;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Автомат защиты запросов к одному сервису
+ * В замкнутом состоянии учитываются исходы последних windowSize запросов; когда их не меньше minimumCalls
+ * и доля ошибок достигает failureRateThreshold, автомат размыкается и отклоняет запросы в течение openDuration.
+ * Затем он полуоткрыт: пропускает halfOpenProbes пробных запросов, после их успеха замыкается,
+ * а после первой ошибки снова размыкается.
+ * Каждая смена состояния начинает новую эпоху: исход запроса, разрешённого в прошлой эпохе, не учитывается
+ */
+public class CircuitBreaker {
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    /**
+     * Запрос не разрешён
+     */
+    public static final long NOT_PERMITTED = -1;
+
+    private final int windowSize;
+    private final int minimumCalls;
+    private final int failureRateThreshold;
+    private final long openDurationNanos;
+    private final int halfOpenProbes;
+
+    /**
+     * Состояние защищено монитором this
+     */
+    private State state = State.CLOSED;
+    private long epoch;
+    private long openedAt;
+
+    /**
+     * Кольцевой буфер исходов в замкнутом состоянии, true - ошибка
+     */
+    private final boolean[] window;
+    private int windowPos;
+    private int windowCount;
+    private int windowFailures;
+
+    private int probesInFlight;
+    private int probeSuccesses;
+
+    private final LongAdder notPermitted = new LongAdder();
+    private final LongAdder openedCount = new LongAdder();
+
+    /**
+     * @param windowSize число последних запросов, по которым считается доля ошибок
+     * @param minimumCalls наименьшее число запросов в окне, при котором автомат может разомкнуться
+     * @param failureRateThreshold доля ошибок в процентах, при которой автомат размыкается
+     * @param openDurationMs время, в течение которого разомкнутый автомат отклоняет запросы
+     * @param halfOpenProbes число пробных запросов в полуоткрытом состоянии
+     */
+    public CircuitBreaker(int windowSize, int minimumCalls, int failureRateThreshold, long openDurationMs,
+                          int halfOpenProbes) {
+        if (windowSize < 1 || halfOpenProbes < 1)
+            throw new IllegalArgumentException("Размер окна и число пробных запросов должны быть положительными");
+
+        this.windowSize = windowSize;
+        this.minimumCalls = Math.min(Math.max(1, minimumCalls), windowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.openDurationNanos = openDurationMs * 1_000_000L;
+        this.halfOpenProbes = halfOpenProbes;
+        this.window = new boolean[windowSize];
+    }
+
+    /**
+     * Разрешение на запрос
+     * @return эпоха, которую нужно передать в onResult, или NOT_PERMITTED
+     */
+    public synchronized long tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAt < openDurationNanos) {
+                notPermitted.increment();
+                return NOT_PERMITTED;
+            }
+            transition(State.HALF_OPEN);
+        }
+
+        if (state == State.HALF_OPEN) {
+            if (probesInFlight + probeSuccesses >= halfOpenProbes) {
+                notPermitted.increment();
+                return NOT_PERMITTED;
+            }
+            probesInFlight++;
+        }
+
+        return epoch;
+    }
+
+    /**
+     * Учёт исхода разрешённого запроса
+     * @param permitEpoch значение, полученное от tryAcquire
+     * @param failed true, если сервис не ответил или ответил ошибкой 5xx
+     */
+    public synchronized void onResult(long permitEpoch, boolean failed) {
+        if (permitEpoch != epoch)
+            return;
+
+        if (state == State.HALF_OPEN) {
+            probesInFlight--;
+            if (failed) {
+                transition(State.OPEN);
+            } else if (++probeSuccesses >= halfOpenProbes) {
+                transition(State.CLOSED);
+            }
+            return;
+        }
+
+        if (state != State.CLOSED)
+            return;
+
+        if (windowCount == windowSize) {
+            if (window[windowPos])
+                windowFailures--;
+        } else {
+            windowCount++;
+        }
+        window[windowPos] = failed;
+        if (failed)
+            windowFailures++;
+        windowPos = (windowPos + 1) % windowSize;
+
+        if (windowCount >= minimumCalls && windowFailures * 100 >= failureRateThreshold * windowCount)
+            transition(State.OPEN);
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Доля ошибок в окне замкнутого состояния, в процентах
+     */
+    public synchronized int getFailureRate() {
+        return windowCount == 0 ? 0 : windowFailures * 100 / windowCount;
+    }
+
+    public long getNotPermitted() {
+        return notPermitted.sum();
+    }
+
+    public long getOpenedCount() {
+        return openedCount.sum();
+    }
+
+    private void transition(State next) {
+        state = next;
+        epoch++;
+        probesInFlight = 0;
+        probeSuccesses = 0;
+
+        if (next == State.OPEN) {
+            openedAt = System.nanoTime();
+            openedCount.increment();
+        } else if (next == State.CLOSED) {
+            windowPos = 0;
+            windowCount = 0;
+            windowFailures = 0;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.gatewayservice.resilience;
+
+import com.gatewayservice.client.Downstream;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Автоматы защиты и ограничения одновременных запросов для всех нижележащих сервисов
+ */
+public class DownstreamGuards {
+    private final Map<Downstream, CircuitBreaker> breakers = new EnumMap<>(Downstream.class);
+    private final Map<Downstream, Bulkhead> bulkheads = new EnumMap<>(Downstream.class);
+
+    public void add(Downstream downstream, CircuitBreaker breaker, Bulkhead bulkhead) {
+        breakers.put(downstream, breaker);
+        bulkheads.put(downstream, bulkhead);
+    }
+
+    public CircuitBreaker breaker(Downstream downstream) {
+        return breakers.get(downstream);
+    }
+
+    public Bulkhead bulkhead(Downstream downstream) {
+        return bulkheads.get(downstream);
+    }
+
+    public ArrayList<ResilienceStats> getStats() {
+        ArrayList<ResilienceStats> stats = new ArrayList<>();
+        for (Map.Entry<Downstream, CircuitBreaker> e : breakers.entrySet()) {
+            CircuitBreaker breaker = e.getValue();
+            Bulkhead bulkhead = bulkheads.get(e.getKey());
+            stats.add(new ResilienceStats(e.getKey().name().toLowerCase(Locale.ROOT), breaker.getState().name(),
+                    breaker.getFailureRate(), breaker.getOpenedCount(), breaker.getNotPermitted(),
+                    bulkhead.getMaxConcurrent(), bulkhead.getInUse(), bulkhead.getRejected()));
+        }
+        return stats;
+    }
+}
@@ -0,0 +1,21 @@
+package com.gatewayservice.resilience;
+
+import com.gatewayservice.client.Downstream;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Запрос к нижележащему сервису не отправлен: автомат разомкнут или исчерпан лимит одновременных запросов
+ */
+public class DownstreamRejectedException extends RejectedExecutionException {
+    private final Downstream downstream;
+
+    public DownstreamRejectedException(Downstream downstream, String reason) {
+        super("Запрос к сервису " + downstream + " отклонён: " + reason);
+        this.downstream = downstream;
+    }
+
+    public Downstream getDownstream() {
+        return downstream;
+    }
+}
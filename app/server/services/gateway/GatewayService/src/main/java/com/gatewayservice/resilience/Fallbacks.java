@@ -0,0 +1,53 @@
+package com.gatewayservice.resilience;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.UnknownHttpStatusCodeException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Запасные ответы для данных из некритичных источников
+ */
+public final class Fallbacks {
+    private static final Logger log = LoggerFactory.getLogger(Fallbacks.class);
+
+    private Fallbacks() {
+    }
+
+    /**
+     * Сервис недоступен: запрос отклонён шлюзом, не получил ответа (ошибка ввода-вывода или таймаут)
+     * или получил ответ 5xx либо с нестандартным кодом
+     * Остальные ошибки (ответ 4xx, неразборчивое тело ответа, ошибка сериализации, ошибка в коде шлюза)
+     * не говорят о недоступности сервиса: они не размыкают автомат защиты, не повторяются
+     * и не заменяются запасным ответом
+     */
+    public static boolean isUnavailable(Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        return cause instanceof ResourceAccessException
+                || cause instanceof HttpServerErrorException
+                || cause instanceof UnknownHttpStatusCodeException
+                || cause instanceof DownstreamRejectedException;
+    }
+
+    /**
+     * Замена результата запасным значением, если сервис недоступен
+     * @param request запрос к сервису
+     * @param what описание данных для журнала
+     * @param fallback запасное значение
+     */
+    public static <T> CompletableFuture<T> orElse(CompletableFuture<T> request, String what, Supplier<T> fallback) {
+        return request.exceptionally(e -> {
+            if (!isUnavailable(e))
+                throw e instanceof CompletionException ? (CompletionException) e : new CompletionException(e);
+
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            log.warn("Вместо {} возвращён запасной ответ: {}", what, cause.getMessage());
+            return fallback.get();
+        });
+    }
+}
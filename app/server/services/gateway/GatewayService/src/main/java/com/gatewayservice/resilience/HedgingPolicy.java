@@ -0,0 +1,166 @@
+package com.gatewayservice.resilience;
+
+import com.gatewayservice.client.Downstream;
+import com.gatewayservice.metrics.LatencyHistogram;
+import org.springframework.http.HttpMethod;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Настройки и состояние параллельных и повторных запросов
+ * Задержка параллельного запроса - процентиль длительности успешных запросов операции за предыдущее окно,
+ * но не меньше minDelay; пока в окне меньше minSamples запросов, параллельный запрос не отправляется.
+ * У каждого сервиса свой бюджет дополнительных запросов
+ */
+public class HedgingPolicy {
+    /**
+     * Длительности запросов операции в двух окнах: в текущем копятся, по предыдущему считается задержка
+     */
+    private static final class LatencyWindow {
+        volatile LatencyHistogram current = new LatencyHistogram();
+        volatile LatencyHistogram previous = new LatencyHistogram();
+        volatile long startedAt = System.nanoTime();
+    }
+
+    /**
+     * Счётчики дополнительных запросов одного сервиса
+     */
+    private static final class Counters {
+        final RetryBudget budget;
+        final LongAdder hedges = new LongAdder();
+        final LongAdder hedgeWins = new LongAdder();
+        final LongAdder retries = new LongAdder();
+
+        Counters(RetryBudget budget) {
+            this.budget = budget;
+        }
+    }
+
+    private final Set<String> operations;
+    private final double percentile;
+    private final long minDelayNanos;
+    private final long minSamples;
+    private final long windowNanos;
+
+    private final Map<Downstream, Counters> counters = new EnumMap<>(Downstream.class);
+    private final ConcurrentHashMap<String, LatencyWindow> latencies = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService timer;
+
+    /**
+     * @param operations операции GET, для которых разрешены дополнительные запросы; пустой набор отключает их
+     * @param percentile процентиль длительности, после которого отправляется параллельный запрос
+     * @param minDelayMs наименьшая задержка параллельного запроса
+     * @param minSamples наименьшее число запросов в окне, по которому считается задержка
+     * @param windowMs длительность окна
+     * @param budgetPercent допустимая доля дополнительных запросов в процентах
+     * @param budgetBurst наибольший запас дополнительных запросов
+     */
+    public HedgingPolicy(Collection<String> operations, double percentile, long minDelayMs, long minSamples,
+                         long windowMs, int budgetPercent, int budgetBurst) {
+        this.operations = new HashSet<>(operations);
+        this.percentile = percentile;
+        this.minDelayNanos = minDelayMs * 1_000_000L;
+        this.minSamples = minSamples;
+        this.windowNanos = windowMs * 1_000_000L;
+
+        for (Downstream downstream : Downstream.values())
+            counters.put(downstream, new Counters(new RetryBudget(budgetPercent, budgetBurst)));
+
+        this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "hedging-timer");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public void shutdown() {
+        timer.shutdownNow();
+    }
+
+    /**
+     * Разрешены ли для запроса дополнительные запросы: только для перечисленных операций GET
+     */
+    public boolean isHedged(String operation, HttpMethod method) {
+        return method == HttpMethod.GET && operations.contains(operation);
+    }
+
+    /**
+     * Задержка параллельного запроса
+     * @return задержка в наносекундах или -1, если параллельный запрос отправлять не нужно
+     */
+    public long hedgeDelayNanos(Downstream target, String operation) {
+        LatencyWindow window = latencies.get(key(target, operation));
+        if (window == null)
+            return -1;
+
+        LatencyHistogram previous = window.previous;
+        long[] counts = previous.cumulativeCounts();
+        if (counts[counts.length - 1] < minSamples)
+            return -1;
+
+        long delay = previous.percentileNanos(percentile);
+        return delay == Long.MAX_VALUE ? -1 : Math.max(minDelayNanos, delay);
+    }
+
+    /**
+     * Учёт длительности успешного запроса
+     */
+    public void recordLatency(Downstream target, String operation, long nanos) {
+        LatencyWindow window = latencies.computeIfAbsent(key(target, operation), k -> new LatencyWindow());
+        long now = System.nanoTime();
+        if (now - window.startedAt >= windowNanos) {
+            synchronized (window) {
+                if (now - window.startedAt >= windowNanos) {
+                    window.previous = window.current;
+                    window.current = new LatencyHistogram();
+                    window.startedAt = now;
+                }
+            }
+        }
+        window.current.record(nanos);
+    }
+
+    public RetryBudget budget(Downstream target) {
+        return counters.get(target).budget;
+    }
+
+    public ScheduledExecutorService timer() {
+        return timer;
+    }
+
+    public void hedgeSent(Downstream target) {
+        counters.get(target).hedges.increment();
+    }
+
+    public void hedgeWon(Downstream target) {
+        counters.get(target).hedgeWins.increment();
+    }
+
+    public void retrySent(Downstream target) {
+        counters.get(target).retries.increment();
+    }
+
+    public ArrayList<HedgingStats> getStats() {
+        ArrayList<HedgingStats> stats = new ArrayList<>();
+        for (Map.Entry<Downstream, Counters> e : counters.entrySet()) {
+            Counters c = e.getValue();
+            stats.add(new HedgingStats(e.getKey().name().toLowerCase(Locale.ROOT), c.budget.getTokens(),
+                    c.hedges.sum(), c.hedgeWins.sum(), c.retries.sum(), c.budget.getExhausted()));
+        }
+        return stats;
+    }
+
+    private static String key(Downstream target, String operation) {
+        return target.name() + ' ' + operation;
+    }
+}
@@ -0,0 +1,38 @@
+package com.gatewayservice.resilience;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Дополнительные запросы к одному нижележащему сервису
+ */
+@Getter
+@AllArgsConstructor
+public class HedgingStats {
+    String downstream;
+
+    /**
+     * Маркеры в корзине бюджета
+     */
+    double budgetTokens;
+
+    /**
+     * Параллельные запросы, отправленные после задержки
+     */
+    long hedges;
+
+    /**
+     * Параллельные запросы, ответ на которые пришёл раньше исходного
+     */
+    long hedgeWins;
+
+    /**
+     * Повторы после ошибки исходного запроса
+     */
+    long retries;
+
+    /**
+     * Дополнительные запросы, не отправленные из-за исчерпанного бюджета
+     */
+    long budgetExhausted;
+}
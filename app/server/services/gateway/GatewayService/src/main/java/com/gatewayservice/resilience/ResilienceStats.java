@@ -0,0 +1,38 @@
+package com.gatewayservice.resilience;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Состояние защиты запросов к одному нижележащему сервису
+ */
+@Getter
+@AllArgsConstructor
+public class ResilienceStats {
+    String downstream;
+
+    /**
+     * Состояние автомата: CLOSED, OPEN или HALF_OPEN
+     */
+    String state;
+
+    /**
+     * Доля ошибок в окне автомата, в процентах
+     */
+    int failureRate;
+
+    long openedCount;
+
+    /**
+     * Запросы, отклонённые разомкнутым или полуоткрытым автоматом
+     */
+    long rejectedByBreaker;
+
+    int maxConcurrent;
+    int inUse;
+
+    /**
+     * Запросы, отклонённые из-за лимита одновременных запросов
+     */
+    long rejectedByBulkhead;
+}
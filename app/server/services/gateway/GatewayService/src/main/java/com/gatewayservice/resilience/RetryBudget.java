@@ -0,0 +1,73 @@
+package com.gatewayservice.resilience;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Бюджет дополнительных запросов к одному сервису (маркерная корзина)
+ * Каждый исходный запрос добавляет в корзину ratioPercent / 100 маркера, каждый дополнительный запрос
+ * (параллельный или повторный) забирает один маркер. Поэтому дополнительных запросов не больше ratioPercent
+ * процентов от исходных плюс burst, сколько бы запросов ни завершалось ошибкой. Корзина вначале пуста
+ */
+public class RetryBudget {
+    /**
+     * Маркеры хранятся в тысячных долях, чтобы вклад одного запроса был целым
+     */
+    private static final long SCALE = 1000;
+
+    private final long deposit;
+    private final long capacity;
+    private final AtomicLong tokens = new AtomicLong();
+    private final LongAdder exhausted = new LongAdder();
+
+    /**
+     * @param ratioPercent допустимая доля дополнительных запросов в процентах от исходных
+     * @param burst наибольшее число накопленных маркеров
+     */
+    public RetryBudget(int ratioPercent, int burst) {
+        if (ratioPercent < 0 || burst < 1)
+            throw new IllegalArgumentException("Доля запросов не может быть отрицательной, а запас - меньше 1");
+
+        this.deposit = ratioPercent * SCALE / 100;
+        this.capacity = burst * SCALE;
+    }
+
+    /**
+     * Учёт исходного запроса
+     */
+    public void deposit() {
+        long current;
+        do {
+            current = tokens.get();
+            if (current >= capacity)
+                return;
+        } while (!tokens.compareAndSet(current, Math.min(capacity, current + deposit)));
+    }
+
+    /**
+     * Разрешение на дополнительный запрос
+     * @return true, если маркер взят
+     */
+    public boolean tryWithdraw() {
+        long current;
+        do {
+            current = tokens.get();
+            if (current < SCALE) {
+                exhausted.increment();
+                return false;
+            }
+        } while (!tokens.compareAndSet(current, current - SCALE));
+        return true;
+    }
+
+    public double getTokens() {
+        return (double) tokens.get() / SCALE;
+    }
+
+    /**
+     * Дополнительные запросы, не отправленные из-за пустой корзины
+     */
+    public long getExhausted() {
+        return exhausted.sum();
+    }
+}
@@ -0,0 +1,26 @@
+package com.gatewayservice.saga;
+
+/**
+ * Действия, выполняемые после ответа клиенту
+ */
+public enum SagaAction {
+    /**
+     * Уменьшение числа доступных экземпляров книги после создания брони
+     */
+    RESERVE_COPY,
+
+    /**
+     * Увеличение числа доступных экземпляров книги после возврата
+     */
+    RELEASE_COPY,
+
+    /**
+     * Изменение рейтинга читателя по сроку возврата и состоянию книги
+     */
+    RATE_RETURN,
+
+    /**
+     * Компенсация RESERVE_COPY: отмена брони, если свободного экземпляра не оказалось
+     */
+    CANCEL_RESERVATION
+}
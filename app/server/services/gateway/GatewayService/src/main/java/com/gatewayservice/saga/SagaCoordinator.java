@@ -0,0 +1,301 @@
+package com.gatewayservice.saga;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gatewayservice.client.Downstream;
+import com.gatewayservice.client.DownstreamClient;
+import com.gatewayservice.dto.LibraryBookResponse;
+import com.gatewayservice.event.RatingEventBus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Координатор саг выдачи и возврата книг
+ * Запрос клиента выполняет только главный шаг (создание или закрытие брони) и записывает остальные шаги в outbox,
+ * после чего шаги выполняются в фоне. Ошибка 4xx считается окончательной: шаг завершается неудачей и,
+ * если у него есть компенсация, в outbox записывается компенсирующий шаг. Остальные ошибки повторяются
+ * с экспоненциальной задержкой. Шаг, выполненный, но не отмеченный до перезапуска, выполняется повторно.
+ * Поэтому запросы шагов несут идентификатор шага: библиотека и сервис рейтингов по нему отбрасывают
+ * повтор уже применённого изменения, а отмена брони идемпотентна сама по себе
+ */
+@Component
+public class SagaCoordinator {
+    private static final Logger log = LoggerFactory.getLogger(SagaCoordinator.class);
+
+    private final DownstreamClient client;
+
+    /**
+     * Очередь изменений рейтинга: RATE_RETURN завершается, когда пакет с изменением применён
+     */
+    private final RatingEventBus ratingEvents;
+
+    private final SagaOutbox outbox;
+    private final int maxAttempts;
+    private final long retryDelayMs;
+    private final long maxRetryDelayMs;
+
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder compensated = new LongAdder();
+
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Поток записи в outbox: сброс на диск не занимает потоки HTTP-клиента
+     */
+    private ExecutorService outboxWriter;
+
+    public SagaCoordinator(DownstreamClient client, RatingEventBus ratingEvents, ObjectMapper mapper,
+                           @Value("${gateway.saga.outbox-file:saga-outbox/outbox.jsonl}") String outboxFile,
+                           @Value("${gateway.saga.compact-threshold:10000}") int compactThreshold,
+                           @Value("${gateway.saga.max-attempts:10}") int maxAttempts,
+                           @Value("${gateway.saga.retry-delay:500ms}") Duration retryDelay,
+                           @Value("${gateway.saga.max-retry-delay:60s}") Duration maxRetryDelay) {
+        this.client = client;
+        this.ratingEvents = ratingEvents;
+        this.outbox = new SagaOutbox(Paths.get(outboxFile), mapper, compactThreshold);
+        this.maxAttempts = maxAttempts;
+        this.retryDelayMs = retryDelay.toMillis();
+        this.maxRetryDelayMs = maxRetryDelay.toMillis();
+    }
+
+    /**
+     * Восстановление шагов, не выполненных до остановки шлюза
+     */
+    @PostConstruct
+    public void start() throws IOException {
+        outboxWriter = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "saga-outbox");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "saga-scheduler");
+            t.setDaemon(true);
+            return t;
+        });
+
+        List<SagaStep> recovered = outbox.recover();
+        if (!recovered.isEmpty())
+            log.info("Восстановлено незавершённых шагов саг: {}", recovered.size());
+
+        for (SagaStep step : recovered)
+            schedule(step, 0);
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        scheduler.shutdownNow();
+        outboxWriter.shutdown();
+        try {
+            outboxWriter.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        outbox.close();
+    }
+
+    /**
+     * Бронь создана: нужно занять экземпляр книги
+     * @return завершается после записи шага в outbox
+     */
+    public CompletableFuture<Void> bookTaken(UUID reservationUid, String username, UUID libraryUid, UUID bookUid) {
+        return submit(Collections.singletonList(SagaStep.pending(reservationUid, SagaAction.RESERVE_COPY,
+                username, libraryUid, bookUid, null, false)));
+    }
+
+    /**
+     * Бронь закрыта: нужно вернуть экземпляр книги и изменить рейтинг читателя
+     * @return завершается после записи шагов в outbox
+     */
+    public CompletableFuture<Void> bookReturned(UUID reservationUid, String username, UUID libraryUid, UUID bookUid,
+                                                String condition, boolean expired) {
+        return submit(Arrays.asList(
+                SagaStep.pending(reservationUid, SagaAction.RELEASE_COPY, username, libraryUid, bookUid,
+                        null, false),
+                SagaStep.pending(reservationUid, SagaAction.RATE_RETURN, username, libraryUid, bookUid,
+                        condition, expired)));
+    }
+
+    public SagaStats getStats() {
+        return new SagaStats(outbox.getPendingCount(), completed.sum(), retried.sum(), failed.sum(),
+                compensated.sum());
+    }
+
+    /**
+     * Запись шагов в outbox и запуск их выполнения
+     */
+    private CompletableFuture<Void> submit(List<SagaStep> steps) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                outbox.append(steps);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Не удалось записать шаги саги в outbox", e);
+            }
+
+            for (SagaStep step : steps)
+                schedule(step, 0);
+        }, outboxWriter);
+    }
+
+    private void schedule(SagaStep step, long delayMs) {
+        scheduler.schedule(() -> run(step), delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void run(SagaStep step) {
+        CompletableFuture<Void> result;
+        try {
+            result = execute(step);
+        } catch (RuntimeException e) {
+            result = new CompletableFuture<>();
+            result.completeExceptionally(e);
+        }
+
+        result.whenCompleteAsync((ignored, e) -> {
+            try {
+                if (e == null)
+                    succeed(step);
+                else
+                    fail(step, e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+            } catch (IOException io) {
+                log.error("Не удалось записать состояние шага {} в outbox, шаг будет повторён", step.getId(), io);
+                schedule(step, maxRetryDelayMs);
+            }
+        }, outboxWriter);
+    }
+
+    private void succeed(SagaStep step) throws IOException {
+        outbox.append(Collections.singletonList(step.withStatus(SagaStep.Status.DONE)));
+        completed.increment();
+    }
+
+    private void fail(SagaStep step, Throwable cause) throws IOException {
+        boolean permanent = cause instanceof HttpClientErrorException;
+        if (!permanent && step.getAttempts() + 1 < maxAttempts) {
+            step.setAttempts(step.getAttempts() + 1);
+            outbox.append(Collections.singletonList(step));
+            retried.increment();
+
+            long delay = Math.min(maxRetryDelayMs, retryDelayMs << Math.min(step.getAttempts() - 1, 20));
+            log.warn("Шаг {} саги {} не выполнен ({}), повтор через {} мс",
+                    step.getAction(), step.getSagaId(), cause.getMessage(), delay);
+            schedule(step, delay);
+            return;
+        }
+
+        SagaStep compensation = compensationOf(step);
+        if (compensation != null) {
+            outbox.append(Arrays.asList(step.withStatus(SagaStep.Status.FAILED), compensation));
+            compensated.increment();
+            schedule(compensation, 0);
+        } else {
+            outbox.append(Collections.singletonList(step.withStatus(SagaStep.Status.FAILED)));
+        }
+
+        failed.increment();
+        log.error("Шаг {} саги {} завершился неудачей{}: {}", step.getAction(), step.getSagaId(),
+                compensation != null ? ", запущена компенсация" : "", cause.getMessage());
+    }
+
+    private static SagaStep compensationOf(SagaStep step) {
+        if (step.getAction() == SagaAction.RESERVE_COPY)
+            return SagaStep.pending(step.getSagaId(), SagaAction.CANCEL_RESERVATION, step.getUsername(),
+                    step.getLibraryUid(), step.getBookUid(), null, false);
+
+        return null;
+    }
+
+    private CompletableFuture<Void> execute(SagaStep step) {
+        switch (step.getAction()) {
+            case RESERVE_COPY:
+                return updAvailable(step, true);
+            case RELEASE_COPY:
+                return updAvailable(step, false);
+            case RATE_RETURN:
+                return rateReturn(step);
+            case CANCEL_RESERVATION:
+                return cancelReservation(step.getSagaId());
+            default:
+                throw new IllegalStateException("Неизвестный шаг саги: " + step.getAction());
+        }
+    }
+
+    /**
+     * Штраф 10 за просрочку и 10 за ухудшение состояния книги, иначе +1 за возврат в срок
+     */
+    private CompletableFuture<Void> rateReturn(SagaStep step) {
+        return getLibraryBookInfo(step.getLibraryUid(), step.getBookUid()).thenCompose(bookInfo -> {
+            int delta = step.isExpired() ? -10 : 0;
+            if (!bookInfo.getCondition().equals(step.getCondition()))
+                delta -= 10;
+            else if (!step.isExpired())
+                delta += 1;
+
+            return delta != 0 ? ratingEvents.publish(step.getId(), step.getUsername(), delta)
+                    : CompletableFuture.<Void>completedFuture(null);
+        });
+    }
+
+    /**
+     * Взятие или возврат экземпляра с идентификатором шага в качестве ключа операции:
+     * повтор шага после потерянного ответа или перезапуска не меняет число доступных книг второй раз
+     */
+    private CompletableFuture<Void> updAvailable(SagaStep step, boolean isRented) {
+        return client.send(
+                Downstream.LIBRARY,
+                "updAvailable",
+                "/api/v1/libraries/" + step.getLibraryUid().toString()
+                        + "/books/" + step.getBookUid().toString() + "?rent=" + Boolean.valueOf(isRented).toString(),
+                HttpMethod.PUT,
+                DownstreamClient.idempotencyHeaders(step.getId()),
+                null
+        );
+    }
+
+    private CompletableFuture<Void> cancelReservation(UUID reservationUid) {
+        return client.send(
+                Downstream.RESERVATIONS,
+                "cancelReservation",
+                "/api/v1/reservations/" + reservationUid.toString(),
+                HttpMethod.DELETE,
+                null,
+                null
+        );
+    }
+
+    private CompletableFuture<LibraryBookResponse> getLibraryBookInfo(UUID libraryUid, UUID bookUid) {
+        return client.exchange(
+                Downstream.LIBRARY,
+                "getLibraryBookInfo",
+                "/api/v1/libraries/" + libraryUid.toString() + "/books/" + bookUid.toString(),
+                HttpMethod.GET,
+                null,
+                null,
+                new ParameterizedTypeReference<LibraryBookResponse>() {
+                }
+        );
+    }
+}
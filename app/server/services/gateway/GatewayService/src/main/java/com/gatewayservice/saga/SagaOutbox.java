@@ -0,0 +1,153 @@
+package com.gatewayservice.saga;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Outbox шагов саг в локальном файле
+ * Файл состоит из строк JSON, каждая строка - снимок шага; запись сбрасывается на диск до возврата из append,
+ * поэтому шаг, принятый до ответа клиенту, переживает перезапуск шлюза.
+ * Когда строк становится больше порога, файл переписывается с одними незавершёнными шагами
+ */
+public class SagaOutbox implements Closeable {
+    private static final Logger log = LoggerFactory.getLogger(SagaOutbox.class);
+
+    private final Path file;
+    private final ObjectMapper mapper;
+    private final int compactThreshold;
+
+    /**
+     * Незавершённые шаги в порядке добавления
+     */
+    private final Map<UUID, SagaStep> pending = new LinkedHashMap<>();
+
+    private FileChannel channel;
+    private int records;
+
+    /**
+     * @param file файл outbox
+     * @param mapper сериализатор шагов
+     * @param compactThreshold число строк, после которого файл переписывается
+     */
+    public SagaOutbox(Path file, ObjectMapper mapper, int compactThreshold) {
+        this.file = file;
+        this.mapper = mapper;
+        this.compactThreshold = compactThreshold;
+    }
+
+    /**
+     * Чтение файла, оставшегося от прошлого запуска, и открытие его для записи
+     * Строка, оборванная сбоем, отбрасывается
+     * @return незавершённые шаги
+     */
+    public synchronized List<SagaStep> recover() throws IOException {
+        if (file.getParent() != null)
+            Files.createDirectories(file.getParent());
+
+        if (Files.exists(file)) {
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isEmpty())
+                        continue;
+
+                    try {
+                        track(mapper.readValue(line, SagaStep.class));
+                    } catch (IOException e) {
+                        log.warn("Пропущена повреждённая запись outbox: {}", line);
+                    }
+                }
+            }
+        }
+
+        compact();
+        return new ArrayList<>(pending.values());
+    }
+
+    /**
+     * Запись снимков шагов
+     */
+    public synchronized void append(Collection<SagaStep> steps) throws IOException {
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        for (SagaStep step : steps) {
+            buf.write(mapper.writeValueAsBytes(step));
+            buf.write('\n');
+        }
+
+        write(buf.toByteArray());
+        channel.force(false);
+
+        for (SagaStep step : steps)
+            track(step);
+        records += steps.size();
+
+        if (records > compactThreshold && records > 2 * pending.size())
+            compact();
+    }
+
+    public synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null && channel.isOpen())
+            channel.close();
+    }
+
+    private void track(SagaStep step) {
+        if (step.getStatus() == SagaStep.Status.PENDING)
+            pending.put(step.getId(), step);
+        else
+            pending.remove(step.getId());
+    }
+
+    /**
+     * Замена файла файлом с одними незавершёнными шагами
+     * Новый файл пишется рядом и подменяет старый атомарным переименованием
+     */
+    private void compact() throws IOException {
+        close();
+
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (SagaStep step : pending.values()) {
+                ByteBuffer line = ByteBuffer.wrap((mapper.writeValueAsString(step) + "\n")
+                        .getBytes(StandardCharsets.UTF_8));
+                while (line.hasRemaining())
+                    out.write(line);
+            }
+            out.force(true);
+        }
+
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        records = pending.size();
+    }
+
+    private void write(byte[] bytes) throws IOException {
+        ByteBuffer buf = ByteBuffer.wrap(bytes);
+        while (buf.hasRemaining())
+            channel.write(buf);
+    }
+}
@@ -0,0 +1,21 @@
+package com.gatewayservice.saga;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Снимок состояния координатора саг
+ */
+@Getter
+@AllArgsConstructor
+public class SagaStats {
+    /**
+     * Шаги, ещё не выполненные или ожидающие повтора
+     */
+    int pending;
+
+    long completed;
+    long retried;
+    long failed;
+    long compensated;
+}
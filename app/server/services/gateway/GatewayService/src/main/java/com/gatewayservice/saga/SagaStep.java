@@ -0,0 +1,64 @@
+package com.gatewayservice.saga;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * Шаг саги, записываемый в outbox
+ * Каждое изменение состояния шага дописывается в outbox отдельной строкой, актуальна последняя
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SagaStep {
+    public enum Status {
+        PENDING,
+        DONE,
+        FAILED
+    }
+
+    UUID id;
+
+    /**
+     * Сага, к которой относится шаг, совпадает с UUID брони
+     */
+    UUID sagaId;
+
+    SagaAction action;
+    Status status;
+
+    String username;
+    UUID libraryUid;
+    UUID bookUid;
+
+    /**
+     * Состояние книги при возврате, для RATE_RETURN
+     */
+    String condition;
+
+    /**
+     * Книга возвращена не в срок, для RATE_RETURN
+     */
+    boolean expired;
+
+    /**
+     * Число неудачных попыток выполнения
+     */
+    int attempts;
+
+    public static SagaStep pending(UUID sagaId, SagaAction action, String username, UUID libraryUid, UUID bookUid,
+                                   String condition, boolean expired) {
+        return new SagaStep(UUID.randomUUID(), sagaId, action, Status.PENDING, username, libraryUid, bookUid,
+                condition, expired, 0);
+    }
+
+    /**
+     * Копия шага с другим статусом
+     */
+    public SagaStep withStatus(Status status) {
+        return new SagaStep(id, sagaId, action, status, username, libraryUid, bookUid, condition, expired, attempts);
+    }
+}
@@ -1,64 +1,84 @@
 package com.gatewayservice.service;
 
+import com.gatewayservice.client.Downstream;
+import com.gatewayservice.client.DownstreamClient;
+import com.gatewayservice.dto.LibraryBookPaginationResponse;
 import com.gatewayservice.dto.LibraryBookResponse;
+import com.gatewayservice.dto.LibraryPaginationResponse;
 import com.gatewayservice.dto.LibraryResponse;
-import com.gatewayservice.dto.UserRatingResponse;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.ParameterizedTypeReference;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.HttpClientErrorException;
-import org.springframework.web.client.RestTemplate;
 
 import java.util.ArrayList;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 public class LibraryService {
-    private final RestTemplate restTemplate;
-    private final String serverUrl;
+    private final DownstreamClient client;
 
-    public LibraryService(RestTemplate restTemplate, @Value("${library.server.url}") String serverUrl) {
-        this.restTemplate = restTemplate;
-        this.serverUrl = serverUrl;
+    public LibraryService(DownstreamClient client) {
+        this.client = client;
     }
 
-    public ArrayList<LibraryResponse> getLibrariesByCity(String city) {
-        HttpEntity<String> entity = new HttpEntity<>("body");
-        ResponseEntity<ArrayList<LibraryResponse>> libs = null;
-        try {
-            libs = restTemplate.exchange(
-                    serverUrl + "/api/v1/libraries?city=" + city,
-                    HttpMethod.GET,
-                    entity,
-                    new ParameterizedTypeReference<ArrayList<LibraryResponse>>() {
-                    }
-            );
-        } catch (HttpClientErrorException e) {
-            e.printStackTrace();
-        }
+    public CompletableFuture<ArrayList<LibraryResponse>> getLibrariesByCity(String city) {
+        return client.exchange(
+                Downstream.LIBRARY,
+                "getLibrariesByCity",
+                "/api/v1/libraries?city=" + city,
+                HttpMethod.GET,
+                null,
+                null,
+                new ParameterizedTypeReference<ArrayList<LibraryResponse>>() {
+                }
+        );
+    }
 
-        return libs.getBody();
+    public CompletableFuture<ArrayList<LibraryBookResponse>> getBooksByLibrary(UUID libraryUid, boolean showAll) {
+        return client.exchange(
+                Downstream.LIBRARY,
+                "getBooksByLibrary",
+                "/api/v1/libraries/" + libraryUid + "/books?showAll=" + Boolean.valueOf(showAll).toString(),
+                HttpMethod.GET,
+                null,
+                null,
+                new ParameterizedTypeReference<ArrayList<LibraryBookResponse>>() {
+                }
+        );
     }
 
-    public ArrayList<LibraryBookResponse> getBooksByLibrary(UUID libraryUid, boolean showAll) {
-        HttpEntity<String> entity = new HttpEntity<>("body");
-        ResponseEntity<ArrayList<LibraryBookResponse>> books = null;
-        try {
-            books = restTemplate.exchange(
-                    serverUrl + "/api/v1/libraries/" + libraryUid + "/books?showAll=" + Boolean.valueOf(showAll).toString(),
-                    HttpMethod.GET,
-                    entity,
-                    new ParameterizedTypeReference<ArrayList<LibraryBookResponse>>() {
-                    }
-            );
-        } catch (HttpClientErrorException e) {
-            e.printStackTrace();
-        }
+    /**
+     * Получение одной страницы списка библиотек, страница формируется в сервисе библиотек
+     */
+    public CompletableFuture<LibraryPaginationResponse> getLibrariesByCity(String city, int page, int size) {
+        return client.exchange(
+                Downstream.LIBRARY,
+                "getLibrariesPage",
+                "/api/v1/libraries?city=" + city + "&page=" + page + "&size=" + size,
+                HttpMethod.GET,
+                null,
+                null,
+                new ParameterizedTypeReference<LibraryPaginationResponse>() {
+                }
+        );
+    }
 
-        return books.getBody();
+    /**
+     * Получение одной страницы списка книг в библиотеке, страница формируется в сервисе библиотек
+     */
+    public CompletableFuture<LibraryBookPaginationResponse> getBooksByLibrary(UUID libraryUid, boolean showAll,
+                                                                             int page, int size) {
+        return client.exchange(
+                Downstream.LIBRARY,
+                "getBooksPage",
+                "/api/v1/libraries/" + libraryUid + "/books?showAll=" + Boolean.valueOf(showAll).toString()
+                        + "&page=" + page + "&size=" + size,
+                HttpMethod.GET,
+                null,
+                null,
+                new ParameterizedTypeReference<LibraryBookPaginationResponse>() {
+                }
+        );
     }
 }
@@ -1,41 +1,64 @@
 package com.gatewayservice.service;
 
+import com.gatewayservice.cache.TtlCache;
+import com.gatewayservice.client.Downstream;
+import com.gatewayservice.client.DownstreamClient;
 import com.gatewayservice.dto.UserRatingResponse;
+import com.gatewayservice.resilience.Fallbacks;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.ParameterizedTypeReference;
-import org.springframework.http.*;
+import org.springframework.http.HttpMethod;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.HttpClientErrorException;
-import org.springframework.web.client.RestTemplate;
+
+import java.util.concurrent.CompletableFuture;
 
 @Service
 public class RatingService {
-    private final RestTemplate restTemplate;
-    private final String serverUrl;
+    private final DownstreamClient client;
+
+    /**
+     * Последние полученные рейтинги читателей
+     */
+    private final TtlCache<String, UserRatingResponse> lastKnownRatings;
 
-    public RatingService(RestTemplate restTemplate, @Value("${rating.server.url}") String serverUrl) {
-        this.restTemplate = restTemplate;
-        this.serverUrl = serverUrl;
+    /**
+     * Рейтинг, который отдаётся при недоступности сервиса, если последний рейтинг читателя неизвестен
+     */
+    private final int defaultRating;
+
+    public RatingService(DownstreamClient client,
+                         TtlCache<String, UserRatingResponse> lastKnownRatings,
+                         @Value("${gateway.resilience.default-rating:1}") int defaultRating) {
+        this.client = client;
+        this.lastKnownRatings = lastKnownRatings;
+        this.defaultRating = defaultRating;
     }
 
-    public UserRatingResponse getUserRating(String username) {
-        HttpHeaders headers = new HttpHeaders();
-        headers.set("X-User-Name", username);
-
-        HttpEntity<String> entity = new HttpEntity<>("body", headers);
-        ResponseEntity<UserRatingResponse> rating = null;
-        try {
-            rating = restTemplate.exchange(
-                    serverUrl + "/api/v1/rating",
-                    HttpMethod.GET,
-                    entity,
-                    new ParameterizedTypeReference<UserRatingResponse>() {
-                    }
-            );
-        } catch (HttpClientErrorException e) {
-            e.printStackTrace();
-        }
-
-        return rating.getBody();
+    /**
+     * Получение рейтинга читателя
+     * Если сервис рейтингов недоступен или запрос к нему отклонён, возвращается последний известный рейтинг
+     * читателя, а если его нет - рейтинг по умолчанию
+     * @param username имя читателя
+     * @return рейтинг читателя
+     */
+    public CompletableFuture<UserRatingResponse> getUserRating(String username) {
+        CompletableFuture<UserRatingResponse> request = client.exchange(
+                Downstream.RATING,
+                "getUserRating",
+                "/api/v1/rating",
+                HttpMethod.GET,
+                DownstreamClient.userHeaders(username),
+                null,
+                new ParameterizedTypeReference<UserRatingResponse>() {
+                }
+        ).thenApply(rating -> {
+            lastKnownRatings.put(username, new UserRatingResponse(rating.getStars()));
+            return rating;
+        });
+
+        return Fallbacks.orElse(request, "рейтинга " + username, () -> {
+            UserRatingResponse known = lastKnownRatings.getIfPresent(username);
+            return new UserRatingResponse(known != null ? known.getStars() : defaultRating);
+        });
     }
 }
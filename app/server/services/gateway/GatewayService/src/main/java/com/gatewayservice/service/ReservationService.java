@@ -1,307 +1,503 @@
 package com.gatewayservice.service;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gatewayservice.cache.TtlCache;
+import com.gatewayservice.client.Downstream;
+import com.gatewayservice.client.DownstreamClient;
 import com.gatewayservice.dto.*;
-import org.apache.catalina.User;
-import org.springframework.beans.factory.annotation.Value;
+import com.gatewayservice.resilience.Fallbacks;
+import com.gatewayservice.saga.SagaCoordinator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.core.ParameterizedTypeReference;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.HttpClientErrorException;
-import org.springframework.web.client.RestTemplate;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @Service
 public class ReservationService {
-    private final RestTemplate restTemplate;
-    private final String ratingServerUrl;
-    private final String libServerUrl;
-    private final String reservServerUrl;
-
-    public ReservationService(RestTemplate restTemplate, @Value("${library.server.url}") String libServerUrl,
-                              @Value("${rating.server.url}") String ratingServerUrl,
-                              @Value("${reservations.server.url}") String reservServerUrl) {
-        this.restTemplate = restTemplate;
-        this.libServerUrl = libServerUrl;
-        this.ratingServerUrl = ratingServerUrl;
-        this.reservServerUrl = reservServerUrl;
+    private static final Logger log = LoggerFactory.getLogger(ReservationService.class);
+
+    /**
+     * Максимальное число UUID в одном пакетном запросе, ограничивает длину строки запроса
+     */
+    private static final int BATCH_SIZE = 100;
+
+    /**
+     * Клиент для запросов к нижележащим сервисам
+     */
+    private final DownstreamClient client;
+
+    /**
+     * Кэши информации о книгах и библиотеках
+     */
+    private final TtlCache<UUID, BookInfo> bookInfoCache;
+    private final TtlCache<UUID, LibraryResponse> libraryInfoCache;
+
+    /**
+     * Координатор шагов, выполняемых после ответа клиенту
+     */
+    private final SagaCoordinator sagas;
+
+    /**
+     * Рейтинги читателей с запасным ответом при недоступности сервиса рейтингов
+     */
+    private final RatingService ratingService;
+
+    private final ObjectMapper mapper;
+
+    public ReservationService(DownstreamClient client,
+                              TtlCache<UUID, BookInfo> bookInfoCache,
+                              TtlCache<UUID, LibraryResponse> libraryInfoCache,
+                              SagaCoordinator sagas,
+                              RatingService ratingService,
+                              ObjectMapper mapper) {
+        this.client = client;
+        this.bookInfoCache = bookInfoCache;
+        this.libraryInfoCache = libraryInfoCache;
+        this.sagas = sagas;
+        this.ratingService = ratingService;
+        this.mapper = mapper;
     }
 
-    private BookInfo getBookInfo(UUID bookUid) {
-        HttpEntity<String> entity = new HttpEntity<>("body");
-        ResponseEntity<BookInfo> book = null;
-
-        try {
-            book = restTemplate.exchange(
-                    libServerUrl + "/api/v1/books/" + bookUid.toString(),
-                    HttpMethod.GET,
-                    entity,
-                    new ParameterizedTypeReference<BookInfo>() {
-                    }
-            );
-        } catch (HttpClientErrorException e) {
-            e.printStackTrace();
-        }
-
-        return book.getBody();
+    /**
+     * Информация о книге; если сервис библиотек недоступен, возвращается книга с одним UUID
+     */
+    private CompletableFuture<BookInfo> getBookInfo(UUID bookUid) {
+        return Fallbacks.orElse(bookInfoCache.getAsync(bookUid, this::fetchBookInfo), "информации о книге",
+                () -> bookStub(bookUid));
     }
 
-    private LibraryResponse getLibraryInfo(UUID libraryUid) {
-        HttpEntity<String> entity = new HttpEntity<>("body");
-        ResponseEntity<LibraryResponse> lib = null;
-
-        try {
-            lib = restTemplate.exchange(
-                    libServerUrl + "/api/v1/libraries/" + libraryUid.toString(),
-                    HttpMethod.GET,
-                    entity,
-                    new ParameterizedTypeReference<LibraryResponse>() {
-                    }
-            );
-        } catch (HttpClientErrorException e) {
-            e.printStackTrace();
-        }
-
-        return lib.getBody();
+    /**
+     * Информация о библиотеке; если сервис библиотек недоступен, возвращается библиотека с одним UUID
+     */
+    private CompletableFuture<LibraryResponse> getLibraryInfo(UUID libraryUid) {
+        return Fallbacks.orElse(libraryInfoCache.getAsync(libraryUid, this::fetchLibraryInfo),
+                "информации о библиотеке", () -> libraryStub(libraryUid));
     }
 
-    private ReservationResponse getReservationInfo(UUID reservationUid) {
-        HttpEntity<String> entity = new HttpEntity<>("body");
-        ResponseEntity<ReservationResponse> res = null;
-
-        try {
-            res = restTemplate.exchange(
-                    reservServerUrl + "/api/v1/reservations/" + reservationUid.toString(),
-                    HttpMethod.GET,
-                    entity,
-                    new ParameterizedTypeReference<ReservationResponse>() {
-                    }
-            );
-        } catch (HttpClientErrorException e) {
-            e.printStackTrace();
-        }
-
-        return res.getBody();
+    private static BookInfo bookStub(UUID bookUid) {
+        return new BookInfo(bookUid.toString(), null, null, null);
     }
 
-    private LibraryBookResponse getLibraryBookInfo(UUID libraryUid, UUID bookUid) {
-        HttpEntity<String> entity = new HttpEntity<>("body");
-        ResponseEntity<LibraryBookResponse> book = null;
-
-        try {
-            book = restTemplate.exchange(
-                    libServerUrl + "/api/v1/libraries/" + libraryUid.toString()
-                            + "/books/" + bookUid.toString(),
-                    HttpMethod.GET,
-                    entity,
-                    new ParameterizedTypeReference<LibraryBookResponse>() {
-                    }
-            );
-        } catch (HttpClientErrorException e) {
-            e.printStackTrace();
-        }
-
-        return book.getBody();
+    private static LibraryResponse libraryStub(UUID libraryUid) {
+        return new LibraryResponse(libraryUid, null, null, null);
     }
 
-    private int countRented(String username) {
-        HttpHeaders headers = new HttpHeaders();
-        headers.set("X-User-Name", username);
-
-        HttpEntity<String> entity = new HttpEntity<>("body", headers);
-        ResponseEntity<Integer> rented = null;
-        try {
-            rented = restTemplate.exchange(
-                    reservServerUrl + "/api/v1/reservations/rented",
-                    HttpMethod.GET,
-                    entity,
-                    new ParameterizedTypeReference<Integer>() {
-                    }
-            );
-        } catch (HttpClientErrorException e) {
-            e.printStackTrace();
-        }
-
-        return rented.getBody();
+    private CompletableFuture<BookInfo> fetchBookInfo(UUID bookUid) {
+        return client.exchange(
+                Downstream.LIBRARY,
+                "getBookInfo",
+                "/api/v1/books/" + bookUid.toString(),
+                HttpMethod.GET,
+                null,
+                null,
+                new ParameterizedTypeReference<BookInfo>() {
+                }
+        );
     }
 
-    private UserRatingResponse getRating(String username) {
-        HttpHeaders headers = new HttpHeaders();
-        headers.set("X-User-Name", username);
+    private CompletableFuture<LibraryResponse> fetchLibraryInfo(UUID libraryUid) {
+        return client.exchange(
+                Downstream.LIBRARY,
+                "getLibraryInfo",
+                "/api/v1/libraries/" + libraryUid.toString(),
+                HttpMethod.GET,
+                null,
+                null,
+                new ParameterizedTypeReference<LibraryResponse>() {
+                }
+        );
+    }
 
-        HttpEntity<String> entity = new HttpEntity<>("body", headers);
-        ResponseEntity<UserRatingResponse> rating = null;
-        try {
-            rating = restTemplate.exchange(
-                    ratingServerUrl + "/api/v1/rating",
-                    HttpMethod.GET,
-                    entity,
-                    new ParameterizedTypeReference<UserRatingResponse>() {
-                    }
-            );
-        } catch (HttpClientErrorException e) {
-            e.printStackTrace();
-        }
+    private CompletableFuture<Map<UUID, BookInfo>> getBooksInfo(Collection<UUID> bookUids) {
+        return client.exchange(
+                Downstream.LIBRARY,
+                "getBooksInfo",
+                "/api/v1/books?uids=" + joinUids(bookUids),
+                HttpMethod.GET,
+                null,
+                null,
+                new ParameterizedTypeReference<ArrayList<BookInfo>>() {
+                }
+        ).thenApply(books -> {
+            Map<UUID, BookInfo> byUid = new HashMap<>();
+            for (BookInfo book : books)
+                byUid.put(UUID.fromString(book.getBookUid()), book);
+
+            return byUid;
+        });
+    }
 
-        return rating.getBody();
+    private CompletableFuture<Map<UUID, LibraryResponse>> getLibrariesInfo(Collection<UUID> libraryUids) {
+        return client.exchange(
+                Downstream.LIBRARY,
+                "getLibrariesInfo",
+                "/api/v1/libraries?uids=" + joinUids(libraryUids),
+                HttpMethod.GET,
+                null,
+                null,
+                new ParameterizedTypeReference<ArrayList<LibraryResponse>>() {
+                }
+        ).thenApply(libs -> {
+            Map<UUID, LibraryResponse> byUid = new HashMap<>();
+            for (LibraryResponse lib : libs)
+                byUid.put(lib.getLibraryUid(), lib);
+
+            return byUid;
+        });
     }
 
-    private void updateRating(String username, int delta) {
-        HttpHeaders headers = new HttpHeaders();
-        headers.set("X-User-Name", username);
+    private CompletableFuture<ReservationResponse> getReservationInfo(UUID reservationUid) {
+        return client.exchange(
+                Downstream.RESERVATIONS,
+                "getReservationInfo",
+                "/api/v1/reservations/" + reservationUid.toString(),
+                HttpMethod.GET,
+                null,
+                null,
+                new ParameterizedTypeReference<ReservationResponse>() {
+                }
+        );
+    }
 
-        HttpEntity<String> entity = new HttpEntity<>("body", headers);
-        try {
-            restTemplate.exchange(
-                    ratingServerUrl + "/api/v1/rating/?delta=" + Integer.valueOf(delta).toString(),
-                    HttpMethod.PUT,
-                    entity,
-                    void.class
-            );
-        } catch (HttpClientErrorException e) {
-            e.printStackTrace();
-        }
+    private CompletableFuture<Integer> countRented(String username) {
+        return client.exchange(
+                Downstream.RESERVATIONS,
+                "countRented",
+                "/api/v1/reservations/rented",
+                HttpMethod.GET,
+                DownstreamClient.userHeaders(username),
+                null,
+                new ParameterizedTypeReference<Integer>() {
+                }
+        );
     }
 
-    private ReservationResponse createReservation(String username, TakeBookRequest req) {
-        HttpHeaders headers = new HttpHeaders();
-        headers.set("X-User-Name", username);
+    private CompletableFuture<ReservationResponse> createReservation(String username, TakeBookRequest req) {
+        return client.exchange(
+                Downstream.RESERVATIONS,
+                "createReservation",
+                "/api/v1/reservations",
+                HttpMethod.POST,
+                DownstreamClient.userHeaders(username),
+                req,
+                new ParameterizedTypeReference<ReservationResponse>() {
+                }
+        );
+    }
 
-        HttpEntity<TakeBookRequest> entity = new HttpEntity<>(req, headers);
-        ResponseEntity<ReservationResponse> reservation = null;
-        try {
-            reservation = restTemplate.exchange(
-                    reservServerUrl + "/api/v1/reservations",
-                    HttpMethod.POST,
-                    entity,
-                    ReservationResponse.class);
-
-        } catch (HttpClientErrorException e) {
-            e.printStackTrace();
-        }
+    private CompletableFuture<Void> closeReservation(UUID reservationUid, boolean isExpired) {
+        return client.send(
+                Downstream.RESERVATIONS,
+                "closeReservation",
+                "/api/v1/reservations/" + reservationUid.toString()
+                        + "/return?isExpired=" + Boolean.valueOf(isExpired).toString(),
+                HttpMethod.POST,
+                null,
+                null
+        );
+    }
 
-        return reservation.getBody();
+    private CompletableFuture<Void> addUser(String username) {
+        return ignoreClientError(client.send(
+                Downstream.RATING,
+                "addUser",
+                "/api/v1/rating",
+                HttpMethod.POST,
+                DownstreamClient.userHeaders(username),
+                null
+        ));
     }
 
-    private void closeReservation(UUID reservationUid, boolean isExpired) {
-        HttpEntity<String> entity = new HttpEntity<>("body");
-        try {
-            restTemplate.exchange(
-                    reservServerUrl + "/api/v1/reservations/" + reservationUid.toString()
-                            + "/return?isExpired=" + Boolean.valueOf(isExpired).toString(),
-                    HttpMethod.PUT,
-                    entity,
-                    void.class);
-
-        } catch (HttpClientErrorException e) {
-            e.printStackTrace();
-        }
+    /**
+     * Ошибка 4xx в запросе без результата не прерывает сценарий, а только записывается в лог
+     */
+    private static CompletableFuture<Void> ignoreClientError(CompletableFuture<Void> request) {
+        return request.exceptionally(e -> {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if (!(cause instanceof HttpClientErrorException))
+                throw e instanceof CompletionException ? (CompletionException) e : new CompletionException(e);
+
+            log.warn("Запрос к сервису завершился ошибкой: {}", cause.getMessage());
+            return null;
+        });
     }
 
-    private void updAvailable(TakeBookRequest req, boolean isRented) {
-        HttpEntity<String> entity = new HttpEntity<>("body");
+    /**
+     * Открытие потока броней пользователя; сервис броней отдаёт их по мере чтения из базы данных
+     * @param username имя пользователя
+     * @return поток JSON-массива броней, завершается после получения заголовков ответа
+     */
+    public CompletableFuture<InputStream> openReservations(String username) {
+        return client.openStream(Downstream.RESERVATIONS, "openReservations", "/api/v1/reservations",
+                DownstreamClient.userHeaders(username));
+    }
 
-        try {
-            restTemplate.exchange(
-                    libServerUrl + "/api/v1/libraries/" + req.getLibraryUid().toString()
-                            + "/books/" + req.getBookUid().toString() + "/?rent=" + Boolean.valueOf(isRented).toString(),
-                    HttpMethod.POST,
-                    entity,
-                    void.class);
-
-        } catch (HttpClientErrorException e) {
-            e.printStackTrace();
+    /**
+     * Потоковая запись броней с информацией о книгах и библиотеках
+     * Брони читаются из входного потока частями по BATCH_SIZE, каждая часть дополняется и сразу записывается,
+     * поэтому в памяти находится не больше одной части. Ошибка посреди записи обрывает ответ
+     * @param in поток JSON-массива броней от сервиса броней, закрывается по окончании
+     * @param out поток ответа клиенту
+     * @throws IOException при ошибке чтения, записи или дополнения броней
+     */
+    public void writeReservations(InputStream in, OutputStream out) throws IOException {
+        try (InputStream body = in;
+             JsonParser parser = mapper.getFactory().createParser(body);
+             JsonGenerator gen = mapper.getFactory().createGenerator(out)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY)
+                throw new IOException("Ожидался массив броней");
+
+            gen.writeStartArray();
+            ArrayList<ReservationResponse> chunk = new ArrayList<>(BATCH_SIZE);
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                chunk.add(mapper.readValue(parser, ReservationResponse.class));
+                if (chunk.size() == BATCH_SIZE) {
+                    writeChunk(chunk, gen);
+                    chunk.clear();
+                }
+            }
+            writeChunk(chunk, gen);
+            gen.writeEndArray();
         }
     }
 
-    private void addUser(String username) {
-        HttpHeaders headers = new HttpHeaders();
-        headers.set("X-User-Name", username);
+    private void writeChunk(ArrayList<ReservationResponse> chunk, JsonGenerator gen) throws IOException {
+        if (chunk.isEmpty())
+            return;
 
-        HttpEntity<String> entity = new HttpEntity<>("body", headers);
+        ArrayList<BookReservationResponse> enriched;
         try {
-            restTemplate.exchange(
-                    ratingServerUrl + "/api/v1/rating",
-                    HttpMethod.POST,
-                    entity,
-                    void.class
-            );
-        } catch (HttpClientErrorException e) {
-            e.printStackTrace();
+            enriched = enrichReservations(chunk).join();
+        } catch (CompletionException e) {
+            throw new IOException("Не удалось дополнить брони", e.getCause() != null ? e.getCause() : e);
         }
+
+        for (BookReservationResponse res : enriched)
+            gen.writeObject(res);
+        gen.flush();
     }
 
-    public ArrayList<BookReservationResponse> getAllReservations(String username) {
-        HttpHeaders headers = new HttpHeaders();
-        headers.set("X-User-Name", username);
+    /**
+     * Получение одной страницы истории броней, от новых к старым
+     * Информацией о книгах и библиотеках дополняются только брони этой страницы
+     * @param username имя пользователя
+     * @param size размер страницы
+     * @param status статус броней, null - брони в любом статусе
+     * @param cursor курсор предыдущей страницы, null - первая страница
+     * @return страница броней и курсор следующей страницы
+     */
+    public CompletableFuture<BookReservationPageResponse> getReservationsPage(String username, int size,
+                                                                             String status, String cursor) {
+        StringBuilder path = new StringBuilder("/api/v1/reservations?size=").append(size);
+        if (status != null)
+            path.append("&status=").append(status);
+        if (cursor != null)
+            path.append("&cursor=").append(cursor);
+
+        return client.exchange(
+                Downstream.RESERVATIONS,
+                "getReservationsPage",
+                path.toString(),
+                HttpMethod.GET,
+                DownstreamClient.userHeaders(username),
+                null,
+                new ParameterizedTypeReference<ReservationPageResponse>() {
+                }
+        ).thenCompose(page -> enrichReservations(page.getItems()).thenApply(items ->
+                new BookReservationPageResponse(page.getPageSize(), page.getNextCursor(), items)));
+    }
 
-        HttpEntity<String> entity = new HttpEntity<>("body", headers);
-        ResponseEntity<ArrayList<ReservationResponse>> reservations = null;
-        try {
-            reservations = restTemplate.exchange(
-                    reservServerUrl + "/api/v1/reservations",
-                    HttpMethod.GET,
-                    entity,
-                    new ParameterizedTypeReference<ArrayList<ReservationResponse>>() {
-                    }
-            );
-        } catch (HttpClientErrorException e) {
-            e.printStackTrace();
+    /**
+     * Дополнение броней информацией о книгах и библиотеках
+     * Книги и библиотеки берутся из кэша, отсутствующие запрашиваются один раз пакетными запросами,
+     * пакеты выполняются параллельно, результат собирается в исходном порядке броней.
+     * Если сервис библиотек недоступен, книги и библиотеки пакета заменяются объектами с одним UUID
+     * и в кэш не попадают
+     * @param reservations брони пользователя
+     * @return брони с информацией о книгах и библиотеках
+     */
+    private CompletableFuture<ArrayList<BookReservationResponse>> enrichReservations(
+            ArrayList<ReservationResponse> reservations) {
+        Set<UUID> bookUids = new LinkedHashSet<>();
+        Set<UUID> libraryUids = new LinkedHashSet<>();
+        for (ReservationResponse res : reservations) {
+            bookUids.add(res.getBookUid());
+            libraryUids.add(res.getLibraryUid());
         }
 
-        ArrayList<BookReservationResponse> allRes = new ArrayList<>();
-        for (ReservationResponse res : reservations.getBody()) {
-            BookInfo book = getBookInfo(res.getBookUid());
-            LibraryResponse lib = getLibraryInfo(res.getLibraryUid());
+        Map<UUID, BookInfo> books = bookInfoCache.getAllPresent(bookUids);
+        Map<UUID, LibraryResponse> libs = libraryInfoCache.getAllPresent(libraryUids);
+        bookUids.removeAll(books.keySet());
+        libraryUids.removeAll(libs.keySet());
+
+        List<List<UUID>> bookUidBatches = partition(bookUids);
+        List<CompletableFuture<Map<UUID, BookInfo>>> bookBatches = new ArrayList<>();
+        for (List<UUID> batch : bookUidBatches)
+            bookBatches.add(Fallbacks.orElse(getBooksInfo(batch), "информации о книгах", () -> null));
+
+        List<List<UUID>> libraryUidBatches = partition(libraryUids);
+        List<CompletableFuture<Map<UUID, LibraryResponse>>> libraryBatches = new ArrayList<>();
+        for (List<UUID> batch : libraryUidBatches)
+            libraryBatches.add(Fallbacks.orElse(getLibrariesInfo(batch), "информации о библиотеках", () -> null));
+
+        List<CompletableFuture<?>> all = new ArrayList<>(bookBatches);
+        all.addAll(libraryBatches);
+
+        return CompletableFuture.allOf(all.toArray(new CompletableFuture[0])).thenApply(ignored -> {
+            for (int i = 0; i < bookBatches.size(); i++) {
+                Map<UUID, BookInfo> fetched = bookBatches.get(i).join();
+                if (fetched == null) {
+                    for (UUID uid : bookUidBatches.get(i))
+                        books.put(uid, bookStub(uid));
+                    continue;
+                }
+                bookInfoCache.putAll(fetched);
+                books.putAll(fetched);
+            }
+
+            for (int i = 0; i < libraryBatches.size(); i++) {
+                Map<UUID, LibraryResponse> fetched = libraryBatches.get(i).join();
+                if (fetched == null) {
+                    for (UUID uid : libraryUidBatches.get(i))
+                        libs.put(uid, libraryStub(uid));
+                    continue;
+                }
+                libraryInfoCache.putAll(fetched);
+                libs.putAll(fetched);
+            }
+
+            ArrayList<BookReservationResponse> allRes = new ArrayList<>(reservations.size());
+            for (ReservationResponse res : reservations) {
+                BookInfo book = books.get(res.getBookUid());
+                LibraryResponse lib = libs.get(res.getLibraryUid());
+
+                allRes.add(new BookReservationResponse(res.getReservationUid(),
+                        res.getStatus(), res.getStartDate(), res.getTillDate(), book, lib));
+            }
+
+            return allRes;
+        });
+    }
 
-            allRes.add(new BookReservationResponse(res.getReservationUid(),
-                    res.getStatus(), res.getStartDate(), res.getTillDate(), book, lib));
+    /**
+     * Разбиение набора UUID на пакеты не длиннее BATCH_SIZE
+     */
+    private static List<List<UUID>> partition(Set<UUID> uids) {
+        List<List<UUID>> batches = new ArrayList<>();
+        List<UUID> current = new ArrayList<>(BATCH_SIZE);
+        for (UUID uid : uids) {
+            current.add(uid);
+            if (current.size() == BATCH_SIZE) {
+                batches.add(current);
+                current = new ArrayList<>(BATCH_SIZE);
+            }
         }
+        if (!current.isEmpty())
+            batches.add(current);
 
-        return allRes;
+        return batches;
     }
 
-    public TakeBookResponse takeBook(String username, TakeBookRequest req) {
-        int rented = countRented(username);
-        UserRatingResponse rating = getRating(username);
-        if (rating.getStars() == 0) {
-            rating.setStars(1);
+    private static String joinUids(Collection<UUID> uids) {
+        StringBuilder sb = new StringBuilder(uids.size() * 37);
+        for (UUID uid : uids) {
+            if (sb.length() > 0)
+                sb.append(',');
+            sb.append(uid);
         }
-        if (rented >= rating.getStars())
-            System.out.println("Много");
-        ReservationResponse reservation = createReservation(username, req);
-        updAvailable(req, true);
-        return new TakeBookResponse(reservation.getReservationUid(), reservation.getStatus(),
-                reservation.getStartDate(), reservation.getTillDate(), getBookInfo(reservation.getBookUid()),
-                getLibraryInfo(reservation.getLibraryUid()), rating);
+        return sb.toString();
     }
 
-    public void returnBook(UUID reservationUid, String username, ReturnBookRequest req) {
-        ReservationResponse reservation = getReservationInfo(reservationUid);
-        boolean expired = LocalDate.parse(reservation.getTillDate(), DateTimeFormatter.ISO_DATE).isBefore(
-                LocalDate.parse(req.getDate(), DateTimeFormatter.ISO_DATE));
-
-        updAvailable(new TakeBookRequest(reservation.getBookUid(), reservation.getLibraryUid(),
-                reservation.getTillDate()), false);
-
-        closeReservation(reservationUid, expired);
-
-        if (expired)
-            updateRating(username, -10);
-
-        LibraryBookResponse bookInfo = getLibraryBookInfo(reservation.getLibraryUid(),
-                                                            reservation.getBookUid());
+    /**
+     * Профиль читателя для проверки перед выдачей книги
+     * Число книг на руках и рейтинг запрашиваются у разных сервисов параллельно;
+     * при недоступности сервиса рейтингов используется последний известный рейтинг или рейтинг по умолчанию
+     * @param username имя читателя
+     * @param timings длительности шагов
+     * @return число книг на руках, рейтинг и возможность взять ещё одну книгу
+     */
+    public CompletableFuture<BorrowerProfileResponse> getBorrowerProfile(String username, StepTimings timings) {
+        CompletableFuture<Integer> rented = timings.time("countRented", () -> countRented(username));
+        CompletableFuture<UserRatingResponse> rating = timings.time("getRating", () -> ratingService.getUserRating(username));
+
+        return rented.thenCombine(rating, (count, stars) -> {
+            if (stars.getStars() == 0) {
+                stars.setStars(1);
+            }
+            return new BorrowerProfileResponse(count, stars, count < stars.getStars());
+        });
+    }
 
-        if (!bookInfo.getCondition().equals(req.getCondition()))
-            updateRating(username, -10);
-        else if (!expired)
-            updateRating(username, 1);
+    /**
+     * Выдача книги читателю
+     * До ответа выполняются профиль читателя (два параллельных запроса) и создание брони,
+     * после чего экземпляр книги занимается в фоне координатором саг: если свободного экземпляра нет,
+     * бронь отменяется. Информация о книге и библиотеке запрашивается параллельно с записью в outbox
+     * @param username имя читателя
+     * @param req книга, библиотека и срок возврата
+     * @param timings длительности шагов
+     * @return бронь с информацией о книге, библиотеке и рейтинге читателя
+     */
+    public CompletableFuture<TakeBookResponse> takeBook(String username, TakeBookRequest req, StepTimings timings) {
+        return getBorrowerProfile(username, timings).thenCompose(profile -> {
+            if (!profile.isCanTakeBook())
+                log.warn("У читателя {} книг на руках: {}, что не меньше рейтинга {}; бронь всё равно создаётся",
+                        username, profile.getRentedCount(), profile.getRating().getStars());
+
+            return timings.time("createReservation", () -> createReservation(username, req))
+                    .thenCompose(reservation -> {
+                        CompletableFuture<BookInfo> book = timings.time("getBookInfo",
+                                () -> getBookInfo(reservation.getBookUid()));
+                        CompletableFuture<LibraryResponse> lib = timings.time("getLibraryInfo",
+                                () -> getLibraryInfo(reservation.getLibraryUid()));
+                        CompletableFuture<Void> outbox = timings.time("outbox",
+                                () -> sagas.bookTaken(reservation.getReservationUid(), username,
+                                        reservation.getLibraryUid(), reservation.getBookUid()));
+
+                        return CompletableFuture.allOf(outbox, book, lib).thenApply(ignored ->
+                                new TakeBookResponse(reservation.getReservationUid(), reservation.getStatus(),
+                                        reservation.getStartDate(), reservation.getTillDate(), book.join(),
+                                        lib.join(), profile.getRating()));
+                    });
+        });
+    }
 
+    /**
+     * Возврат книги
+     * До ответа бронь закрывается, возврат экземпляра и изменение рейтинга выполняются в фоне координатором саг
+     * @param reservationUid UUID закрываемой брони
+     * @param username имя читателя
+     * @param req дата возврата и состояние книги
+     */
+    public CompletableFuture<Void> returnBook(UUID reservationUid, String username, ReturnBookRequest req) {
+        return getReservationInfo(reservationUid).thenCompose(reservation -> {
+            boolean expired = LocalDate.parse(reservation.getTillDate(), DateTimeFormatter.ISO_DATE).isBefore(
+                    LocalDate.parse(req.getDate(), DateTimeFormatter.ISO_DATE));
+
+            return closeReservation(reservationUid, expired).thenCompose(ignored ->
+                    sagas.bookReturned(reservationUid, username, reservation.getLibraryUid(),
+                            reservation.getBookUid(), req.getCondition(), expired));
+        });
     }
 }
@@ -0,0 +1,60 @@
+package com.gatewayservice.service;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Длительности шагов одного сценария, в том числе выполняющихся параллельно
+ * Шаг длится от вызова до завершения его future; результат отдаётся клиенту в заголовке Server-Timing
+ */
+public class StepTimings {
+    public static final String HEADER = "Server-Timing";
+
+    private final long startNanos = System.nanoTime();
+    private final Map<String, Long> durations = new LinkedHashMap<>();
+
+    /**
+     * Выполнение шага с замером длительности
+     * @param step имя шага, допустимы латинские буквы, цифры и дефис
+     * @param call запуск шага
+     * @return future шага
+     */
+    public <T> CompletableFuture<T> time(String step, Supplier<CompletableFuture<T>> call) {
+        long start = System.nanoTime();
+        return call.get().whenComplete((result, e) -> record(step, System.nanoTime() - start));
+    }
+
+    /**
+     * Длительности завершившихся шагов в миллисекундах в порядке завершения
+     */
+    public synchronized Map<String, Double> getDurationsMs() {
+        Map<String, Double> ms = new LinkedHashMap<>();
+        for (Map.Entry<String, Long> e : durations.entrySet())
+            ms.put(e.getKey(), e.getValue() / 1e6);
+        return ms;
+    }
+
+    /**
+     * Значение заголовка Server-Timing: шаги и общая длительность сценария
+     */
+    public synchronized String toServerTiming() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, Long> e : durations.entrySet())
+            appendMetric(sb, e.getKey(), e.getValue());
+        appendMetric(sb, "total", System.nanoTime() - startNanos);
+        return sb.toString();
+    }
+
+    private synchronized void record(String step, long nanos) {
+        durations.merge(step, nanos, Long::sum);
+    }
+
+    private static void appendMetric(StringBuilder sb, String name, long nanos) {
+        if (sb.length() > 0)
+            sb.append(", ");
+        sb.append(name).append(";dur=").append(String.format(Locale.ROOT, "%.3f", nanos / 1e6));
+    }
+}
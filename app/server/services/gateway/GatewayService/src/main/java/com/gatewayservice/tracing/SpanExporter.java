@@ -0,0 +1,210 @@
+package com.gatewayservice.tracing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Экспорт завершённых операций трассы в формате Zipkin v2 (tracing.exporter)
+ * none - операции не сохраняются; file - по строке JSON на операцию в tracing.file;
+ * http - пакетами POST на tracing.collector-url, например /api/v2/spans локального Zipkin.
+ * Операции копятся в ограниченной очереди и пишутся отдельным потоком; при переполнении очереди
+ * операции отбрасываются, а не задерживают запросы
+ */
+@Component
+public class SpanExporter {
+    private static final Logger log = LoggerFactory.getLogger(SpanExporter.class);
+
+    private static final int BATCH_SIZE = 256;
+
+    /**
+     * Завершённая операция и имя сервиса, в котором она выполнялась
+     */
+    private static final class Finished {
+        final Span span;
+        final String serviceName;
+
+        Finished(Span span, String serviceName) {
+            this.span = span;
+            this.serviceName = serviceName;
+        }
+    }
+
+    private final String mode;
+    private final Path file;
+    private final String collectorUrl;
+    private final BlockingQueue<Finished> queue;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private final LongAdder dropped = new LongAdder();
+
+    private BufferedWriter writer;
+    private Thread worker;
+    private volatile boolean running;
+
+    public SpanExporter(@Value("${tracing.exporter:none}") String mode,
+                        @Value("${tracing.file:traces/spans.jsonl}") String file,
+                        @Value("${tracing.collector-url:http://localhost:9411/api/v2/spans}") String collectorUrl,
+                        @Value("${tracing.queue-capacity:10000}") int queueCapacity) {
+        this.mode = mode.toLowerCase(Locale.ROOT);
+        this.file = Paths.get(file);
+        this.collectorUrl = collectorUrl;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if ("none".equals(mode))
+            return;
+        if (!"file".equals(mode) && !"http".equals(mode))
+            throw new IllegalArgumentException("Неизвестный экспортёр трасс: " + mode);
+
+        if ("file".equals(mode)) {
+            if (file.getParent() != null)
+                Files.createDirectories(file.getParent());
+            writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                    StandardOpenOption.APPEND);
+        }
+
+        running = true;
+        worker = new Thread(this::run, "span-exporter");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Остановка экспорта; операции, уже стоящие в очереди, записываются
+     * Поток не прерывается: прерывание во время записи закрыло бы канал файла, и очередь была бы потеряна.
+     * Поток замечает остановку не позже чем через секунду ожидания очереди
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException, IOException {
+        if (worker == null)
+            return;
+
+        running = false;
+        worker.join(TimeUnit.SECONDS.toMillis(5));
+        if (writer != null)
+            writer.close();
+
+        if (dropped.sum() > 0)
+            log.warn("Отброшено операций трассы из-за переполнения очереди: {}", dropped.sum());
+    }
+
+    void export(Span span, String serviceName) {
+        if (worker == null)
+            return;
+
+        if (!queue.offer(new Finished(span, serviceName)))
+            dropped.increment();
+    }
+
+    private void run() {
+        List<Finished> batch = new ArrayList<>(BATCH_SIZE);
+        while (running || !queue.isEmpty()) {
+            try {
+                Finished first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null)
+                    continue;
+                batch.add(first);
+            } catch (InterruptedException e) {
+                if (running)
+                    continue;
+            }
+
+            queue.drainTo(batch, BATCH_SIZE - batch.size());
+            if (batch.isEmpty())
+                continue;
+
+            try {
+                if (writer != null)
+                    writeFile(batch);
+                else
+                    post(batch);
+            } catch (IOException e) {
+                log.warn("Не удалось экспортировать {} операций трассы: {}", batch.size(), e.getMessage());
+            }
+            batch.clear();
+        }
+    }
+
+    private void writeFile(List<Finished> batch) throws IOException {
+        for (Finished f : batch) {
+            writer.write(mapper.writeValueAsString(toJson(f)));
+            writer.newLine();
+        }
+        writer.flush();
+    }
+
+    private void post(List<Finished> batch) throws IOException {
+        ArrayNode body = mapper.createArrayNode();
+        for (Finished f : batch)
+            body.add(toJson(f));
+
+        HttpURLConnection connection = (HttpURLConnection) new URL(collectorUrl).openConnection();
+        try {
+            connection.setRequestMethod("POST");
+            connection.setConnectTimeout(2000);
+            connection.setReadTimeout(5000);
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "application/json");
+            try (OutputStream out = connection.getOutputStream()) {
+                mapper.writeValue(out, body);
+            }
+
+            int status = connection.getResponseCode();
+            if (status >= 300)
+                throw new IOException("Сборщик трасс ответил " + status);
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private ObjectNode toJson(Finished f) {
+        Span span = f.span;
+        ObjectNode node = mapper.createObjectNode();
+        node.put("traceId", span.context().getTraceId());
+        node.put("id", span.context().getSpanId());
+        if (span.getParentId() != null)
+            node.put("parentId", span.getParentId());
+        node.put("name", span.getName());
+        if (span.getKind() != Span.Kind.INTERNAL)
+            node.put("kind", span.getKind().name());
+        node.put("timestamp", span.getStartMicros());
+        node.put("duration", span.getDurationMicros());
+        node.putObject("localEndpoint").put("serviceName", f.serviceName);
+
+        Map<String, String> tags = span.getTags();
+        if (!tags.isEmpty()) {
+            ObjectNode tagsNode = node.putObject("tags");
+            for (Map.Entry<String, String> tag : tags.entrySet())
+                tagsNode.put(tag.getKey(), tag.getValue());
+        }
+        return node;
+    }
+}
@@ -0,0 +1,84 @@
+package com.libraryservice.benchmark;
+
+import com.libraryservice.dto.BookInfo;
+import com.libraryservice.dto.LibraryBookResponse;
+import com.libraryservice.dto.LibraryResponse;
+import com.libraryservice.entity.Book;
+import com.libraryservice.entity.Condition;
+import com.libraryservice.entity.Library;
+import com.libraryservice.mapper.BookMapper;
+import com.libraryservice.mapper.LibraryMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Преобразование сущностей книг и библиотек в DTO для страницы ответа
+ * Размер списка соответствует странице книг в библиотеке и ответу на пакетный запрос шлюза
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperBenchmark {
+    @Param({"10", "100", "1000"})
+    int size;
+
+    private final BookMapper bookMapper = new BookMapper();
+    private final LibraryMapper libraryMapper = new LibraryMapper();
+
+    private ArrayList<Book> books;
+    private ArrayList<Library> libraries;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        books = new ArrayList<>(size);
+        libraries = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            books.add(new Book(i, new UUID(random.nextLong(), random.nextLong()), "Краткий курс C++ в 7 томах " + i,
+                    "Бьерн Страуструп", "Научная фантастика", Condition.values()[i % 3], random.nextInt(10)));
+            libraries.add(new Library(i, new UUID(random.nextLong(), random.nextLong()),
+                    "Библиотека имени 7 Непьющих " + i, "Москва", "2-я Бауманская ул., д." + i));
+        }
+    }
+
+    @Benchmark
+    public ArrayList<LibraryBookResponse> toLibraryBookResponse() {
+        ArrayList<LibraryBookResponse> result = new ArrayList<>(books.size());
+        for (Book b : books)
+            result.add(bookMapper.toLibraryBookResponse(b));
+        return result;
+    }
+
+    @Benchmark
+    public ArrayList<BookInfo> toBookInfo() {
+        ArrayList<BookInfo> result = new ArrayList<>(books.size());
+        for (Book b : books)
+            result.add(bookMapper.toBookInfo(b));
+        return result;
+    }
+
+    @Benchmark
+    public ArrayList<LibraryResponse> toLibraryResponse() {
+        ArrayList<LibraryResponse> result = new ArrayList<>(libraries.size());
+        for (Library lib : libraries)
+            result.add(libraryMapper.toLibraryResponse(lib));
+        return result;
+    }
+}
@@ -0,0 +1,59 @@
+package com.libraryservice.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.libraryservice.dto.LibraryBookPaginationResponse;
+import com.libraryservice.dto.LibraryBookResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сериализация страницы книг в библиотеке, которую сервис отдаёт шлюзу
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+    @Param({"10", "100", "1000"})
+    int size;
+
+    private ObjectWriter writer;
+    private LibraryBookPaginationResponse page;
+
+    @Setup
+    public void setUp() {
+        writer = new ObjectMapper().writerFor(LibraryBookPaginationResponse.class);
+
+        Random random = new Random(42);
+        String[] conditions = {"EXCELLENT", "GOOD", "BAD"};
+        ArrayList<LibraryBookResponse> items = new ArrayList<>(size);
+        for (int i = 0; i < size; i++)
+            items.add(new LibraryBookResponse(new UUID(random.nextLong(), random.nextLong()),
+                    "Краткий курс C++ в 7 томах " + i, "Бьерн Страуструп", "Научная фантастика",
+                    conditions[i % 3], random.nextInt(10)));
+
+        page = new LibraryBookPaginationResponse(1, size, size * 10, items);
+    }
+
+    @Benchmark
+    public byte[] writeBooksPage() throws Exception {
+        return writer.writeValueAsBytes(page);
+    }
+}
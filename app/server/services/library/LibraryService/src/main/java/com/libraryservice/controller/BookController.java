@@ -11,9 +11,12 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Set;
 import java.util.UUID;
 
 @RestController
@@ -40,4 +43,23 @@ public class BookController {
         System.out.println(book.toString());
         return ResponseEntity.status(HttpStatus.OK).body(bookMapper.toBookInfo(book));
     }
+
+    /**
+     * Получение информации о нескольких книгах одним запросом
+     * @param bookUids UUID книг через запятую
+     * @return найденные книги, отсутствующие UUID пропускаются
+     * @throws SQLException при неуспешном подключении или внутренней ошибке базы данных
+     */
+    @Operation(summary = "Получить информацию о нескольких книгах")
+    @GetMapping(value = "/books", params = "uids")
+    public ResponseEntity<ArrayList<BookInfo>> getBooksInfo(@RequestParam("uids") Set<UUID> bookUids) throws SQLException {
+        ArrayList<Book> books = libraryService.getBooksInfo(bookUids);
+
+        ArrayList<BookInfo> allBooks = new ArrayList<>(books.size());
+        for (Book b : books) {
+            allBooks.add(bookMapper.toBookInfo(b));
+        }
+
+        return ResponseEntity.status(HttpStatus.OK).body(allBooks);
+    }
 }
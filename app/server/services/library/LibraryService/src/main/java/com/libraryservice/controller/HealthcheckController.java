@@ -1,5 +1,7 @@
 package com.libraryservice.controller;
 
+import com.libraryservice.utils.ConnectionManager;
+import com.libraryservice.utils.PoolStats;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.http.HttpStatus;
@@ -24,4 +26,14 @@ public class HealthcheckController {
     public ResponseEntity<String> returnOk() {
         return ResponseEntity.status(HttpStatus.OK).build();
     }
+
+    /**
+     * Состояние пула соединений с базой данных
+     * @return число активных, свободных и ожидающих соединений и счётчики пула
+     */
+    @Operation(summary = "Connection pool stats")
+    @GetMapping("/pool")
+    public ResponseEntity<PoolStats> poolStats() {
+        return ResponseEntity.status(HttpStatus.OK).body(ConnectionManager.getPool().getStats());
+    }
 }
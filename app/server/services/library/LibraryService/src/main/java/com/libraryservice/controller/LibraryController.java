@@ -1,7 +1,9 @@
 package com.libraryservice.controller;
 
 import com.libraryservice.dto.BookInfo;
+import com.libraryservice.dto.LibraryBookPaginationResponse;
 import com.libraryservice.dto.LibraryBookResponse;
+import com.libraryservice.dto.LibraryPaginationResponse;
 import com.libraryservice.dto.LibraryResponse;
 import com.libraryservice.entity.Book;
 import com.libraryservice.entity.Library;
@@ -18,6 +20,7 @@ import org.springframework.web.bind.annotation.*;
 import javax.swing.*;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Set;
 import java.util.UUID;
 
 @RestController
@@ -57,15 +60,46 @@ public class LibraryController {
         return ResponseEntity.status(HttpStatus.OK).body(allLibs);
     }
 
+    /**
+     * Получение одной страницы списка библиотек по городу
+     * Номер страницы больше последней заменяется номером последней страницы
+     * @param city город, в котором ищем библиотеки
+     * @param page номер страницы, начиная с 1
+     * @param size размер страницы
+     * @return страница библиотек и общее число библиотек в городе, 400 BAD REQUEST при неположительном размере
+     * @throws SQLException при неуспешном подключении или внутренней ошибке базы данных
+     */
+    @Operation(summary = "Получить страницу списка библиотек в городе")
+    @GetMapping(value = "/libraries", params = {"city", "page", "size"})
+    public ResponseEntity<LibraryPaginationResponse> getLibrariesByCity(@RequestParam("city") String city,
+                                                                        @RequestParam("page") int page,
+                                                                        @RequestParam("size") int size) throws SQLException {
+        if (size < 1)
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+
+        int total = libraryService.countLibrariesByCity(city);
+        page = clampPage(page, size, total);
+        ArrayList<Library> libraries = libraryService.getLibrariesByCity(city, size, (page - 1) * size);
+
+        ArrayList<LibraryResponse> pageLibs = new ArrayList<>(libraries.size());
+        for (Library lib : libraries) {
+            pageLibs.add(libraryMapper.toLibraryResponse(lib));
+        }
+
+        return ResponseEntity.status(HttpStatus.OK).body(new LibraryPaginationResponse(page, size, total, pageLibs));
+    }
+
     /**
      * Получение списка книг в выбранной библиотеке
      * @param libraryUid UUID библиотеки, в которой хотим получить список книг
+     * @param showAll true - показывать недоступные для аренды книги
      * @throws SQLException при неуспешном подключении или внутренней ошибке базы данных
      */
     @Operation(summary = "Получить список книг в библиотеке")
     @GetMapping("/libraries/{libraryUid}/books")
-    public ResponseEntity<ArrayList<LibraryBookResponse>> updateRating(@PathVariable UUID libraryUid) throws SQLException {
-        ArrayList<Book> books = libraryService.getBooksByLibrary(libraryUid);
+    public ResponseEntity<ArrayList<LibraryBookResponse>> updateRating(@PathVariable UUID libraryUid,
+                                                                       @RequestParam(value = "showAll", required = false, defaultValue = "true") boolean showAll) throws SQLException {
+        ArrayList<Book> books = libraryService.getBooksByLibrary(libraryUid, showAll);
 
         ArrayList<LibraryBookResponse> allBooks = new ArrayList<>();
         for (Book b : books) {
@@ -75,22 +109,56 @@ public class LibraryController {
         return ResponseEntity.status(HttpStatus.OK).body(allBooks);
     }
 
+    /**
+     * Получение одной страницы списка книг в выбранной библиотеке
+     * Номер страницы больше последней заменяется номером последней страницы
+     * @param libraryUid UUID библиотеки, в которой хотим получить список книг
+     * @param page номер страницы, начиная с 1
+     * @param size размер страницы
+     * @param showAll true - показывать недоступные для аренды книги
+     * @return страница книг и общее число книг в библиотеке, 400 BAD REQUEST при неположительном размере
+     * @throws SQLException при неуспешном подключении или внутренней ошибке базы данных
+     */
+    @Operation(summary = "Получить страницу списка книг в библиотеке")
+    @GetMapping(value = "/libraries/{libraryUid}/books", params = {"page", "size"})
+    public ResponseEntity<LibraryBookPaginationResponse> getBooksPage(@PathVariable UUID libraryUid,
+                                                                      @RequestParam("page") int page,
+                                                                      @RequestParam("size") int size,
+                                                                      @RequestParam(value = "showAll", required = false, defaultValue = "true") boolean showAll) throws SQLException {
+        if (size < 1)
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+
+        int total = libraryService.countBooksByLibrary(libraryUid, showAll);
+        page = clampPage(page, size, total);
+        ArrayList<Book> books = libraryService.getBooksByLibrary(libraryUid, showAll, size, (page - 1) * size);
+
+        ArrayList<LibraryBookResponse> pageBooks = new ArrayList<>(books.size());
+        for (Book b : books) {
+            pageBooks.add(bookMapper.toLibraryBookResponse(b));
+        }
+
+        return ResponseEntity.status(HttpStatus.OK).body(new LibraryBookPaginationResponse(page, size, total, pageBooks));
+    }
+
     /**
      * Взятие и возврат книги в библиотеке
      * @param libraryUid UUID библиотеки, в которой хотим получить книгу
      * @param bookUid UUID книги, которую хотим получить
+     * @param operationKey ключ операции из заголовка Idempotency-Key: повтор запроса с тем же ключом
+     * отвечает 200 OK, не меняя число доступных книг
      * @throws SQLException при неуспешном подключении или внутренней ошибке базы данных
      */
     @Operation(summary = "Взять или вернуть книгу")
     @PutMapping("/libraries/{libraryUid}/books/{bookUid}")
     public ResponseEntity<String> bookOperation(@PathVariable UUID libraryUid, @PathVariable UUID bookUid,
-                                                @RequestParam("rent") boolean rent) throws SQLException {
+                                                @RequestParam("rent") boolean rent,
+                                                @RequestHeader(value = "Idempotency-Key", required = false) UUID operationKey) throws SQLException {
         if (!rent)
-            libraryService.returnBook(libraryUid, bookUid);
+            libraryService.returnBook(libraryUid, bookUid, operationKey);
 
         else {
             try {
-                libraryService.takeBook(libraryUid, bookUid);
+                libraryService.takeBook(libraryUid, bookUid, operationKey);
             } catch (BookIsNotAvailable e) {
                 System.out.println(e.getMessage());
                 e.printStackTrace();
@@ -126,4 +194,31 @@ public class LibraryController {
         Library lib = libraryService.getLibraryInfo(libraryUid);
         return ResponseEntity.status(HttpStatus.OK).body(libraryMapper.toLibraryResponse(lib));
     }
+
+    /**
+     * Получение информации о нескольких библиотеках одним запросом
+     * @param libraryUids UUID библиотек через запятую
+     * @return найденные библиотеки, отсутствующие UUID пропускаются
+     * @throws SQLException при неуспешном подключении или внутренней ошибке базы данных
+     */
+    @Operation(summary = "Получить информацию о нескольких библиотеках")
+    @GetMapping(value = "/libraries", params = "uids")
+    public ResponseEntity<ArrayList<LibraryResponse>> getLibrariesInfo(@RequestParam("uids") Set<UUID> libraryUids) throws SQLException {
+        ArrayList<Library> libraries = libraryService.getLibrariesInfo(libraryUids);
+
+        ArrayList<LibraryResponse> allLibs = new ArrayList<>(libraries.size());
+        for (Library lib : libraries) {
+            allLibs.add(libraryMapper.toLibraryResponse(lib));
+        }
+
+        return ResponseEntity.status(HttpStatus.OK).body(allLibs);
+    }
+
+    /**
+     * Номер страницы в пределах от 1 до последней страницы
+     */
+    private static int clampPage(int page, int size, int total) {
+        int maxPage = total / size + 1;
+        return Integer.max(1, Integer.min(page, maxPage));
+    }
 }
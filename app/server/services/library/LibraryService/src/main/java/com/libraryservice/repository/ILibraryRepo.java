@@ -5,7 +5,9 @@ import com.libraryservice.entity.Library;
 import com.libraryservice.exception.BookIsNotAvailable;
 
 import java.sql.SQLException;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.UUID;
 
 /**
@@ -20,20 +22,76 @@ public interface ILibraryRepo {
      */
     public ArrayList<Library> getLibrariesByCity(String city) throws SQLException;
 
+    /**
+     * Получение одной страницы списка библиотек по городу
+     * @param city город, в котором ищем библиотеки
+     * @param limit максимальное число библиотек на странице
+     * @param offset число пропускаемых библиотек
+     * @return библиотеки страницы, упорядоченные по идентификатору
+     * @throws SQLException при неуспешном подключении или внутренней ошибке базы данных
+     */
+    public ArrayList<Library> getLibrariesByCity(String city, int limit, int offset) throws SQLException;
+
+    /**
+     * Подсчёт библиотек в городе
+     * @param city город, в котором ищем библиотеки
+     * @throws SQLException при неуспешном подключении или внутренней ошибке базы данных
+     */
+    public int countLibrariesByCity(String city) throws SQLException;
+
     /**
      * Получение списка книг в выбранной библиотеке
      * @param libraryUid UUID библиотеки, в которой хотим получить список книг
+     * @param showAll true - возвращать и книги, которых нет в наличии
      * @throws SQLException при неуспешном подключении или внутренней ошибке базы данных
      */
-    public ArrayList<Book> getBooksByLibrary(UUID libraryUid) throws SQLException;
+    public ArrayList<Book> getBooksByLibrary(UUID libraryUid, boolean showAll) throws SQLException;
+
+    /**
+     * Получение одной страницы списка книг в выбранной библиотеке
+     * @param libraryUid UUID библиотеки, в которой хотим получить список книг
+     * @param showAll true - возвращать и книги, которых нет в наличии
+     * @param limit максимальное число книг на странице
+     * @param offset число пропускаемых книг
+     * @return книги страницы, упорядоченные по идентификатору книги
+     * @throws SQLException при неуспешном подключении или внутренней ошибке базы данных
+     */
+    public ArrayList<Book> getBooksByLibrary(UUID libraryUid, boolean showAll, int limit, int offset) throws SQLException;
+
+    /**
+     * Подсчёт книг в выбранной библиотеке
+     * @param libraryUid UUID библиотеки, в которой считаем книги
+     * @param showAll true - считать и книги, которых нет в наличии
+     * @throws SQLException при неуспешном подключении или внутренней ошибке базы данных
+     */
+    public int countBooksByLibrary(UUID libraryUid, boolean showAll) throws SQLException;
+
+    /**
+     * Срок хранения ключей применённых операций взятия и возврата
+     */
+    Duration OPERATION_KEY_RETENTION = Duration.ofDays(7);
 
     /**
      * Взятие книги в библиотеке (уменьшение поля available_cnt)
      * @param libraryUid UUID библиотеки, в которой хотим получить книгу
      * @param bookUid UUID книги, которую нужно взять в библиотеке
+     * @throws BookIsNotAvailable если свободной книги нет или её нет в библиотеке
      * @throws SQLException при неуспешном подключении или внутренней ошибке базы данных
      */
-    public void takeBook(UUID libraryUid, UUID bookUid) throws SQLException, BookIsNotAvailable;
+    public default void takeBook(UUID libraryUid, UUID bookUid) throws SQLException, BookIsNotAvailable {
+        takeBook(libraryUid, bookUid, null);
+    }
+
+    /**
+     * Взятие книги в библиотеке с ключом операции
+     * Если операция с этим ключом уже применена, available_cnt не меняется и ошибки нет
+     * @param libraryUid UUID библиотеки, в которой хотим получить книгу
+     * @param bookUid UUID книги, которую нужно взять в библиотеке
+     * @param operationKey ключ операции или null, тогда книга берётся всегда
+     * @throws BookIsNotAvailable если свободной книги нет или её нет в библиотеке
+     * @throws SQLException при неуспешном подключении или внутренней ошибке базы данных
+     */
+    public void takeBook(UUID libraryUid, UUID bookUid, UUID operationKey) throws SQLException, BookIsNotAvailable;
 
     /**
      * Возврат книги в библиотеку (увеличение поля available_cnt)
@@ -41,7 +99,19 @@ public interface ILibraryRepo {
      * @param bookUid UUID книги, которую нужно вернуть в библиотеку
      * @throws SQLException при неуспешном подключении или внутренней ошибке базы данных
      */
-    public void returnBook(UUID libraryUid, UUID bookUid) throws SQLException;
+    public default void returnBook(UUID libraryUid, UUID bookUid) throws SQLException {
+        returnBook(libraryUid, bookUid, null);
+    }
+
+    /**
+     * Возврат книги в библиотеку с ключом операции
+     * Если операция с этим ключом уже применена, available_cnt не меняется
+     * @param libraryUid UUID библиотеки, в которую хотим вернуть книгу
+     * @param bookUid UUID книги, которую нужно вернуть в библиотеку
+     * @param operationKey ключ операции или null, тогда книга возвращается всегда
+     * @throws SQLException при неуспешном подключении или внутренней ошибке базы данных
+     */
+    public void returnBook(UUID libraryUid, UUID bookUid, UUID operationKey) throws SQLException;
 
     /**
      * Проверка доступности книги в библиотеке
@@ -66,10 +136,26 @@ public interface ILibraryRepo {
      */
     public Book getBookInfo(UUID bookUid) throws SQLException;
 
+    /**
+     * Получение информации о нескольких книгах одним запросом
+     * @param bookUids UUID книг, о которых хотим получить информацию
+     * @return найденные книги, порядок не гарантируется
+     * @throws SQLException при неуспешном подключении или внутренней ошибке базы данных
+     */
+    public ArrayList<Book> getBooksInfo(Collection<UUID> bookUids) throws SQLException;
+
     /**
      * Получение информации о библиотеке
      * @param libraryUid UUID библиотеки, о которой нужна информация
      * @throws SQLException при неуспешном подключении или внутренней ошибке базы данных
      */
     public Library getLibraryInfo(UUID libraryUid) throws SQLException;
+
+    /**
+     * Получение информации о нескольких библиотеках одним запросом
+     * @param libraryUids UUID библиотек, о которых нужна информация
+     * @return найденные библиотеки, порядок не гарантируется
+     * @throws SQLException при неуспешном подключении или внутренней ошибке базы данных
+     */
+    public ArrayList<Library> getLibrariesInfo(Collection<UUID> libraryUids) throws SQLException;
 }
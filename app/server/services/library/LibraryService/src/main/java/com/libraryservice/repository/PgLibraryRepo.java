@@ -9,18 +9,28 @@ import org.springframework.stereotype.Repository;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Репозиторий используется для работы с таблицей places базы данных PostgreSQL
- * Для подключения используется драйвер JDBC
+ * Для подключения используется драйвер JDBC, соединения берутся из пула на время одного запроса
  */
 @Repository
 public class PgLibraryRepo implements ILibraryRepo {
     /**
-     * Объект подключения к БД
+     * Условие для списков без книг, которых нет в наличии; строки читаются по первичному ключу
+     * (library_id, book_id), отдельного индекса по изменяемому столбцу available_count нет
      */
-    private final Connection conn = ConnectionManager.open();
+    private static final String AVAILABLE_ONLY = "AND lb.available_count > 0 ";
+
+    private static final long OPERATION_KEY_PURGE_INTERVAL_MS = 60_000;
+
+    /**
+     * Время последнего удаления устаревших ключей операций
+     */
+    private static final AtomicLong lastOperationKeyPurge = new AtomicLong();
 
     /**
      * Получение списка библиотек по городу
@@ -36,105 +46,303 @@ public class PgLibraryRepo implements ILibraryRepo {
                 "FROM public.library " +
                 "WHERE city = ?";
 
-        PreparedStatement librariesQuery = conn.prepareStatement(getLibs);
-        librariesQuery.setString(1, city);
-        ResultSet rs = librariesQuery.executeQuery();
+        try (Connection conn = ConnectionManager.get();
+             PreparedStatement librariesQuery = conn.prepareStatement(getLibs)) {
+            librariesQuery.setString(1, city);
+
+            try (ResultSet rs = librariesQuery.executeQuery()) {
+                while (rs.next())
+                {
+                    Library lib = new Library(rs.getInt("id"),
+                                                rs.getObject("library_uid", java.util.UUID.class),
+                                                rs.getString("name"), rs.getString("city"),
+                                                rs.getString("address"));
+                    libs.add(lib);
+                }
+            }
+        }
+
+        return libs;
+    }
+
+    /**
+     * Получение одной страницы списка библиотек по городу
+     * @param city город, в котором ищем библиотеки
+     * @param limit максимальное число библиотек на странице
+     * @param offset число пропускаемых библиотек
+     * @return библиотеки страницы, упорядоченные по идентификатору
+     * @throws SQLException при неуспешном подключении или внутренней ошибке базы данных
+     */
+    @Override
+    public ArrayList<Library> getLibrariesByCity(String city, int limit, int offset) throws SQLException {
+        ArrayList<Library> libs = new ArrayList<>(limit);
 
-        while (rs.next())
-        {
-            Library lib = new Library(rs.getInt("id"),
-                                        rs.getObject("library_uid", java.util.UUID.class),
-                                        rs.getString("name"), rs.getString("city"),
-                                        rs.getString("address"));
-            libs.add(lib);
+        String getLibs = "SELECT id, library_uid, name, city, address " +
+                "FROM public.library " +
+                "WHERE city = ? " +
+                "ORDER BY id " +
+                "LIMIT ? OFFSET ?";
+
+        try (Connection conn = ConnectionManager.get();
+             PreparedStatement librariesQuery = conn.prepareStatement(getLibs)) {
+            librariesQuery.setString(1, city);
+            librariesQuery.setInt(2, limit);
+            librariesQuery.setInt(3, offset);
+
+            try (ResultSet rs = librariesQuery.executeQuery()) {
+                while (rs.next())
+                    libs.add(readLibrary(rs));
+            }
         }
 
         return libs;
     }
 
+    /**
+     * Подсчёт библиотек в городе
+     * @param city город, в котором ищем библиотеки
+     * @throws SQLException при неуспешном подключении или внутренней ошибке базы данных
+     */
+    @Override
+    public int countLibrariesByCity(String city) throws SQLException {
+        String countLibs = "SELECT count(*) FROM public.library WHERE city = ?";
+
+        try (Connection conn = ConnectionManager.get();
+             PreparedStatement countQuery = conn.prepareStatement(countLibs)) {
+            countQuery.setString(1, city);
+
+            try (ResultSet rs = countQuery.executeQuery()) {
+                rs.next();
+                return rs.getInt(1);
+            }
+        }
+    }
+
     /**
      * Получение списка книг в выбранной библиотеке
      * @param libraryUid UUID библиотеки, в которой хотим получить список книг
+     * @param showAll true - возвращать и книги, которых нет в наличии
      * @throws SQLException при неуспешном подключении или внутренней ошибке базы данных
      */
     @Override
-    public ArrayList<Book> getBooksByLibrary(UUID libraryUid) throws SQLException {
+    public ArrayList<Book> getBooksByLibrary(UUID libraryUid, boolean showAll) throws SQLException {
         ArrayList<Book> books = new ArrayList<>();
 
         String getBooks = "SELECT b.id, b.book_uid, b.name, author, genre, condition, lb.available_count " +
                 "FROM public.books b JOIN public.library_books lb ON b.id = lb.book_id " +
                 "JOIN public.library l ON lb.library_id = l.id " +
-                "WHERE l.library_uid = ?::uuid";
+                "WHERE l.library_uid = ?::uuid " +
+                (showAll ? "" : AVAILABLE_ONLY);
+
+        try (Connection conn = ConnectionManager.get();
+             PreparedStatement booksQuery = conn.prepareStatement(getBooks)) {
+            booksQuery.setString(1, libraryUid.toString());
+
+            try (ResultSet rs = booksQuery.executeQuery()) {
+                while (rs.next())
+                {
+                    Book b = new Book(rs.getInt("id"),
+                            rs.getObject("book_uid", java.util.UUID.class),
+                            rs.getString("name"), rs.getString("author"),
+                            rs.getString("genre"), Condition.valueOf(rs.getString("condition")),
+                            rs.getInt("available_count"));
+                    books.add(b);
+                }
+            }
+        }
 
-        PreparedStatement booksQuery = conn.prepareStatement(getBooks);
-        booksQuery.setString(1, libraryUid.toString());
-        ResultSet rs = booksQuery.executeQuery();
+        return books;
+    }
+
+    /**
+     * Получение одной страницы списка книг в выбранной библиотеке
+     * @param libraryUid UUID библиотеки, в которой хотим получить список книг
+     * @param showAll true - возвращать и книги, которых нет в наличии
+     * @param limit максимальное число книг на странице
+     * @param offset число пропускаемых книг
+     * @return книги страницы, упорядоченные по идентификатору книги
+     * @throws SQLException при неуспешном подключении или внутренней ошибке базы данных
+     */
+    @Override
+    public ArrayList<Book> getBooksByLibrary(UUID libraryUid, boolean showAll, int limit, int offset) throws SQLException {
+        ArrayList<Book> books = new ArrayList<>(limit);
 
-        while (rs.next())
-        {
-            Book b = new Book(rs.getInt("id"),
-                    rs.getObject("book_uid", java.util.UUID.class),
-                    rs.getString("name"), rs.getString("author"),
-                    rs.getString("genre"), Condition.valueOf(rs.getString("condition")),
-                    rs.getInt("available_count"));
-            books.add(b);
+        String getBooks = "SELECT b.id, b.book_uid, b.name, author, genre, condition, lb.available_count " +
+                "FROM public.books b JOIN public.library_books lb ON b.id = lb.book_id " +
+                "JOIN public.library l ON lb.library_id = l.id " +
+                "WHERE l.library_uid = ? " +
+                (showAll ? "" : AVAILABLE_ONLY) +
+                "ORDER BY lb.book_id " +
+                "LIMIT ? OFFSET ?";
+
+        try (Connection conn = ConnectionManager.get();
+             PreparedStatement booksQuery = conn.prepareStatement(getBooks)) {
+            booksQuery.setObject(1, libraryUid);
+            booksQuery.setInt(2, limit);
+            booksQuery.setInt(3, offset);
+
+            try (ResultSet rs = booksQuery.executeQuery()) {
+                while (rs.next())
+                    books.add(readLibraryBook(rs));
+            }
         }
 
         return books;
     }
 
+    /**
+     * Подсчёт книг в выбранной библиотеке
+     * @param libraryUid UUID библиотеки, в которой считаем книги
+     * @param showAll true - считать и книги, которых нет в наличии
+     * @throws SQLException при неуспешном подключении или внутренней ошибке базы данных
+     */
+    @Override
+    public int countBooksByLibrary(UUID libraryUid, boolean showAll) throws SQLException {
+        String countBooks = "SELECT count(*) " +
+                "FROM public.library_books lb JOIN public.library l ON lb.library_id = l.id " +
+                "WHERE l.library_uid = ? " +
+                (showAll ? "" : AVAILABLE_ONLY);
+
+        try (Connection conn = ConnectionManager.get();
+             PreparedStatement countQuery = conn.prepareStatement(countBooks)) {
+            countQuery.setObject(1, libraryUid);
+
+            try (ResultSet rs = countQuery.executeQuery()) {
+                rs.next();
+                return rs.getInt(1);
+            }
+        }
+    }
+
     /**
      * Взятие книги в библиотеке (уменьшение поля available_cnt)
+     * Проверка наличия и уменьшение выполняются одним условным UPDATE по целочисленным ключам на уровне
+     * READ COMMITTED: при конкурентном изменении строки условие available_count > 0 перепроверяется
+     * после получения блокировки строки, поэтому выдать больше книг, чем есть, невозможно.
+     * Ключ операции записывается в той же транзакции, что и UPDATE: повтор с тем же ключом ждёт
+     * завершения первой транзакции и, если она зафиксирована, ничего не меняет
      * @param libraryUid UUID библиотеки, в которой хотим получить книгу
      * @param bookUid UUID книги, которую нужно взять в библиотеке
+     * @param operationKey ключ операции или null
+     * @throws BookIsNotAvailable если свободной книги нет или её нет в библиотеке
      * @throws SQLException при неуспешном подключении или внутренней ошибке базы данных
      */
     @Override
-    public void takeBook(UUID libraryUid, UUID bookUid) throws SQLException, BookIsNotAvailable {
-        conn.setTransactionIsolation(Connection.TRANSACTION_SERIALIZABLE);
-        conn.setAutoCommit(false);
-
-        if (!isAvailable(libraryUid, bookUid))
-            throw new BookIsNotAvailable("Нет свободной книги в выбранной библиотеке");
-
+    public void takeBook(UUID libraryUid, UUID bookUid, UUID operationKey) throws SQLException, BookIsNotAvailable {
         String decCnt = "UPDATE public.library_books " +
                 "SET available_count = available_count - 1 " +
-                "WHERE (book_id, library_id) IN " +
-                "(SELECT b.id, l.id  " +
-                "FROM public.books b JOIN public.library_books lb ON b.id = lb.book_id " +
-                "JOIN public.library l ON lb.library_id = l.id " +
-                "WHERE l.library_uid = ? AND b.book_uid = ?)";
-
-        PreparedStatement updAvailable = conn.prepareStatement(decCnt);
-        updAvailable.setObject(1, libraryUid);
-        updAvailable.setObject(2, bookUid);
-        updAvailable.executeUpdate();
-
-        conn.commit();
-        conn.setAutoCommit(true);
-        conn.setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+                "WHERE library_id = (SELECT id FROM public.library WHERE library_uid = ?) " +
+                "AND book_id = (SELECT id FROM public.books WHERE book_uid = ?) " +
+                "AND available_count > 0 " +
+                "RETURNING available_count";
+
+        try (Connection conn = ConnectionManager.get();
+             PreparedStatement updAvailable = conn.prepareStatement(decCnt)) {
+            updAvailable.setObject(1, libraryUid);
+            updAvailable.setObject(2, bookUid);
+
+            if (operationKey == null) {
+                try (ResultSet rs = updAvailable.executeQuery()) {
+                    if (!rs.next())
+                        throw new BookIsNotAvailable("Нет свободной книги в выбранной библиотеке");
+                }
+                return;
+            }
+
+            conn.setAutoCommit(false);
+            try {
+                if (claimOperation(conn, operationKey)) {
+                    try (ResultSet rs = updAvailable.executeQuery()) {
+                        if (!rs.next()) {
+                            conn.rollback();
+                            throw new BookIsNotAvailable("Нет свободной книги в выбранной библиотеке");
+                        }
+                    }
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+
+            purgeOperationKeys(conn);
+        }
     }
 
     /**
      * Возврат книги в библиотеку (увеличение поля available_cnt)
+     * Выполняется одним UPDATE по целочисленным ключам, конкурентные возвраты не теряются.
+     * Ключ операции записывается в той же транзакции, что и UPDATE, см. takeBook
      * @param libraryUid UUID библиотеки, в которую хотим вернуть книгу
      * @param bookUid UUID книги, которую нужно вернуть в библиотеку
+     * @param operationKey ключ операции или null
      * @throws SQLException при неуспешном подключении или внутренней ошибке базы данных
      */
     @Override
-    public void returnBook(UUID libraryUid, UUID bookUid) throws SQLException {
+    public void returnBook(UUID libraryUid, UUID bookUid, UUID operationKey) throws SQLException {
         String incCnt = "UPDATE public.library_books " +
                 "SET available_count = available_count + 1 " +
-                "WHERE (book_id, library_id) IN " +
-                "(SELECT b.id, l.id  " +
-                "FROM public.books b JOIN public.library_books lb ON b.id = lb.book_id " +
-                "JOIN public.library l ON lb.library_id = l.id " +
-                "WHERE l.library_uid = ? AND b.book_uid = ?)";
+                "WHERE library_id = (SELECT id FROM public.library WHERE library_uid = ?) " +
+                "AND book_id = (SELECT id FROM public.books WHERE book_uid = ?)";
+
+        try (Connection conn = ConnectionManager.get();
+             PreparedStatement updAvailable = conn.prepareStatement(incCnt)) {
+            updAvailable.setObject(1, libraryUid);
+            updAvailable.setObject(2, bookUid);
+
+            if (operationKey == null) {
+                updAvailable.executeUpdate();
+                return;
+            }
+
+            conn.setAutoCommit(false);
+            try {
+                if (claimOperation(conn, operationKey))
+                    updAvailable.executeUpdate();
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+
+            purgeOperationKeys(conn);
+        }
+    }
+
+    /**
+     * Запись ключа операции в текущей транзакции
+     * @return true, если ключ записан впервые и операцию нужно применить
+     */
+    private static boolean claimOperation(Connection conn, UUID operationKey) throws SQLException {
+        String insertKey = "INSERT INTO public.library_book_operation (operation_key) VALUES (?) " +
+                "ON CONFLICT (operation_key) DO NOTHING";
+
+        try (PreparedStatement st = conn.prepareStatement(insertKey)) {
+            st.setObject(1, operationKey);
+            return st.executeUpdate() == 1;
+        }
+    }
 
-        PreparedStatement updAvailable = conn.prepareStatement(incCnt);
-        updAvailable.setObject(1, libraryUid);
-        updAvailable.setObject(2, bookUid);
-        updAvailable.executeUpdate();
+    /**
+     * Удаление ключей операций старше OPERATION_KEY_RETENTION, не чаще раза в минуту
+     */
+    private static void purgeOperationKeys(Connection conn) throws SQLException {
+        long now = System.currentTimeMillis();
+        long last = lastOperationKeyPurge.get();
+        if (now - last < OPERATION_KEY_PURGE_INTERVAL_MS || !lastOperationKeyPurge.compareAndSet(last, now))
+            return;
+
+        String deleteKeys = "DELETE FROM public.library_book_operation " +
+                "WHERE applied_at < now() - ? * interval '1 second'";
+
+        try (PreparedStatement st = conn.prepareStatement(deleteKeys)) {
+            st.setLong(1, OPERATION_KEY_RETENTION.getSeconds());
+            st.executeUpdate();
+        }
     }
 
     /**
@@ -145,20 +353,35 @@ public class PgLibraryRepo implements ILibraryRepo {
      */
     @Override
     public boolean isAvailable(UUID libraryUid, UUID bookUid) throws SQLException {
+        try (Connection conn = ConnectionManager.get()) {
+            return isAvailable(conn, libraryUid, bookUid);
+        }
+    }
+
+    /**
+     * Проверка доступности книги в библиотеке на уже полученном соединении
+     * @param conn соединение, в транзакции которого выполняется проверка
+     * @param libraryUid UUID библиотеки, в которой ищем книгу
+     * @param bookUid UUID нужной книги
+     * @throws SQLException при неуспешном подключении или внутренней ошибке базы данных
+     */
+    private boolean isAvailable(Connection conn, UUID libraryUid, UUID bookUid) throws SQLException {
         String getBooks = "SELECT lb.available_count " +
                 "FROM public.books b JOIN public.library_books lb ON b.id = lb.book_id " +
                 "JOIN public.library l ON lb.library_id = l.id " +
                 "WHERE l.library_uid = ? and b.book_uid = ?";
 
-        PreparedStatement booksQuery = conn.prepareStatement(getBooks);
-        booksQuery.setObject(1, libraryUid);
-        booksQuery.setObject(2, bookUid);
-        ResultSet rs = booksQuery.executeQuery();
-
         int cnt = 0;
 
-        if (rs.next())
-            cnt = rs.getInt("available_count");
+        try (PreparedStatement booksQuery = conn.prepareStatement(getBooks)) {
+            booksQuery.setObject(1, libraryUid);
+            booksQuery.setObject(2, bookUid);
+
+            try (ResultSet rs = booksQuery.executeQuery()) {
+                if (rs.next())
+                    cnt = rs.getInt("available_count");
+            }
+        }
 
         return cnt > 0;
     }
@@ -177,17 +400,20 @@ public class PgLibraryRepo implements ILibraryRepo {
                 "JOIN public.library l ON lb.library_id = l.id " +
                 "WHERE l.library_uid = ? and b.book_uid = ?";
 
-        PreparedStatement booksQuery = conn.prepareStatement(getBooks);
-        booksQuery.setObject(1, libraryUid);
-        booksQuery.setObject(2, bookUid);
-        ResultSet rs = booksQuery.executeQuery();
-
-        if (rs.next())
-            book = new Book(rs.getInt("id"),
-                    rs.getObject("book_uid", java.util.UUID.class),
-                    rs.getString("name"), rs.getString("author"),
-                    rs.getString("genre"), Condition.valueOf(rs.getString("condition")),
-                    rs.getInt("available_count"));
+        try (Connection conn = ConnectionManager.get();
+             PreparedStatement booksQuery = conn.prepareStatement(getBooks)) {
+            booksQuery.setObject(1, libraryUid);
+            booksQuery.setObject(2, bookUid);
+
+            try (ResultSet rs = booksQuery.executeQuery()) {
+                if (rs.next())
+                    book = new Book(rs.getInt("id"),
+                            rs.getObject("book_uid", java.util.UUID.class),
+                            rs.getString("name"), rs.getString("author"),
+                            rs.getString("genre"), Condition.valueOf(rs.getString("condition")),
+                            rs.getInt("available_count"));
+            }
+        }
 
         return book;
     }
@@ -203,18 +429,51 @@ public class PgLibraryRepo implements ILibraryRepo {
         String getBooks = "SELECT book_uid, name, author, genre FROM public.books " +
                 "WHERE book_uid = ?";
 
-        PreparedStatement booksQuery = conn.prepareStatement(getBooks);
-        booksQuery.setObject(1, bookUid);
-        ResultSet rs = booksQuery.executeQuery();
+        try (Connection conn = ConnectionManager.get();
+             PreparedStatement booksQuery = conn.prepareStatement(getBooks)) {
+            booksQuery.setObject(1, bookUid);
 
-        if (rs.next())
-            book = new Book(0, rs.getObject("book_uid", java.util.UUID.class),
-                    rs.getString("name"), rs.getString("author"),
-                    rs.getString("genre"), Condition.EXCELLENT, 0);
+            try (ResultSet rs = booksQuery.executeQuery()) {
+                if (rs.next())
+                    book = new Book(0, rs.getObject("book_uid", java.util.UUID.class),
+                            rs.getString("name"), rs.getString("author"),
+                            rs.getString("genre"), Condition.EXCELLENT, 0);
+            }
+        }
 
         return book;
     }
 
+    /**
+     * Получение информации о нескольких книгах одним запросом
+     * @param bookUids UUID книг, о которых хотим получить информацию
+     * @return найденные книги, порядок не гарантируется
+     * @throws SQLException при неуспешном подключении или внутренней ошибке базы данных
+     */
+    @Override
+    public ArrayList<Book> getBooksInfo(Collection<UUID> bookUids) throws SQLException {
+        ArrayList<Book> books = new ArrayList<>();
+        if (bookUids.isEmpty())
+            return books;
+
+        String getBooks = "SELECT book_uid, name, author, genre FROM public.books " +
+                "WHERE book_uid = ANY(?)";
+
+        try (Connection conn = ConnectionManager.get();
+             PreparedStatement booksQuery = conn.prepareStatement(getBooks)) {
+            booksQuery.setArray(1, conn.createArrayOf("uuid", bookUids.toArray()));
+
+            try (ResultSet rs = booksQuery.executeQuery()) {
+                while (rs.next())
+                    books.add(new Book(0, rs.getObject("book_uid", java.util.UUID.class),
+                            rs.getString("name"), rs.getString("author"),
+                            rs.getString("genre"), Condition.EXCELLENT, 0));
+            }
+        }
+
+        return books;
+    }
+
     /**
      * Получение информации о библиотеке
      * @param libraryUid UUID библиотеки, о которой нужна информация
@@ -226,16 +485,61 @@ public class PgLibraryRepo implements ILibraryRepo {
         String getLibrary = "SELECT id, library_uid, name, city, address FROM public.library " +
                 "WHERE library_uid = ?";
 
-        PreparedStatement libraryQuery = conn.prepareStatement(getLibrary);
-        libraryQuery.setObject(1, libraryUid);
-        ResultSet rs = libraryQuery.executeQuery();
-
-        if (rs.next())
-            lib = new Library(rs.getInt("id"),
-                    rs.getObject("library_uid", java.util.UUID.class),
-                    rs.getString("name"), rs.getString("city"),
-                    rs.getString("address"));
+        try (Connection conn = ConnectionManager.get();
+             PreparedStatement libraryQuery = conn.prepareStatement(getLibrary)) {
+            libraryQuery.setObject(1, libraryUid);
+
+            try (ResultSet rs = libraryQuery.executeQuery()) {
+                if (rs.next())
+                    lib = new Library(rs.getInt("id"),
+                            rs.getObject("library_uid", java.util.UUID.class),
+                            rs.getString("name"), rs.getString("city"),
+                            rs.getString("address"));
+            }
+        }
 
         return lib;
     }
+
+    /**
+     * Получение информации о нескольких библиотеках одним запросом
+     * @param libraryUids UUID библиотек, о которых нужна информация
+     * @return найденные библиотеки, порядок не гарантируется
+     * @throws SQLException при неуспешном подключении или внутренней ошибке базы данных
+     */
+    @Override
+    public ArrayList<Library> getLibrariesInfo(Collection<UUID> libraryUids) throws SQLException {
+        ArrayList<Library> libs = new ArrayList<>();
+        if (libraryUids.isEmpty())
+            return libs;
+
+        String getLibraries = "SELECT id, library_uid, name, city, address FROM public.library " +
+                "WHERE library_uid = ANY(?)";
+
+        try (Connection conn = ConnectionManager.get();
+             PreparedStatement librariesQuery = conn.prepareStatement(getLibraries)) {
+            librariesQuery.setArray(1, conn.createArrayOf("uuid", libraryUids.toArray()));
+
+            try (ResultSet rs = librariesQuery.executeQuery()) {
+                while (rs.next())
+                    libs.add(new Library(rs.getInt("id"),
+                            rs.getObject("library_uid", java.util.UUID.class),
+                            rs.getString("name"), rs.getString("city"),
+                            rs.getString("address")));
+            }
+        }
+
+        return libs;
+    }
+
+    private static Library readLibrary(ResultSet rs) throws SQLException {
+        return new Library(rs.getInt("id"), rs.getObject("library_uid", java.util.UUID.class),
+                rs.getString("name"), rs.getString("city"), rs.getString("address"));
+    }
+
+    private static Book readLibraryBook(ResultSet rs) throws SQLException {
+        return new Book(rs.getInt("id"), rs.getObject("book_uid", java.util.UUID.class),
+                rs.getString("name"), rs.getString("author"), rs.getString("genre"),
+                Condition.valueOf(rs.getString("condition")), rs.getInt("available_count"));
+    }
 }
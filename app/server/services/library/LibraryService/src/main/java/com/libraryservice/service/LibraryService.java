@@ -9,6 +9,7 @@ import org.springframework.stereotype.Service;
 
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.UUID;
 
 /**
@@ -36,13 +37,56 @@ public class LibraryService {
        return repo.getLibrariesByCity(city);
     }
 
+    /**
+     * Получение одной страницы списка библиотек по городу
+     * @param city город, в котором ищем библиотеки
+     * @param limit максимальное число библиотек на странице
+     * @param offset число пропускаемых библиотек
+     * @throws SQLException при неуспешном подключении или внутренней ошибке базы данных
+     */
+    public ArrayList<Library> getLibrariesByCity(String city, int limit, int offset) throws SQLException {
+        return repo.getLibrariesByCity(city, limit, offset);
+    }
+
+    /**
+     * Подсчёт библиотек в городе
+     * @param city город, в котором ищем библиотеки
+     * @throws SQLException при неуспешном подключении или внутренней ошибке базы данных
+     */
+    public int countLibrariesByCity(String city) throws SQLException {
+        return repo.countLibrariesByCity(city);
+    }
+
     /**
      * Получение списка книг в выбранной библиотеке
      * @param libraryUid UUID библиотеки, в которой хотим получить список книг
+     * @param showAll true - возвращать и книги, которых нет в наличии
      * @throws SQLException при неуспешном подключении или внутренней ошибке базы данных
      */
-    public ArrayList<Book> getBooksByLibrary(UUID libraryUid) throws SQLException {
-        return repo.getBooksByLibrary(libraryUid);
+    public ArrayList<Book> getBooksByLibrary(UUID libraryUid, boolean showAll) throws SQLException {
+        return repo.getBooksByLibrary(libraryUid, showAll);
+    }
+
+    /**
+     * Получение одной страницы списка книг в выбранной библиотеке
+     * @param libraryUid UUID библиотеки, в которой хотим получить список книг
+     * @param showAll true - возвращать и книги, которых нет в наличии
+     * @param limit максимальное число книг на странице
+     * @param offset число пропускаемых книг
+     * @throws SQLException при неуспешном подключении или внутренней ошибке базы данных
+     */
+    public ArrayList<Book> getBooksByLibrary(UUID libraryUid, boolean showAll, int limit, int offset) throws SQLException {
+        return repo.getBooksByLibrary(libraryUid, showAll, limit, offset);
+    }
+
+    /**
+     * Подсчёт книг в выбранной библиотеке
+     * @param libraryUid UUID библиотеки, в которой считаем книги
+     * @param showAll true - считать и книги, которых нет в наличии
+     * @throws SQLException при неуспешном подключении или внутренней ошибке базы данных
+     */
+    public int countBooksByLibrary(UUID libraryUid, boolean showAll) throws SQLException {
+        return repo.countBooksByLibrary(libraryUid, showAll);
     }
 
     /**
@@ -59,20 +103,22 @@ public class LibraryService {
      * Взятие книги в библиотеке (уменьшение поля available_cnt)
      * @param libraryUid UUID библиотеки, в которой хотим получить книгу
      * @param bookUid UUID книги, которую нужно взять в библиотеке
+     * @param operationKey ключ операции, повтор с которым не берёт книгу второй раз; может быть null
      * @throws SQLException при неуспешном подключении или внутренней ошибке базы данных
      */
-    public void takeBook(UUID libraryUid, UUID bookUid) throws SQLException, BookIsNotAvailable {
-        repo.takeBook(libraryUid, bookUid);
+    public void takeBook(UUID libraryUid, UUID bookUid, UUID operationKey) throws SQLException, BookIsNotAvailable {
+        repo.takeBook(libraryUid, bookUid, operationKey);
     }
 
     /**
      * Возврат книги в библиотеку (увеличение поля available_cnt)
      * @param libraryUid UUID библиотеки, в которую хотим вернуть книгу
      * @param bookUid UUID книги, которую нужно вернуть в библиотеку
+     * @param operationKey ключ операции, повтор с которым не возвращает книгу второй раз; может быть null
      * @throws SQLException при неуспешном подключении или внутренней ошибке базы данных
      */
-    public void returnBook(UUID libraryUid, UUID bookUid) throws SQLException {
-        repo.returnBook(libraryUid, bookUid);
+    public void returnBook(UUID libraryUid, UUID bookUid, UUID operationKey) throws SQLException {
+        repo.returnBook(libraryUid, bookUid, operationKey);
     }
 
     /**
@@ -84,6 +130,15 @@ public class LibraryService {
         return repo.getBookInfo(bookUid);
     }
 
+    /**
+     * Получение информации о нескольких книгах
+     * @param bookUids UUID книг, о которых хотим получить информацию
+     * @throws SQLException при неуспешном подключении или внутренней ошибке базы данных
+     */
+    public ArrayList<Book> getBooksInfo(Collection<UUID> bookUids) throws SQLException {
+        return repo.getBooksInfo(bookUids);
+    }
+
     /**
      * Получение информации о библиотеке
      * @param libraryUid UUID библиотеки, о которой нужна информация
@@ -92,4 +147,13 @@ public class LibraryService {
     public Library getLibraryInfo(UUID libraryUid) throws SQLException {
         return repo.getLibraryInfo(libraryUid);
     }
+
+    /**
+     * Получение информации о нескольких библиотеках
+     * @param libraryUids UUID библиотек, о которых нужна информация
+     * @throws SQLException при неуспешном подключении или внутренней ошибке базы данных
+     */
+    public ArrayList<Library> getLibrariesInfo(Collection<UUID> libraryUids) throws SQLException {
+        return repo.getLibrariesInfo(libraryUids);
+    }
 }
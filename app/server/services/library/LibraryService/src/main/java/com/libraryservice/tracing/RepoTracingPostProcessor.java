@@ -0,0 +1,65 @@
+package com.libraryservice.tracing;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+/**
+ * Операции трассы вокруг методов репозиториев Pg*Repo
+ * Бин репозитория заменяется прокси по его интерфейсам; вызов вне трассируемого запроса
+ * (например, фоновая запись) операцию не создаёт, чтобы не порождать трассы без запроса
+ */
+@Component
+public class RepoTracingPostProcessor implements BeanPostProcessor {
+    /**
+     * Трассировщик берётся при первом вызове: постпроцессор создаётся раньше остальных бинов
+     */
+    private final ObjectProvider<Tracer> tracer;
+
+    public RepoTracingPostProcessor(ObjectProvider<Tracer> tracer) {
+        this.tracer = tracer;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!beanName.startsWith("pg") || !beanName.endsWith("Repo"))
+            return bean;
+
+        Class<?>[] interfaces = ClassUtils.getAllInterfaces(bean);
+        if (interfaces.length == 0)
+            return bean;
+
+        String prefix = ClassUtils.getUserClass(bean).getSimpleName() + ".";
+        return Proxy.newProxyInstance(bean.getClass().getClassLoader(), interfaces,
+                (proxy, method, args) -> invoke(bean, prefix, method, args));
+    }
+
+    private Object invoke(Object target, String prefix, Method method, Object[] args) throws Throwable {
+        Tracer t = tracer.getObject();
+        if (method.getDeclaringClass() == Object.class || t.current() == null)
+            return call(target, method, args);
+
+        Span span = t.startSpan(prefix + method.getName(), Span.Kind.INTERNAL).tag("db.system", "postgresql");
+        try (Tracer.Scope ignored = t.activate(span.context())) {
+            return call(target, method, args);
+        } catch (Throwable e) {
+            span.error(e);
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+
+    private static Object call(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
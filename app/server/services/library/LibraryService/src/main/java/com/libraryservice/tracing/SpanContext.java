@@ -0,0 +1,99 @@
+package com.libraryservice.tracing;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Идентификаторы трассы и операции, передаваемые между сервисами в заголовке traceparent (W3C Trace Context)
+ */
+public final class SpanContext {
+    public static final String HEADER = "traceparent";
+
+    private final String traceId;
+    private final String spanId;
+    private final boolean sampled;
+
+    public SpanContext(String traceId, String spanId, boolean sampled) {
+        this.traceId = traceId;
+        this.spanId = spanId;
+        this.sampled = sampled;
+    }
+
+    /**
+     * Разбор заголовка traceparent вида 00-<trace-id>-<span-id>-<flags>
+     * @return контекст или null, если заголовка нет или он некорректен
+     */
+    public static SpanContext parse(String traceparent) {
+        if (traceparent == null || traceparent.length() != 55)
+            return null;
+
+        String[] parts = traceparent.split("-");
+        if (parts.length != 4 || !"00".equals(parts[0]) || !isHex(parts[1], 32) || !isHex(parts[2], 16)
+                || !isHex(parts[3], 2))
+            return null;
+
+        if (isZero(parts[1]) || isZero(parts[2]))
+            return null;
+
+        boolean sampled = (Integer.parseInt(parts[3], 16) & 1) == 1;
+        return new SpanContext(parts[1], parts[2], sampled);
+    }
+
+    public String toTraceparent() {
+        return "00-" + traceId + "-" + spanId + (sampled ? "-01" : "-00");
+    }
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    public String getSpanId() {
+        return spanId;
+    }
+
+    public boolean isSampled() {
+        return sampled;
+    }
+
+    static String randomTraceId() {
+        return randomHex(2);
+    }
+
+    static String randomSpanId() {
+        return randomHex(1);
+    }
+
+    private static String randomHex(int longs) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        StringBuilder sb = new StringBuilder(longs * 16);
+        for (int i = 0; i < longs; i++) {
+            long value = random.nextLong();
+            if (i == longs - 1 && value == 0)
+                value = 1;
+            String hex = Long.toHexString(value);
+            for (int pad = hex.length(); pad < 16; pad++)
+                sb.append('0');
+            sb.append(hex);
+        }
+        return sb.toString();
+    }
+
+    private static boolean isHex(String s, int length) {
+        if (s.length() != length)
+            return false;
+
+        for (int i = 0; i < length; i++) {
+            char c = s.charAt(i);
+            if ((c < '0' || c > '9') && (c < 'a' || c > 'f'))
+                return false;
+        }
+        return true;
+    }
+
+    private static boolean isZero(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) != '0')
+                return false;
+        }
+        return true;
+    }
+}
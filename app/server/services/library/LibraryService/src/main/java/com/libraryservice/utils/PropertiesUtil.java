@@ -18,11 +18,35 @@ public final class PropertiesUtil {
 
     /**
      * Получение свойства по названию
+     * Системное свойство JVM с тем же названием имеет приоритет над файлом,
+     * например, для запуска интеграционных тестов с -Ddb.url=...
      * @param key название свойства (ключ)
      * @return строковое значение свойства
      */
     public static String get(String key) {
-        return PROPERTIES.getProperty(key);
+        return System.getProperty(key, PROPERTIES.getProperty(key));
+    }
+
+    /**
+     * Получение целочисленного свойства по названию
+     * @param key название свойства (ключ)
+     * @param defaultValue значение, если свойство не задано
+     * @return числовое значение свойства
+     */
+    public static int getInt(String key, int defaultValue) {
+        String value = get(key);
+        return value == null ? defaultValue : Integer.parseInt(value.trim());
+    }
+
+    /**
+     * Получение логического свойства по названию
+     * @param key название свойства (ключ)
+     * @param defaultValue значение, если свойство не задано
+     * @return значение свойства
+     */
+    public static boolean getBoolean(String key, boolean defaultValue) {
+        String value = get(key);
+        return value == null ? defaultValue : Boolean.parseBoolean(value.trim());
     }
 
     /**
@@ -0,0 +1,12 @@
+-- Пара (библиотека, книга) уникальна: первичный ключ заменяет последовательное сканирование
+-- при выборке книг библиотеки, проверке наличия и изменении available_count
+ALTER TABLE public.library_books
+    ADD CONSTRAINT library_books_pkey PRIMARY KEY (library_id, book_id);
+
+-- Соединение со стороны книги (поиск библиотек, где есть книга) и внешний ключ на books
+CREATE INDEX IF NOT EXISTS library_books_book_id_idx
+    ON public.library_books (book_id);
+
+-- Поиск библиотек по городу; адрес и название включены, чтобы список строился только по индексу
+CREATE INDEX IF NOT EXISTS library_city_idx
+    ON public.library (city) INCLUDE (id, library_uid, name, address);
@@ -0,0 +1,10 @@
+-- Ключи применённых операций взятия и возврата книги: шаг саги, повторённый после потерянного ответа,
+-- не меняет available_count второй раз. Записи старше срока хранения удаляются по applied_at
+CREATE TABLE IF NOT EXISTS public.library_book_operation
+(
+    operation_key uuid PRIMARY KEY,
+    applied_at    TIMESTAMP NOT NULL DEFAULT now()
+);
+
+CREATE INDEX IF NOT EXISTS library_book_operation_applied_at_idx
+    ON public.library_book_operation (applied_at);
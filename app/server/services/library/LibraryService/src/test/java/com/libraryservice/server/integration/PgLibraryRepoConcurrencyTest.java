@@ -0,0 +1,224 @@
+package com.libraryservice.server.integration;
+
+import com.libraryservice.exception.BookIsNotAvailable;
+import com.libraryservice.repository.PgLibraryRepo;
+import com.libraryservice.utils.ConnectionManager;
+import io.qameta.allure.Description;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Конкурентное взятие и возврат одной книги на настоящей базе данных
+ * Адрес базы берётся из database.properties или из -Ddb.url=...; если база недоступна, тесты пропускаются
+ */
+public class PgLibraryRepoConcurrencyTest {
+    private static final int COPIES = 50;
+    private static final int THREADS = 32;
+    private static final int ATTEMPTS_PER_THREAD = 10;
+
+    private final PgLibraryRepo repo = new PgLibraryRepo();
+
+    private int libraryId;
+    private int bookId;
+    private UUID libraryUid;
+    private UUID bookUid;
+
+    @BeforeClass
+    public static void checkDatabase() {
+        try (Connection conn = ConnectionManager.get()) {
+            Assume.assumeTrue(conn.isValid(2));
+        } catch (SQLException e) {
+            Assume.assumeNoException("База данных недоступна", e);
+        }
+    }
+
+    @Before
+    public void setUp() throws SQLException {
+        libraryUid = UUID.randomUUID();
+        bookUid = UUID.randomUUID();
+
+        try (Connection conn = ConnectionManager.get()) {
+            libraryId = insertReturningId(conn, "INSERT INTO public.library (library_uid, name, city, address) " +
+                    "VALUES (?, 'Тестовая библиотека', 'Тестовый город', 'Тестовая улица') RETURNING id", libraryUid);
+            bookId = insertReturningId(conn, "INSERT INTO public.books (book_uid, name, author, genre, condition) " +
+                    "VALUES (?, 'Популярная книга', 'Автор', 'Жанр', 'EXCELLENT') RETURNING id", bookUid);
+
+            try (PreparedStatement st = conn.prepareStatement(
+                    "INSERT INTO public.library_books (book_id, library_id, available_count) VALUES (?, ?, ?)")) {
+                st.setInt(1, bookId);
+                st.setInt(2, libraryId);
+                st.setInt(3, COPIES);
+                st.executeUpdate();
+            }
+        }
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        try (Connection conn = ConnectionManager.get()) {
+            execute(conn, "DELETE FROM public.library_books WHERE library_id = ? AND book_id = ?", libraryId, bookId);
+            execute(conn, "DELETE FROM public.books WHERE id = ?", bookId);
+            execute(conn, "DELETE FROM public.library WHERE id = ?", libraryId);
+        }
+    }
+
+    @Test
+    @Description("Конкурентное взятие популярной книги: выдаётся ровно столько экземпляров, сколько было")
+    public void checkTakeBookNeverOversells() throws Exception {
+        // arrange
+        AtomicInteger taken = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        // act
+        runConcurrently(() -> {
+            for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                try {
+                    repo.takeBook(libraryUid, bookUid);
+                    taken.incrementAndGet();
+                } catch (BookIsNotAvailable e) {
+                    rejected.incrementAndGet();
+                }
+            }
+            return null;
+        });
+
+        // assert
+        assertEquals(COPIES, taken.get());
+        assertEquals(THREADS * ATTEMPTS_PER_THREAD - COPIES, rejected.get());
+        assertEquals(0, availableCount());
+    }
+
+    @Test
+    @Description("Конкурентные взятия и возвраты одной книги: ни одно изменение не теряется")
+    public void checkTakeAndReturnKeepCount() throws Exception {
+        // arrange
+        AtomicInteger taken = new AtomicInteger();
+
+        // act
+        runConcurrently(() -> {
+            for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                try {
+                    repo.takeBook(libraryUid, bookUid);
+                    taken.incrementAndGet();
+                    repo.returnBook(libraryUid, bookUid);
+                    taken.decrementAndGet();
+                } catch (BookIsNotAvailable e) {
+                    // все экземпляры на руках, попытка повторится на следующей итерации
+                }
+            }
+            return null;
+        });
+
+        // assert
+        assertEquals(0, taken.get());
+        assertEquals(COPIES, availableCount());
+    }
+
+    @Test
+    @Description("Повтор взятия и возврата после потерянного ответа: операция с тем же ключом применяется один раз")
+    public void checkReplayedOperationIsAppliedOnce() throws Exception {
+        // arrange
+        UUID takeKey = UUID.randomUUID();
+        UUID returnKey = UUID.randomUUID();
+        repo.takeBook(libraryUid, bookUid, takeKey);
+
+        // act
+        repo.takeBook(libraryUid, bookUid, takeKey);
+        int afterTakes = availableCount();
+        repo.returnBook(libraryUid, bookUid, returnKey);
+        repo.returnBook(libraryUid, bookUid, returnKey);
+
+        // assert
+        assertEquals(COPIES - 1, afterTakes);
+        assertEquals(COPIES, availableCount());
+    }
+
+    @Test
+    @Description("Конкурентные повторы одного взятия: книга выдаётся один раз")
+    public void checkConcurrentReplaysTakeOneCopy() throws Exception {
+        // arrange
+        UUID takeKey = UUID.randomUUID();
+
+        // act
+        runConcurrently(() -> {
+            repo.takeBook(libraryUid, bookUid, takeKey);
+            return null;
+        });
+
+        // assert
+        assertEquals(COPIES - 1, availableCount());
+    }
+
+    private void runConcurrently(Callable<Void> task) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Void>> results = new ArrayList<>();
+
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+
+            start.countDown();
+            for (Future<Void> result : results)
+                result.get();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private int availableCount() throws SQLException {
+        try (Connection conn = ConnectionManager.get();
+             PreparedStatement st = conn.prepareStatement(
+                     "SELECT available_count FROM public.library_books WHERE library_id = ? AND book_id = ?")) {
+            st.setInt(1, libraryId);
+            st.setInt(2, bookId);
+
+            try (ResultSet rs = st.executeQuery()) {
+                rs.next();
+                return rs.getInt(1);
+            }
+        }
+    }
+
+    private static int insertReturningId(Connection conn, String sql, UUID uid) throws SQLException {
+        try (PreparedStatement st = conn.prepareStatement(sql)) {
+            st.setObject(1, uid);
+
+            try (ResultSet rs = st.executeQuery()) {
+                rs.next();
+                return rs.getInt(1);
+            }
+        }
+    }
+
+    private static void execute(Connection conn, String sql, int... params) throws SQLException {
+        try (PreparedStatement st = conn.prepareStatement(sql)) {
+            for (int i = 0; i < params.length; i++)
+                st.setInt(i + 1, params[i]);
+            st.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+-- Время горячих запросов PgLibraryRepo на 1 000 000 строк library_books до и после миграции V1
+-- Данные создаются в отдельной схеме bench и удаляются в конце
+\set ON_ERROR_STOP on
+\timing on
+
+DROP SCHEMA IF EXISTS bench CASCADE;
+CREATE SCHEMA bench;
+SET search_path = bench;
+
+-- Исходная схема из ddl/library.sql: у library_books нет ни ключа, ни индексов
+CREATE TABLE library
+(
+    id          INT PRIMARY KEY,
+    library_uid uuid UNIQUE  NOT NULL,
+    name        VARCHAR(80)  NOT NULL,
+    city        VARCHAR(255) NOT NULL,
+    address     VARCHAR(255) NOT NULL
+);
+
+CREATE TABLE books
+(
+    id        INT PRIMARY KEY,
+    book_uid  uuid UNIQUE  NOT NULL,
+    name      VARCHAR(255) NOT NULL,
+    author    VARCHAR(255),
+    genre     VARCHAR(255),
+    condition VARCHAR(20) DEFAULT 'EXCELLENT'
+);
+
+CREATE TABLE library_books
+(
+    book_id         INT REFERENCES books (id),
+    library_id      INT REFERENCES library (id),
+    available_count INT NOT NULL
+);
+
+INSERT INTO library (id, library_uid, name, city, address)
+SELECT g, gen_random_uuid(), 'Библиотека №' || g, 'Город ' || (g % 100), 'Улица ' || g
+FROM generate_series(1, 1000) g;
+
+INSERT INTO books (id, book_uid, name, author, genre, condition)
+SELECT g, gen_random_uuid(), 'Книга ' || g, 'Автор ' || (g % 300), 'Жанр ' || (g % 20), 'EXCELLENT'
+FROM generate_series(1, 1000) g;
+
+INSERT INTO library_books (book_id, library_id, available_count)
+SELECT b, l, (b + l) % 5
+FROM generate_series(1, 1000) l, generate_series(1, 1000) b;
+
+ANALYZE;
+
+SELECT library_uid AS lib_uid FROM library WHERE id = 500 \gset
+SELECT book_uid AS book_uid FROM books WHERE id = 500 \gset
+
+\echo '=== До миграции'
+\ir queries.sql
+
+ALTER TABLE library_books ADD CONSTRAINT library_books_pkey PRIMARY KEY (library_id, book_id);
+CREATE INDEX library_books_book_id_idx ON library_books (book_id);
+CREATE INDEX library_city_idx ON library (city) INCLUDE (id, library_uid, name, address);
+VACUUM ANALYZE;
+
+\echo '=== После миграции'
+\ir queries.sql
+
+RESET search_path;
+DROP SCHEMA bench CASCADE;
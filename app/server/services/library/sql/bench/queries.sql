@@ -0,0 +1,46 @@
+\echo '--- getLibrariesByCity'
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+SELECT id, library_uid, name, city, address FROM library WHERE city = 'Город 42';
+
+\echo '--- getBooksByLibrary'
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+SELECT b.id, b.book_uid, b.name, author, genre, condition, lb.available_count
+FROM books b JOIN library_books lb ON b.id = lb.book_id
+JOIN library l ON lb.library_id = l.id
+WHERE l.library_uid = :'lib_uid';
+
+\echo '--- getBooksByLibrary, showAll=false'
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+SELECT b.id, b.book_uid, b.name, author, genre, condition, lb.available_count
+FROM books b JOIN library_books lb ON b.id = lb.book_id
+JOIN library l ON lb.library_id = l.id
+WHERE l.library_uid = :'lib_uid' AND lb.available_count > 0
+ORDER BY lb.book_id
+LIMIT 20 OFFSET 0;
+
+\echo '--- isAvailable / getLibraryBookInfo'
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+SELECT lb.available_count
+FROM books b JOIN library_books lb ON b.id = lb.book_id
+JOIN library l ON lb.library_id = l.id
+WHERE l.library_uid = :'lib_uid' AND b.book_uid = :'book_uid';
+
+\echo '--- takeBook'
+BEGIN;
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+UPDATE library_books
+SET available_count = available_count - 1
+WHERE library_id = (SELECT id FROM library WHERE library_uid = :'lib_uid')
+  AND book_id = (SELECT id FROM books WHERE book_uid = :'book_uid')
+  AND available_count > 0
+RETURNING available_count;
+ROLLBACK;
+
+\echo '--- returnBook'
+BEGIN;
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+UPDATE library_books
+SET available_count = available_count + 1
+WHERE library_id = (SELECT id FROM library WHERE library_uid = :'lib_uid')
+  AND book_id = (SELECT id FROM books WHERE book_uid = :'book_uid');
+ROLLBACK;
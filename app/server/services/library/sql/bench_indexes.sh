@@ -0,0 +1,5 @@
+#!/bin/bash
+# copy benchmark scripts and run them
+docker cp . database:/
+
+docker exec database sh -c "/sh/bench_indexes.sh $1"
@@ -3,6 +3,8 @@ package com.ratingservice.controller;
 import com.ratingservice.dto.UserRatingResponse;
 import com.ratingservice.mapper.RatingMapper;
 import com.ratingservice.service.RatingService;
+import com.ratingservice.utils.ConnectionManager;
+import com.ratingservice.utils.PoolStats;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.http.HttpStatus;
@@ -27,4 +29,14 @@ public class HealthcheckController {
     public ResponseEntity<String> returnOk() {
         return ResponseEntity.status(HttpStatus.OK).build();
     }
+
+    /**
+     * Состояние пула соединений с базой данных
+     * @return число активных, свободных и ожидающих соединений и счётчики пула
+     */
+    @Operation(summary = "Connection pool stats")
+    @GetMapping("/pool")
+    public ResponseEntity<PoolStats> poolStats() {
+        return ResponseEntity.status(HttpStatus.OK).body(ConnectionManager.getPool().getStats());
+    }
 }
@@ -1,6 +1,9 @@
 package com.ratingservice.controller;
 
+import com.ratingservice.dto.RatingDeltaRequest;
+import com.ratingservice.dto.RatingDeltaResult;
 import com.ratingservice.dto.UserRatingResponse;
+import com.ratingservice.entity.RatingDelta;
 import com.ratingservice.mapper.RatingMapper;
 import com.ratingservice.service.RatingService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -15,6 +18,7 @@ import java.net.URISyntaxException;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.List;
 
 @RestController
 @Tag(name = "RATING")
@@ -59,6 +63,25 @@ public class RatingController {
         return ResponseEntity.status(HttpStatus.OK).build();
     }
 
+    /**
+     * Изменение рейтингов нескольких пользователей одним запросом
+     * Изменения с уже применённым идентификатором пропускаются, некорректные отклоняются,
+     * остальные применяются в переданном порядке
+     * @param deltas изменения рейтинга с идентификаторами
+     * @return итог по каждому изменению в порядке запроса и статус 200 OK
+     * @throws SQLException при неуспешном подключении или внутренней ошибке базы данных
+     */
+    @Operation(summary = "Обновить рейтинги нескольких пользователей")
+    @PutMapping("/batch")
+    public ResponseEntity<List<RatingDeltaResult>> updateRatings(@RequestBody List<RatingDeltaRequest> deltas) throws SQLException {
+        List<RatingDelta> ratingDeltas = new ArrayList<>();
+        for (RatingDeltaRequest delta : deltas) {
+            ratingDeltas.add(mapper.fromDeltaRequest(delta));
+        }
+
+        return ResponseEntity.status(HttpStatus.OK).body(ratingService.updateRatings(ratingDeltas));
+    }
+
     /**
      * Добавление нового пользователя
      * @param username имя пользователя, информацию о котором требуется обновить
@@ -0,0 +1,26 @@
+package com.ratingservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Getter
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RatingDeltaRequest {
+    /**
+     * Идентификатор изменения, по которому отбрасываются повторы; может отсутствовать
+     */
+    private UUID id;
+
+    private String username;
+
+    /**
+     * Численное изменение рейтинга (на сколько изменился)
+     */
+    private int delta;
+}
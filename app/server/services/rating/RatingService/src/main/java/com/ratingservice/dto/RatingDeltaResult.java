@@ -0,0 +1,29 @@
+package com.ratingservice.dto;
+
+import com.ratingservice.entity.RatingDeltaStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Getter
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RatingDeltaResult {
+    private UUID id;
+    private String username;
+    private RatingDeltaStatus status;
+
+    /**
+     * Рейтинг пользователя после применения пакета; 0, если изменение отклонено
+     */
+    private int stars;
+
+    /**
+     * Причина отклонения изменения
+     */
+    private String error;
+}
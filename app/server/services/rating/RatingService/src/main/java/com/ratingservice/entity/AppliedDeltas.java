@@ -0,0 +1,26 @@
+package com.ratingservice.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Итог применения пакета изменений рейтинга
+ */
+@Getter
+@AllArgsConstructor
+public class AppliedDeltas {
+    /**
+     * Итоговые рейтинги пользователей в порядке первого упоминания
+     */
+    private Map<String, Integer> ratings;
+
+    /**
+     * Идентификаторы изменений, применённых этим пакетом; изменения с другими идентификаторами
+     * были применены раньше и пропущены
+     */
+    private Set<UUID> appliedIds;
+}
@@ -0,0 +1,25 @@
+package com.ratingservice.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.UUID;
+
+@Builder
+@Getter
+@AllArgsConstructor
+public class RatingDelta {
+    String username;
+    int delta;
+
+    /**
+     * Идентификатор изменения: изменение с уже применённым идентификатором повторно не применяется;
+     * null - изменение применяется всегда
+     */
+    UUID id;
+
+    public RatingDelta(String username, int delta) {
+        this(username, delta, null);
+    }
+}
@@ -0,0 +1,21 @@
+package com.ratingservice.entity;
+
+/**
+ * Результат одного изменения из пакета
+ */
+public enum RatingDeltaStatus {
+    /**
+     * Изменение применено
+     */
+    APPLIED,
+
+    /**
+     * Изменение с этим идентификатором уже было применено, повторно не применялось
+     */
+    DUPLICATE,
+
+    /**
+     * Изменение некорректно и не применялось; остальные изменения пакета применены
+     */
+    REJECTED
+}
@@ -1,6 +1,8 @@
 package com.ratingservice.mapper;
 
+import com.ratingservice.dto.RatingDeltaRequest;
 import com.ratingservice.dto.UserRatingResponse;
+import com.ratingservice.entity.RatingDelta;
 import org.springframework.stereotype.Component;
 
 @Component
@@ -13,4 +15,17 @@ public class RatingMapper {
     public UserRatingResponse toRatingResponse(int rating) {
         return new UserRatingResponse(rating);
     }
+
+    /**
+     * Конвертация из DTO RatingDeltaRequest в сущность изменения рейтинга
+     * @param request идентификатор изменения, имя пользователя и изменение рейтинга
+     * @return сущность изменения рейтинга
+     */
+    public RatingDelta fromDeltaRequest(RatingDeltaRequest request) {
+        return RatingDelta.builder()
+                .id(request.getId())
+                .username(request.getUsername())
+                .delta(request.getDelta())
+                .build();
+    }
 }
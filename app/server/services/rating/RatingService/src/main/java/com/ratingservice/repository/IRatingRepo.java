@@ -1,14 +1,28 @@
 package com.ratingservice.repository;
 
+import com.ratingservice.entity.AppliedDeltas;
 import com.ratingservice.entity.Rating;
+import com.ratingservice.entity.RatingDelta;
 
 import java.sql.SQLException;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 
 /**
  * Интерфейс репозитория используется для работы с таблицей, отвечающей за места в базе данных
  */
 public interface IRatingRepo {
+    /**
+     * Сколько хранятся идентификаторы применённых изменений: повтор изменения позже этого срока
+     * будет применён ещё раз
+     */
+    Duration APPLIED_DELTA_RETENTION = Duration.ofDays(7);
+
     /**
      * Получение рейтинга пользователя по его имени
      * @param username имя пользователя, информацию о котором требуется получить
@@ -32,4 +46,53 @@ public interface IRatingRepo {
      * @throws SQLException при неуспешном подключении или внутренней ошибке базы данных
      */
     public void addUser(String username, int newRating) throws SQLException;
+
+    /**
+     * Атомарное изменение рейтинга пользователя одним запросом
+     * Новое значение ограничивается диапазоном от 1 до 100, пользователь без рейтинга добавляется
+     * @param username имя пользователя, информацию о котором требуется обновить
+     * @param delta численное изменение рейтинга (на сколько изменился)
+     * @return новое значение рейтинга
+     * @throws SQLException при неуспешном подключении или внутренней ошибке базы данных
+     */
+    public int applyDelta(String username, int delta) throws SQLException;
+
+    /**
+     * Изменение рейтингов нескольких пользователей в одной транзакции
+     * Изменения применяются в переданном порядке по тем же правилам, что и applyDelta.
+     * Изменение, идентификатор которого уже применялся (в том числе раньше в этом же пакете), пропускается
+     * @param deltas изменения рейтинга, у одного пользователя их может быть несколько
+     * @return итоговые рейтинги пользователей и идентификаторы изменений, применённых этим вызовом
+     * @throws SQLException при неуспешном подключении или внутренней ошибке базы данных
+     */
+    public AppliedDeltas applyDeltas(List<RatingDelta> deltas) throws SQLException;
+
+    /**
+     * Получение идентификаторов изменений, применённых за время хранения APPLIED_DELTA_RETENTION
+     * @return идентификаторы изменений
+     * @throws SQLException при неуспешном подключении или внутренней ошибке базы данных
+     */
+    public Set<UUID> getAppliedDeltaIds() throws SQLException;
+
+    /**
+     * Запись идентификаторов применённых изменений; уже записанные идентификаторы пропускаются
+     * @param ids идентификаторы изменений
+     * @throws SQLException при неуспешном подключении или внутренней ошибке базы данных
+     */
+    public void saveAppliedDeltaIds(Collection<UUID> ids) throws SQLException;
+
+    /**
+     * Получение рейтингов всех пользователей
+     * @return пары имя пользователя - рейтинг
+     * @throws SQLException при неуспешном подключении или внутренней ошибке базы данных
+     */
+    public Map<String, Integer> getAllRatings() throws SQLException;
+
+    /**
+     * Запись рейтингов нескольких пользователей одним запросом
+     * Отсутствующие пользователи добавляются, у существующих рейтинг заменяется переданным значением
+     * @param ratings пары имя пользователя - новое значение рейтинга
+     * @throws SQLException при неуспешном подключении или внутренней ошибке базы данных
+     */
+    public void setRatings(Map<String, Integer> ratings) throws SQLException;
 }
@@ -0,0 +1,424 @@
+package com.ratingservice.repository;
+
+import com.ratingservice.entity.AppliedDeltas;
+import com.ratingservice.entity.RatingDelta;
+import com.ratingservice.utils.RatingLog;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Repository;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Репозиторий, хранящий рейтинги в памяти (rating.store.mode=memory)
+ * При старте загружает таблицу rating и дописывает в неё значения из журнала, оставшегося после сбоя.
+ * Чтение выполняется только из памяти; каждое изменение до ответа клиенту записывается в журнал RatingLog,
+ * а в базу данных изменённые рейтинги периодически записываются одним запросом.
+ * Рассчитан на единственный экземпляр сервиса: изменения таблицы в обход сервиса не видны до перезапуска
+ */
+@Repository
+@Primary
+@DependsOn("migrationConfig")
+@ConditionalOnProperty(name = "rating.store.mode", havingValue = "memory")
+public class MemoryRatingRepo implements IRatingRepo {
+    private static final Logger log = LoggerFactory.getLogger(MemoryRatingRepo.class);
+
+    private static final int MIN_RATING = 1;
+    private static final int MAX_RATING = 100;
+
+    /**
+     * Результат write для изменения, идентификатор которого уже применялся
+     */
+    private static final int ALREADY_APPLIED = -1;
+
+    /**
+     * Рейтинг одного пользователя; значение хранится в примитивном поле и меняется под монитором ячейки,
+     * чтобы записи одного пользователя попадали в журнал в том же порядке, в каком применялись.
+     * Новая ячейка до первой записи в журнал хранит 0 и для читателей не отличается от отсутствующей;
+     * если первая запись не удалась, ячейка удаляется из карты и помечается removed
+     */
+    private static final class Cell {
+        volatile int stars;
+        boolean removed;
+
+        Cell(int stars) {
+            this.stars = stars;
+        }
+    }
+
+    private final IRatingRepo db;
+    private final Path logDir;
+    private final boolean fsync;
+    private final long flushIntervalMs;
+
+    private final ConcurrentHashMap<String, Cell> ratings = new ConcurrentHashMap<>();
+
+    /**
+     * Пользователи, рейтинг которых изменился после последней записи в базу данных
+     */
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Идентификаторы применённых изменений и время применения в миллисекундах;
+     * хранятся APPLIED_DELTA_RETENTION, как и в таблице rating_applied_delta
+     */
+    private final ConcurrentHashMap<UUID, Long> appliedDeltas = new ConcurrentHashMap<>();
+
+    /**
+     * Идентификаторы изменений, записанные в журнал, но ещё не в базу данных
+     */
+    private final Set<UUID> unsavedDeltas = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Изменения берут блокировку на чтение, смена сегмента журнала - на запись,
+     * поэтому в момент смены сегмента нет изменений, применённых в памяти, но не записанных в журнал
+     */
+    private final ReentrantReadWriteLock rotationLock = new ReentrantReadWriteLock();
+
+    /**
+     * Закрытые сегменты журнала, значения которых ещё не записаны в базу данных
+     */
+    private final List<Path> pendingSegments = new ArrayList<>();
+
+    private RatingLog ratingLog;
+    private ScheduledExecutorService flusher;
+
+    public MemoryRatingRepo(@Qualifier("pgRatingRepo") IRatingRepo db,
+                            @Value("${rating.store.log-dir:rating-log}") String logDir,
+                            @Value("${rating.store.log-fsync:true}") boolean fsync,
+                            @Value("${rating.store.flush-interval-ms:1000}") long flushIntervalMs) {
+        this.db = db;
+        this.logDir = Paths.get(logDir);
+        this.fsync = fsync;
+        this.flushIntervalMs = flushIntervalMs;
+    }
+
+    /**
+     * Загрузка рейтингов из базы данных и восстановление изменений, не записанных в неё до остановки
+     * @throws SQLException при неуспешном подключении или внутренней ошибке базы данных
+     * @throws IOException при ошибке чтения или создания журнала
+     */
+    @PostConstruct
+    public void load() throws SQLException, IOException {
+        for (Map.Entry<String, Integer> e : db.getAllRatings().entrySet())
+            ratings.put(e.getKey(), new Cell(e.getValue()));
+
+        long now = System.currentTimeMillis();
+        for (UUID id : db.getAppliedDeltaIds())
+            appliedDeltas.put(id, now);
+
+        ratingLog = new RatingLog(logDir, fsync);
+        List<Path> leftovers = ratingLog.segments();
+        int replayed = 0;
+        for (Path segment : leftovers) {
+            replayed += RatingLog.replay(segment, (username, stars, deltaId) -> {
+                ratings.computeIfAbsent(username, u -> new Cell(stars)).stars = stars;
+                dirty.add(username);
+                if (deltaId != null) {
+                    appliedDeltas.put(deltaId, now);
+                    unsavedDeltas.add(deltaId);
+                }
+            });
+        }
+
+        pendingSegments.addAll(leftovers);
+        ratingLog.open();
+        log.info("Загружено рейтингов: {}, восстановлено из журнала: {}", ratings.size(), replayed);
+
+        flush();
+
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "rating-store-flusher");
+            t.setDaemon(true);
+            return t;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Запись оставшихся изменений в базу данных при остановке сервиса
+     */
+    @PreDestroy
+    public void close() throws IOException {
+        if (flusher != null) {
+            flusher.shutdown();
+            try {
+                flusher.awaitTermination(flushIntervalMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        flushQuietly();
+        ratingLog.close();
+    }
+
+    /**
+     * Получение рейтинга пользователя по его имени
+     * @param username имя пользователя, информацию о котором требуется получить
+     * @return число от 0 до 100, равное рейтингу пользователя
+     */
+    @Override
+    public int getRatingByUsername(String username) {
+        Cell cell = ratings.get(username);
+        return cell == null ? 0 : cell.stars;
+    }
+
+    /**
+     * Изменение рейтинга пользователя
+     * @param username имя пользователя, информацию о котором требуется обновить
+     * @param newRating новое значение рейтинга (на сколько изменился)
+     * @throws SQLException при ошибке записи в журнал
+     */
+    @Override
+    public void updateRating(String username, int newRating) throws SQLException {
+        Cell cell = ratings.get(username);
+        if (cell != null)
+            write(username, cell, newRating, false, null);
+    }
+
+    /**
+     * Добавление нового пользователя
+     * @param username имя пользователя, информацию о котором требуется обновить
+     * @param newRating значение рейтинга
+     * @throws SQLException если пользователь уже существует или при ошибке записи в журнал
+     */
+    @Override
+    public void addUser(String username, int newRating) throws SQLException {
+        Cell created = new Cell(0);
+        if (ratings.putIfAbsent(username, created) != null)
+            throw new SQLException("Пользователь " + username + " уже существует", "23505");
+
+        write(username, created, newRating, false, null);
+    }
+
+    /**
+     * Изменение рейтинга пользователя в памяти
+     * Новое значение ограничивается диапазоном от 1 до 100, пользователь без рейтинга добавляется
+     * @param username имя пользователя, информацию о котором требуется обновить
+     * @param delta численное изменение рейтинга (на сколько изменился)
+     * @return новое значение рейтинга
+     * @throws SQLException при ошибке записи в журнал
+     */
+    @Override
+    public int applyDelta(String username, int delta) throws SQLException {
+        Cell cell = ratings.computeIfAbsent(username, u -> new Cell(0));
+        return write(username, cell, delta, true, null);
+    }
+
+    /**
+     * Изменение рейтингов нескольких пользователей в памяти
+     * Каждое изменение записывается в журнал вместе со своим идентификатором, но пакет не атомарен:
+     * при ошибке журнала уже применённые изменения пакета сохраняются, и при повторе пакета
+     * они пропускаются по идентификатору
+     * @param deltas изменения рейтинга, у одного пользователя их может быть несколько
+     * @return итоговые рейтинги пользователей и идентификаторы изменений, применённых этим вызовом
+     * @throws SQLException при ошибке записи в журнал
+     */
+    @Override
+    public AppliedDeltas applyDeltas(List<RatingDelta> deltas) throws SQLException {
+        Map<String, Integer> result = new LinkedHashMap<>();
+        Set<UUID> appliedIds = new HashSet<>();
+        for (RatingDelta d : deltas) {
+            Cell cell = ratings.computeIfAbsent(d.getUsername(), u -> new Cell(0));
+            int stars = write(d.getUsername(), cell, d.getDelta(), true, d.getId());
+            if (stars == ALREADY_APPLIED) {
+                result.put(d.getUsername(), getRatingByUsername(d.getUsername()));
+                continue;
+            }
+
+            result.put(d.getUsername(), stars);
+            if (d.getId() != null)
+                appliedIds.add(d.getId());
+        }
+
+        return new AppliedDeltas(result, appliedIds);
+    }
+
+    /**
+     * Получение идентификаторов изменений, применённых за время хранения
+     * @return идентификаторы изменений
+     */
+    @Override
+    public Set<UUID> getAppliedDeltaIds() {
+        return new HashSet<>(appliedDeltas.keySet());
+    }
+
+    /**
+     * Идентификаторы попадают в базу данных при записи рейтингов, см. flush
+     * @param ids идентификаторы изменений
+     * @throws SQLException при неуспешном подключении или внутренней ошибке базы данных
+     */
+    @Override
+    public void saveAppliedDeltaIds(Collection<UUID> ids) throws SQLException {
+        db.saveAppliedDeltaIds(ids);
+    }
+
+    /**
+     * Получение рейтингов всех пользователей
+     * @return пары имя пользователя - рейтинг
+     */
+    @Override
+    public Map<String, Integer> getAllRatings() {
+        Map<String, Integer> snapshot = new HashMap<>();
+        for (Map.Entry<String, Cell> e : ratings.entrySet()) {
+            int stars = e.getValue().stars;
+            if (stars != 0)
+                snapshot.put(e.getKey(), stars);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Запись рейтингов нескольких пользователей
+     * @param ratings пары имя пользователя - новое значение рейтинга
+     * @throws SQLException при ошибке записи в журнал
+     */
+    @Override
+    public void setRatings(Map<String, Integer> ratings) throws SQLException {
+        for (Map.Entry<String, Integer> e : ratings.entrySet()) {
+            Cell cell = this.ratings.computeIfAbsent(e.getKey(), u -> new Cell(0));
+            write(e.getKey(), cell, e.getValue(), false, null);
+        }
+    }
+
+    /**
+     * Запись изменённых рейтингов и идентификаторов применённых изменений в базу данных
+     * Текущий сегмент журнала закрывается; закрытые сегменты удаляются только после успешной записи,
+     * при ошибке пользователи и идентификаторы снова помечаются несохранёнными и попадут в следующую запись
+     * @throws SQLException при неуспешном подключении или внутренней ошибке базы данных
+     * @throws IOException при ошибке смены сегмента журнала
+     */
+    public synchronized void flush() throws SQLException, IOException {
+        if (dirty.isEmpty() && pendingSegments.isEmpty())
+            return;
+
+        List<String> batch = new ArrayList<>();
+        List<UUID> deltaIds = new ArrayList<>();
+        rotationLock.writeLock().lock();
+        try {
+            pendingSegments.add(ratingLog.rotate());
+            for (Iterator<String> it = dirty.iterator(); it.hasNext(); ) {
+                batch.add(it.next());
+                it.remove();
+            }
+            for (Iterator<UUID> it = unsavedDeltas.iterator(); it.hasNext(); ) {
+                deltaIds.add(it.next());
+                it.remove();
+            }
+        } finally {
+            rotationLock.writeLock().unlock();
+        }
+
+        Map<String, Integer> values = new HashMap<>();
+        for (String username : batch)
+            values.put(username, ratings.get(username).stars);
+
+        try {
+            db.setRatings(values);
+            db.saveAppliedDeltaIds(deltaIds);
+        } catch (SQLException e) {
+            dirty.addAll(batch);
+            unsavedDeltas.addAll(deltaIds);
+            throw e;
+        }
+
+        long expired = System.currentTimeMillis() - APPLIED_DELTA_RETENTION.toMillis();
+        appliedDeltas.values().removeIf(appliedAt -> appliedAt < expired);
+
+        ratingLog.delete(pendingSegments);
+        pendingSegments.clear();
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (SQLException | IOException e) {
+            log.warn("Не удалось записать рейтинги в базу данных, повтор через {} мс", flushIntervalMs, e);
+        }
+    }
+
+    /**
+     * Запись значения в журнал и в ячейку
+     * Если ячейку успели удалить после неудачной первой записи, значение пишется в новую ячейку.
+     * Идентификатор изменения занимается атомарно через putIfAbsent до записи в журнал, поэтому
+     * два пакета с одним идентификатором не применяют его дважды, даже если пользователи в них разные.
+     * При ошибке журнала идентификатор освобождается, и повтор изменения будет применён
+     * @param deltaId идентификатор изменения или null
+     * @return новое значение рейтинга или ALREADY_APPLIED, если изменение с этим идентификатором уже применено
+     */
+    private int write(String username, Cell cell, int value, boolean isDelta, UUID deltaId) throws SQLException {
+        rotationLock.readLock().lock();
+        try {
+            synchronized (cell) {
+                if (!cell.removed) {
+                    Long claimedAt = null;
+                    if (deltaId != null) {
+                        claimedAt = System.currentTimeMillis();
+                        if (appliedDeltas.putIfAbsent(deltaId, claimedAt) != null)
+                            return ALREADY_APPLIED;
+                    }
+
+                    int stars = clamp(isDelta ? cell.stars + value : value);
+                    try {
+                        ratingLog.append(username, stars, deltaId);
+                    } catch (IOException e) {
+                        if (deltaId != null)
+                            appliedDeltas.remove(deltaId, claimedAt);
+                        discardIfNew(username, cell);
+                        throw new SQLException("Не удалось записать изменение рейтинга в журнал", e);
+                    }
+                    cell.stars = stars;
+                    dirty.add(username);
+                    if (deltaId != null)
+                        unsavedDeltas.add(deltaId);
+                    return stars;
+                }
+            }
+        } finally {
+            rotationLock.readLock().unlock();
+        }
+
+        return write(username, ratings.computeIfAbsent(username, u -> new Cell(0)), value, isDelta, deltaId);
+    }
+
+    /**
+     * Удаление ячейки, в которую ещё ничего не записано: пользователь не остаётся в памяти с рейтингом 0,
+     * а повторный addUser не завершается ошибкой "уже существует". Вызывается под монитором ячейки
+     */
+    private void discardIfNew(String username, Cell cell) {
+        if (cell.stars == 0) {
+            cell.removed = true;
+            ratings.remove(username, cell);
+        }
+    }
+
+    private static int clamp(int stars) {
+        return Math.max(MIN_RATING, Math.min(MAX_RATING, stars));
+    }
+}
@@ -1,23 +1,44 @@
 package com.ratingservice.repository;
 
+import com.ratingservice.entity.AppliedDeltas;
 import com.ratingservice.entity.Rating;
+import com.ratingservice.entity.RatingDelta;
 import com.ratingservice.utils.ConnectionManager;
 import com.ratingservice.utils.ConnectionManager;
 import org.springframework.stereotype.Repository;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
 
 /**
  * Репозиторий используется для работы с таблицей places базы данных PostgreSQL
- * Для подключения используется драйвер JDBC
+ * Для подключения используется драйвер JDBC, соединения берутся из пула на время одного запроса
  */
 @Repository
 public class PgRatingRepo implements IRatingRepo {
     /**
-     * Объект подключения к БД
+     * Изменение рейтинга с ограничением диапазоном от 1 до 100, пользователь без рейтинга добавляется
      */
-    private final Connection conn = ConnectionManager.open();
+    private static final String RATING_UPSERT = "INSERT INTO public.rating AS r (username, stars) " +
+            "VALUES (?, LEAST(100, GREATEST(1, ?))) " +
+            "ON CONFLICT (username) DO UPDATE SET stars = LEAST(100, GREATEST(1, r.stars + ?)) ";
+
+    /**
+     * Запись идентификаторов применённых изменений, уже записанные пропускаются
+     */
+    private static final String APPLIED_DELTA_INSERT = "INSERT INTO public.rating_applied_delta (delta_id) " +
+            "SELECT * FROM UNNEST(?::uuid[]) " +
+            "ON CONFLICT (delta_id) DO NOTHING ";
 
     /**
      * Получение рейтинга пользователя по его имени
@@ -30,12 +51,15 @@ public class PgRatingRepo implements IRatingRepo {
         String getRating = "SELECT stars FROM public.rating " +
                 "WHERE username = ?";
 
-        PreparedStatement getRatingQuery = conn.prepareStatement(getRating);
-        getRatingQuery.setString(1, username);
-        ResultSet rs = getRatingQuery.executeQuery();
+        try (Connection conn = ConnectionManager.get();
+             PreparedStatement getRatingQuery = conn.prepareStatement(getRating)) {
+            getRatingQuery.setString(1, username);
 
-        if (rs.next())
-            return rs.getInt("stars");
+            try (ResultSet rs = getRatingQuery.executeQuery()) {
+                if (rs.next())
+                    return rs.getInt("stars");
+            }
+        }
 
         return 0;
     }
@@ -51,10 +75,12 @@ public class PgRatingRepo implements IRatingRepo {
         String ratingUpd = "UPDATE public.rating SET stars = ? " +
                 "WHERE username = ?";
 
-        PreparedStatement ratingUpdate = conn.prepareStatement(ratingUpd);
-        ratingUpdate.setInt(1, newRating);
-        ratingUpdate.setString(2, username);
-        ratingUpdate.executeUpdate();
+        try (Connection conn = ConnectionManager.get();
+             PreparedStatement ratingUpdate = conn.prepareStatement(ratingUpd)) {
+            ratingUpdate.setInt(1, newRating);
+            ratingUpdate.setString(2, username);
+            ratingUpdate.executeUpdate();
+        }
     }
 
     /**
@@ -67,9 +93,232 @@ public class PgRatingRepo implements IRatingRepo {
         String ratingUpd = "INSERT INTO public.rating (username, stars) " +
                 "VALUES (?, ?)";
 
-        PreparedStatement ratingUpdate = conn.prepareStatement(ratingUpd);
-        ratingUpdate.setString(1, username);
-        ratingUpdate.setInt(2, newRating);
-        ratingUpdate.executeUpdate();
+        try (Connection conn = ConnectionManager.get();
+             PreparedStatement ratingUpdate = conn.prepareStatement(ratingUpd)) {
+            ratingUpdate.setString(1, username);
+            ratingUpdate.setInt(2, newRating);
+            ratingUpdate.executeUpdate();
+        }
+    }
+
+    /**
+     * Атомарное изменение рейтинга пользователя одним запросом
+     * Чтение, ограничение диапазоном и запись выполняются в базе под блокировкой строки,
+     * поэтому конкурентные изменения одного пользователя не теряются; вставка нового пользователя
+     * при гонке превращается в обновление по уникальному ключу rating_username_key
+     * @param username имя пользователя, информацию о котором требуется обновить
+     * @param delta численное изменение рейтинга (на сколько изменился)
+     * @return новое значение рейтинга
+     * @throws SQLException при неуспешном подключении или внутренней ошибке базы данных
+     */
+    @Override
+    public int applyDelta(String username, int delta) throws SQLException {
+        try (Connection conn = ConnectionManager.get();
+             PreparedStatement ratingUpdate = conn.prepareStatement(RATING_UPSERT + "RETURNING stars")) {
+            ratingUpdate.setString(1, username);
+            ratingUpdate.setInt(2, delta);
+            ratingUpdate.setInt(3, delta);
+
+            try (ResultSet rs = ratingUpdate.executeQuery()) {
+                rs.next();
+                return rs.getInt("stars");
+            }
+        }
+    }
+
+    /**
+     * Изменение рейтингов нескольких пользователей в одной транзакции
+     * Изменения отправляются одним пакетом JDBC, итоговые значения читаются одним запросом в той же транзакции.
+     * Пакет упорядочен по имени пользователя с сохранением порядка изменений одного пользователя,
+     * поэтому конкурентные пакеты блокируют строки в одном порядке и не попадают во взаимную блокировку.
+     * Идентификаторы изменений сначала вставляются в rating_applied_delta в той же транзакции, и применяются
+     * только изменения, идентификатор которых вставлен этим вызовом: повтор пакета после потерянного ответа
+     * ничего не меняет, а конкурентный пакет с тем же идентификатором ждёт фиксации на первичном ключе
+     * и пропускает изменение
+     * @param deltas изменения рейтинга, у одного пользователя их может быть несколько
+     * @return итоговые рейтинги пользователей и идентификаторы изменений, применённых этим вызовом
+     * @throws SQLException при неуспешном подключении или внутренней ошибке базы данных
+     */
+    @Override
+    public AppliedDeltas applyDeltas(List<RatingDelta> deltas) throws SQLException {
+        Map<String, Integer> ratings = new LinkedHashMap<>();
+        Set<UUID> appliedIds = new HashSet<>();
+        if (deltas.isEmpty())
+            return new AppliedDeltas(ratings, appliedIds);
+
+        for (RatingDelta d : deltas)
+            ratings.put(d.getUsername(), null);
+
+        UUID[] ids = deltas.stream()
+                .map(RatingDelta::getId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .sorted()
+                .toArray(UUID[]::new);
+
+        String getRatings = "SELECT username, stars FROM public.rating " +
+                "WHERE username = ANY(?)";
+
+        try (Connection conn = ConnectionManager.get()) {
+            conn.setAutoCommit(false);
+
+            try (PreparedStatement idsInsert = conn.prepareStatement(APPLIED_DELTA_INSERT + "RETURNING delta_id");
+                 PreparedStatement ratingsUpdate = conn.prepareStatement(RATING_UPSERT);
+                 PreparedStatement getRatingsQuery = conn.prepareStatement(getRatings)) {
+                Set<UUID> claimed = new HashSet<>();
+                if (ids.length > 0) {
+                    idsInsert.setArray(1, conn.createArrayOf("uuid", ids));
+                    try (ResultSet rs = idsInsert.executeQuery()) {
+                        while (rs.next())
+                            claimed.add(rs.getObject("delta_id", UUID.class));
+                    }
+                }
+
+                List<RatingDelta> ordered = new ArrayList<>(deltas.size());
+                for (RatingDelta d : deltas) {
+                    if (d.getId() == null || (claimed.contains(d.getId()) && appliedIds.add(d.getId())))
+                        ordered.add(d);
+                }
+                ordered.sort(Comparator.comparing(RatingDelta::getUsername));
+
+                for (RatingDelta d : ordered) {
+                    ratingsUpdate.setString(1, d.getUsername());
+                    ratingsUpdate.setInt(2, d.getDelta());
+                    ratingsUpdate.setInt(3, d.getDelta());
+                    ratingsUpdate.addBatch();
+                }
+                if (!ordered.isEmpty())
+                    ratingsUpdate.executeBatch();
+
+                getRatingsQuery.setArray(1, conn.createArrayOf("varchar", ratings.keySet().toArray()));
+                try (ResultSet rs = getRatingsQuery.executeQuery()) {
+                    while (rs.next())
+                        ratings.put(rs.getString("username"), rs.getInt("stars"));
+                }
+
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+
+            if (ids.length > 0)
+                purgeAppliedDeltas(conn);
+        }
+
+        return new AppliedDeltas(ratings, appliedIds);
+    }
+
+    /**
+     * Получение идентификаторов изменений, применённых за время хранения APPLIED_DELTA_RETENTION
+     * @return идентификаторы изменений
+     * @throws SQLException при неуспешном подключении или внутренней ошибке базы данных
+     */
+    @Override
+    public Set<UUID> getAppliedDeltaIds() throws SQLException {
+        String getIds = "SELECT delta_id FROM public.rating_applied_delta " +
+                "WHERE applied_at >= now() - ? * interval '1 second'";
+        Set<UUID> ids = new HashSet<>();
+
+        try (Connection conn = ConnectionManager.get();
+             PreparedStatement getIdsQuery = conn.prepareStatement(getIds)) {
+            getIdsQuery.setLong(1, APPLIED_DELTA_RETENTION.getSeconds());
+
+            try (ResultSet rs = getIdsQuery.executeQuery()) {
+                while (rs.next())
+                    ids.add(rs.getObject("delta_id", UUID.class));
+            }
+        }
+
+        return ids;
+    }
+
+    /**
+     * Запись идентификаторов применённых изменений одним запросом; уже записанные идентификаторы пропускаются
+     * @param ids идентификаторы изменений
+     * @throws SQLException при неуспешном подключении или внутренней ошибке базы данных
+     */
+    @Override
+    public void saveAppliedDeltaIds(Collection<UUID> ids) throws SQLException {
+        if (ids.isEmpty())
+            return;
+
+        try (Connection conn = ConnectionManager.get();
+             PreparedStatement idsInsert = conn.prepareStatement(APPLIED_DELTA_INSERT)) {
+            idsInsert.setArray(1, conn.createArrayOf("uuid", ids.toArray()));
+            idsInsert.executeUpdate();
+        }
+
+        try (Connection conn = ConnectionManager.get()) {
+            purgeAppliedDeltas(conn);
+        }
+    }
+
+    /**
+     * Удаление идентификаторов старше срока хранения; выполняется вне транзакции пакета,
+     * чтобы не удерживать блокировки удалённых строк
+     */
+    private static void purgeAppliedDeltas(Connection conn) throws SQLException {
+        String purge = "DELETE FROM public.rating_applied_delta " +
+                "WHERE applied_at < now() - ? * interval '1 second'";
+
+        try (PreparedStatement purgeQuery = conn.prepareStatement(purge)) {
+            purgeQuery.setLong(1, APPLIED_DELTA_RETENTION.getSeconds());
+            purgeQuery.executeUpdate();
+        }
+    }
+
+    /**
+     * Получение рейтингов всех пользователей
+     * @return пары имя пользователя - рейтинг
+     * @throws SQLException при неуспешном подключении или внутренней ошибке базы данных
+     */
+    @Override
+    public Map<String, Integer> getAllRatings() throws SQLException {
+        String getRatings = "SELECT username, stars FROM public.rating";
+        Map<String, Integer> ratings = new HashMap<>();
+
+        try (Connection conn = ConnectionManager.get();
+             PreparedStatement getRatingsQuery = conn.prepareStatement(getRatings);
+             ResultSet rs = getRatingsQuery.executeQuery()) {
+            while (rs.next())
+                ratings.put(rs.getString("username"), rs.getInt("stars"));
+        }
+
+        return ratings;
+    }
+
+    /**
+     * Запись рейтингов нескольких пользователей одним запросом
+     * Значения передаются двумя массивами, которые разворачиваются в строки через UNNEST,
+     * поэтому число параметров запроса не зависит от числа пользователей
+     * @param ratings пары имя пользователя - новое значение рейтинга
+     * @throws SQLException при неуспешном подключении или внутренней ошибке базы данных
+     */
+    @Override
+    public void setRatings(Map<String, Integer> ratings) throws SQLException {
+        if (ratings.isEmpty())
+            return;
+
+        String ratingsUpsert = "INSERT INTO public.rating (username, stars) " +
+                "SELECT * FROM UNNEST(?::varchar[], ?::int[]) " +
+                "ON CONFLICT (username) DO UPDATE SET stars = EXCLUDED.stars";
+
+        String[] usernames = new String[ratings.size()];
+        Integer[] stars = new Integer[ratings.size()];
+        int i = 0;
+        for (Map.Entry<String, Integer> e : ratings.entrySet()) {
+            usernames[i] = e.getKey();
+            stars[i++] = e.getValue();
+        }
+
+        try (Connection conn = ConnectionManager.get();
+             PreparedStatement ratingsUpdate = conn.prepareStatement(ratingsUpsert)) {
+            ratingsUpdate.setArray(1, conn.createArrayOf("varchar", usernames));
+            ratingsUpdate.setArray(2, conn.createArrayOf("integer", stars));
+            ratingsUpdate.executeUpdate();
+        }
     }
 }
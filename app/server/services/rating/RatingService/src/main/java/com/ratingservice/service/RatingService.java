@@ -1,17 +1,32 @@
 package com.ratingservice.service;
 
+import com.ratingservice.dto.RatingDeltaResult;
+import com.ratingservice.entity.AppliedDeltas;
+import com.ratingservice.entity.RatingDelta;
+import com.ratingservice.entity.RatingDeltaStatus;
 import com.ratingservice.repository.IRatingRepo;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
 
 /**
  * Класс в слое сервисов, обращающийся к репозиторию рейтингов
  */
 @Service
 public class RatingService {
+    /**
+     * Длина столбца username таблицы rating
+     */
+    private static final int MAX_USERNAME_LENGTH = 80;
+
     /**
      * Репозиторий, работающий с рейтингами
      */
@@ -34,24 +49,53 @@ public class RatingService {
 
     /**
      * Изменение рейтинга пользователя
+     * Новое значение ограничивается диапазоном от 1 до 100 и записывается атомарно одним запросом
      * @param username имя пользователя, информацию о котором требуется обновить
      * @param delta численное изменение рейтинга (на сколько изменился)
+     * @return новое значение рейтинга
      * @throws SQLException при неуспешном подключении или внутренней ошибке базы данных
      */
-    public void updateRating(String username, int delta) throws SQLException {
-        int oldRating = getRatingByUsername(username);
-        int newRating = oldRating + delta;
+    public int updateRating(String username, int delta) throws SQLException {
+        return repo.applyDelta(username, delta);
+    }
 
-        if (newRating < 1)
-            newRating = 1;
+    /**
+     * Изменение рейтингов нескольких пользователей
+     * Некорректные изменения отклоняются по отдельности, остальные применяются в переданном порядке
+     * в одной транзакции, у одного пользователя их может быть несколько. Изменение с идентификатором,
+     * который уже применялся, пропускается: так повтор пакета после потерянного ответа не меняет рейтинг дважды
+     * @param deltas изменения рейтинга
+     * @return итог по каждому изменению в переданном порядке
+     * @throws SQLException при неуспешном подключении или внутренней ошибке базы данных
+     */
+    public List<RatingDeltaResult> updateRatings(List<RatingDelta> deltas) throws SQLException {
+        List<RatingDelta> valid = new ArrayList<>();
+        for (RatingDelta d : deltas) {
+            if (validate(d) == null)
+                valid.add(d);
+        }
 
-        if (newRating > 100)
-            newRating = 100;
+        AppliedDeltas applied = valid.isEmpty()
+                ? new AppliedDeltas(Collections.emptyMap(), Collections.emptySet())
+                : repo.applyDeltas(valid);
 
-        if (oldRating == 0)
-            repo.addUser(username, newRating);
-        else
-            repo.updateRating(username, newRating);
+        List<RatingDeltaResult> results = new ArrayList<>(deltas.size());
+        Set<UUID> reported = new HashSet<>();
+        for (RatingDelta d : deltas) {
+            String error = validate(d);
+            if (error != null) {
+                results.add(new RatingDeltaResult(d.getId(), d.getUsername(), RatingDeltaStatus.REJECTED, 0, error));
+                continue;
+            }
+
+            boolean isApplied = d.getId() == null || applied.getAppliedIds().contains(d.getId()) && reported.add(d.getId());
+            Integer stars = applied.getRatings().get(d.getUsername());
+            results.add(new RatingDeltaResult(d.getId(), d.getUsername(),
+                    isApplied ? RatingDeltaStatus.APPLIED : RatingDeltaStatus.DUPLICATE,
+                    stars == null ? 0 : stars, null));
+        }
+
+        return results;
     }
 
     /**
@@ -62,4 +106,16 @@ public class RatingService {
     public void addUser(String username) throws SQLException {
         repo.addUser(username, 1);
     }
+
+    /**
+     * Проверка изменения из пакета
+     * @return причина отклонения или null, если изменение корректно
+     */
+    private static String validate(RatingDelta delta) {
+        if (delta.getUsername() == null || delta.getUsername().trim().isEmpty())
+            return "Не указано имя пользователя";
+        if (delta.getUsername().length() > MAX_USERNAME_LENGTH)
+            return "Имя пользователя длиннее " + MAX_USERNAME_LENGTH + " символов";
+        return null;
+    }
 }
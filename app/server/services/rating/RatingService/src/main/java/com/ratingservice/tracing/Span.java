@@ -0,0 +1,91 @@
+package com.ratingservice.tracing;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Одна операция трассы: её длительность, родитель и теги
+ * Завершается вызовом end, после чего отдаётся экспортёру
+ */
+public final class Span {
+    public enum Kind {
+        SERVER,
+        CLIENT,
+        INTERNAL
+    }
+
+    private final Tracer tracer;
+    private final SpanContext context;
+    private final String parentId;
+    private final String name;
+    private final Kind kind;
+    private final long startMicros;
+    private final long startNanos;
+    private final Map<String, String> tags = new LinkedHashMap<>();
+
+    private long durationMicros = -1;
+
+    Span(Tracer tracer, SpanContext context, String parentId, String name, Kind kind) {
+        this.tracer = tracer;
+        this.context = context;
+        this.parentId = parentId;
+        this.name = name;
+        this.kind = kind;
+        this.startMicros = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+        this.startNanos = System.nanoTime();
+    }
+
+    public synchronized Span tag(String key, String value) {
+        if (value != null)
+            tags.put(key, value);
+        return this;
+    }
+
+    public Span error(Throwable e) {
+        if (e instanceof CompletionException && e.getCause() != null)
+            e = e.getCause();
+        return tag("error", e.getMessage() != null ? e.getMessage() : e.getClass().getName());
+    }
+
+    /**
+     * Завершение операции; повторные вызовы ничего не делают
+     */
+    public void end() {
+        synchronized (this) {
+            if (durationMicros >= 0)
+                return;
+            durationMicros = Math.max(1, TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos));
+        }
+        tracer.finish(this);
+    }
+
+    public SpanContext context() {
+        return context;
+    }
+
+    public String getParentId() {
+        return parentId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public long getStartMicros() {
+        return startMicros;
+    }
+
+    public synchronized long getDurationMicros() {
+        return durationMicros;
+    }
+
+    public synchronized Map<String, String> getTags() {
+        return new LinkedHashMap<>(tags);
+    }
+}
@@ -0,0 +1,89 @@
+package com.ratingservice.tracing;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Создание операций трассы и текущий контекст потока
+ * Операция без родителя начинает новую трассу и попадает в выборку с вероятностью tracing.sample-rate;
+ * дочерние операции наследуют решение родителя. Экспортируются только операции из выборки
+ */
+@Component
+public class Tracer {
+    private static final ThreadLocal<SpanContext> CURRENT = new ThreadLocal<>();
+
+    /**
+     * Восстановление контекста, действовавшего до activate
+     */
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private final SpanExporter exporter;
+    private final String serviceName;
+    private final double sampleRate;
+
+    public Tracer(SpanExporter exporter,
+                  @Value("${tracing.service-name:rating}") String serviceName,
+                  @Value("${tracing.sample-rate:1.0}") double sampleRate) {
+        this.exporter = exporter;
+        this.serviceName = serviceName;
+        this.sampleRate = sampleRate;
+    }
+
+    /**
+     * Контекст текущего потока, null - поток не выполняет трассируемую операцию
+     */
+    public SpanContext current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Начало операции, дочерней для текущего контекста потока
+     */
+    public Span startSpan(String name, Span.Kind kind) {
+        return startSpan(name, kind, CURRENT.get());
+    }
+
+    /**
+     * Начало операции
+     * @param parent контекст родителя, null - начать новую трассу
+     */
+    public Span startSpan(String name, Span.Kind kind, SpanContext parent) {
+        SpanContext context = parent != null
+                ? new SpanContext(parent.getTraceId(), SpanContext.randomSpanId(), parent.isSampled())
+                : new SpanContext(SpanContext.randomTraceId(), SpanContext.randomSpanId(),
+                ThreadLocalRandom.current().nextDouble() < sampleRate);
+
+        return new Span(this, context, parent != null ? parent.getSpanId() : null, name, kind);
+    }
+
+    /**
+     * Установка контекста потока до закрытия Scope
+     * @param context контекст, null - очистить
+     */
+    public Scope activate(SpanContext context) {
+        SpanContext previous = CURRENT.get();
+        set(context);
+        return () -> set(previous);
+    }
+
+    public String getServiceName() {
+        return serviceName;
+    }
+
+    void finish(Span span) {
+        if (span.context().isSampled())
+            exporter.export(span, serviceName);
+    }
+
+    private static void set(SpanContext context) {
+        if (context == null)
+            CURRENT.remove();
+        else
+            CURRENT.set(context);
+    }
+}
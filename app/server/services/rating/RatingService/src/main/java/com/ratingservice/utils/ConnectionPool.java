@@ -0,0 +1,326 @@
+package com.ratingservice.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.Map;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Пул соединений с базой данных
+ * Соединения выдаются в виде прокси, метод close() которого возвращает физическое соединение в пул
+ */
+public final class ConnectionPool {
+    private static final Logger log = LoggerFactory.getLogger(ConnectionPool.class);
+
+    /**
+     * Соединение, вернувшееся в пул недавно, не проверяется повторно
+     */
+    private static final long VALIDATION_BYPASS_MS = 500;
+
+    /**
+     * Способ открытия нового физического соединения
+     */
+    @FunctionalInterface
+    public interface ConnectionFactory {
+        Connection create() throws SQLException;
+    }
+
+    private final ConnectionFactory factory;
+    private final int maxSize;
+    private final long connectionTimeoutMs;
+    private final int validationTimeoutSec;
+    private final long leakDetectionThresholdMs;
+
+    /**
+     * Разрешения на выдачу соединений, их число равно размеру пула
+     */
+    private final Semaphore permits;
+
+    /**
+     * Свободные соединения, последним вернувшееся выдаётся первым
+     */
+    private final BlockingDeque<PooledEntry> idle = new LinkedBlockingDeque<>();
+
+    /**
+     * Выданные соединения, используются для поиска утечек
+     */
+    private final Map<PooledEntry, Boolean> leased = new ConcurrentHashMap<>();
+
+    private final AtomicInteger total = new AtomicInteger();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final LongAdder borrowCount = new LongAdder();
+    private final LongAdder timeoutCount = new LongAdder();
+    private final LongAdder createdCount = new LongAdder();
+    private final LongAdder discardedCount = new LongAdder();
+    private final LongAdder leakCount = new LongAdder();
+
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed;
+
+    /**
+     * @param factory способ открытия физических соединений
+     * @param maxSize максимальное число соединений
+     * @param connectionTimeoutMs время ожидания свободного соединения
+     * @param validationTimeoutSec время ожидания ответа при проверке соединения
+     * @param leakDetectionThresholdMs время удержания соединения, после которого оно считается утечкой (0 - не проверять)
+     */
+    public ConnectionPool(ConnectionFactory factory, int maxSize, long connectionTimeoutMs,
+                          int validationTimeoutSec, long leakDetectionThresholdMs) {
+        if (maxSize < 1)
+            throw new IllegalArgumentException("Размер пула должен быть положительным: " + maxSize);
+
+        this.factory = factory;
+        this.maxSize = maxSize;
+        this.connectionTimeoutMs = connectionTimeoutMs;
+        this.validationTimeoutSec = validationTimeoutSec;
+        this.leakDetectionThresholdMs = leakDetectionThresholdMs;
+        this.permits = new Semaphore(maxSize, true);
+
+        if (leakDetectionThresholdMs > 0) {
+            housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "connection-pool-housekeeper");
+                t.setDaemon(true);
+                return t;
+            });
+            long period = Math.max(1000, leakDetectionThresholdMs / 2);
+            housekeeper.scheduleAtFixedRate(this::detectLeaks, period, period, TimeUnit.MILLISECONDS);
+        } else {
+            housekeeper = null;
+        }
+    }
+
+    /**
+     * Получение соединения из пула
+     * Соединение обязательно нужно закрыть, после этого оно вернётся в пул
+     * @return соединение с базой данных
+     * @throws SQLException если свободное соединение не появилось за отведённое время или его не удалось открыть
+     */
+    public Connection getConnection() throws SQLException {
+        if (closed)
+            throw new SQLException("Пул соединений закрыт");
+
+        waiting.incrementAndGet();
+        try {
+            if (!permits.tryAcquire(connectionTimeoutMs, TimeUnit.MILLISECONDS)) {
+                timeoutCount.increment();
+                throw new SQLTransientConnectionException("Не удалось получить соединение из пула за "
+                        + connectionTimeoutMs + " мс (активных: " + leased.size() + ", всего: " + total.get() + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Ожидание соединения прервано", e);
+        } finally {
+            waiting.decrementAndGet();
+        }
+
+        try {
+            PooledEntry entry = takeIdle();
+            if (entry == null)
+                entry = createEntry();
+
+            entry.lease(leakDetectionThresholdMs > 0);
+            leased.put(entry, Boolean.TRUE);
+            borrowCount.increment();
+
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, new ConnectionHandle(entry));
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Снимок текущего состояния пула
+     */
+    public PoolStats getStats() {
+        return new PoolStats(maxSize, total.get(), leased.size(), idle.size(), waiting.get(),
+                borrowCount.sum(), timeoutCount.sum(), createdCount.sum(), discardedCount.sum(), leakCount.sum());
+    }
+
+    /**
+     * Закрытие пула: свободные соединения закрываются сразу, выданные - при возврате
+     */
+    public void close() {
+        closed = true;
+        if (housekeeper != null)
+            housekeeper.shutdownNow();
+
+        PooledEntry entry;
+        while ((entry = idle.pollFirst()) != null)
+            discard(entry);
+    }
+
+    /**
+     * Выбор живого соединения среди свободных, неработающие соединения закрываются
+     */
+    private PooledEntry takeIdle() {
+        PooledEntry entry;
+        while ((entry = idle.pollFirst()) != null) {
+            if (System.currentTimeMillis() - entry.releasedAt < VALIDATION_BYPASS_MS || isValid(entry))
+                return entry;
+
+            log.warn("Соединение с БД не прошло проверку и будет закрыто");
+            discard(entry);
+        }
+
+        return null;
+    }
+
+    private boolean isValid(PooledEntry entry) {
+        try {
+            return entry.physical.isValid(validationTimeoutSec);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private PooledEntry createEntry() throws SQLException {
+        Connection physical = factory.create();
+        total.incrementAndGet();
+        createdCount.increment();
+        return new PooledEntry(physical, physical.getTransactionIsolation());
+    }
+
+    /**
+     * Возврат соединения в пул: незавершённая транзакция откатывается, настройки сбрасываются
+     */
+    private void release(PooledEntry entry) {
+        leased.remove(entry);
+        try {
+            Connection physical = entry.physical;
+            if (closed || physical.isClosed()) {
+                discard(entry);
+                return;
+            }
+
+            if (!physical.getAutoCommit()) {
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+            if (physical.getTransactionIsolation() != entry.defaultIsolation)
+                physical.setTransactionIsolation(entry.defaultIsolation);
+            if (physical.isReadOnly())
+                physical.setReadOnly(false);
+            physical.clearWarnings();
+
+            entry.releasedAt = System.currentTimeMillis();
+            idle.offerFirst(entry);
+        } catch (SQLException e) {
+            log.warn("Не удалось вернуть соединение в исходное состояние, оно будет закрыто", e);
+            discard(entry);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void discard(PooledEntry entry) {
+        total.decrementAndGet();
+        discardedCount.increment();
+        try {
+            entry.physical.close();
+        } catch (SQLException e) {
+            log.debug("Ошибка при закрытии соединения", e);
+        }
+    }
+
+    /**
+     * Поиск соединений, удерживаемых дольше порога
+     * О каждой утечке сообщается один раз вместе со стеком вызова, получившим соединение
+     */
+    private void detectLeaks() {
+        long now = System.currentTimeMillis();
+        for (PooledEntry entry : leased.keySet()) {
+            if (!entry.leakReported && now - entry.leasedAt > leakDetectionThresholdMs) {
+                entry.leakReported = true;
+                leakCount.increment();
+                log.warn("Возможная утечка соединения: удерживается потоком {} дольше {} мс",
+                        entry.leasedBy, leakDetectionThresholdMs, entry.leaseTrace);
+            }
+        }
+    }
+
+    /**
+     * Физическое соединение и сведения о его текущей выдаче
+     */
+    private static final class PooledEntry {
+        final Connection physical;
+        final int defaultIsolation;
+        volatile long releasedAt;
+        volatile long leasedAt;
+        volatile String leasedBy;
+        volatile Exception leaseTrace;
+        volatile boolean leakReported;
+
+        PooledEntry(Connection physical, int defaultIsolation) {
+            this.physical = physical;
+            this.defaultIsolation = defaultIsolation;
+        }
+
+        void lease(boolean captureTrace) {
+            leasedAt = System.currentTimeMillis();
+            leasedBy = Thread.currentThread().getName();
+            leaseTrace = captureTrace ? new Exception("Соединение получено здесь") : null;
+            leakReported = false;
+        }
+    }
+
+    /**
+     * Обработчик прокси: close() возвращает соединение в пул, остальные вызовы передаются физическому соединению
+     */
+    private final class ConnectionHandle implements InvocationHandler {
+        private final PooledEntry entry;
+        private boolean handleClosed;
+
+        ConnectionHandle(PooledEntry entry) {
+            this.entry = entry;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!handleClosed) {
+                        handleClosed = true;
+                        release(entry);
+                    }
+                    return null;
+                case "isClosed":
+                    return handleClosed || entry.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled[" + entry.physical + "]";
+                default:
+                    break;
+            }
+
+            if (handleClosed)
+                throw new SQLException("Соединение уже возвращено в пул");
+
+            try {
+                return method.invoke(entry.physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
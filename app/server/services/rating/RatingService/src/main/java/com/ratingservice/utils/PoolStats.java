@@ -0,0 +1,42 @@
+package com.ratingservice.utils;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Снимок состояния пула соединений
+ */
+@Getter
+@AllArgsConstructor
+public class PoolStats {
+    /**
+     * Максимальное число соединений
+     */
+    int maxSize;
+
+    /**
+     * Открытые физические соединения
+     */
+    int total;
+
+    /**
+     * Соединения, выданные потокам
+     */
+    int active;
+
+    /**
+     * Свободные соединения
+     */
+    int idle;
+
+    /**
+     * Потоки, ожидающие соединения
+     */
+    int waiting;
+
+    long borrowCount;
+    long timeoutCount;
+    long createdCount;
+    long discardedCount;
+    long leakCount;
+}
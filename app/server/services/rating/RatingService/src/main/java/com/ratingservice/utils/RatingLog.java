@@ -0,0 +1,207 @@
+package com.ratingservice.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * Журнал изменений рейтингов, в который записывается каждое новое значение до ответа клиенту
+ * Журнал состоит из сегментов rating-<номер>.log; сегмент удаляется после того, как все его
+ * значения записаны в базу данных. Запись: длина имени, имя в UTF-8, рейтинг и CRC32 предыдущих полей.
+ * Запись изменения с идентификатором начинается с метки -1 и идентификатора, дальше те же поля.
+ * Запись, оборванная сбоем, при чтении отбрасывается вместе со всеми следующими
+ */
+public final class RatingLog implements Closeable {
+    private static final Pattern SEGMENT_NAME = Pattern.compile("rating-(\\d+)\\.log");
+
+    /**
+     * Метка записи с идентификатором изменения; длина имени не бывает отрицательной
+     */
+    private static final int DELTA_ID_TAG = -1;
+
+    /**
+     * Получатель записей журнала
+     */
+    @FunctionalInterface
+    public interface Entry {
+        /**
+         * @param username имя пользователя
+         * @param stars новое значение рейтинга
+         * @param deltaId идентификатор применённого изменения или null
+         */
+        void accept(String username, int stars, UUID deltaId);
+    }
+
+    private final Path dir;
+    private final boolean fsync;
+
+    private FileChannel channel;
+    private Path current;
+    private long nextSegment;
+
+    /**
+     * @param dir каталог сегментов журнала
+     * @param fsync true - сбрасывать каждую запись на диск до возврата из append
+     */
+    public RatingLog(Path dir, boolean fsync) throws IOException {
+        this.dir = dir;
+        this.fsync = fsync;
+        Files.createDirectories(dir);
+
+        List<Path> segments = segments();
+        nextSegment = segments.isEmpty() ? 1 : segmentNumber(segments.get(segments.size() - 1)) + 1;
+    }
+
+    /**
+     * Существующие сегменты в порядке записи
+     */
+    public List<Path> segments() throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "rating-*.log")) {
+            for (Path p : stream) {
+                if (SEGMENT_NAME.matcher(p.getFileName().toString()).matches())
+                    segments.add(p);
+            }
+        }
+
+        segments.sort((a, b) -> Long.compare(segmentNumber(a), segmentNumber(b)));
+        return segments;
+    }
+
+    /**
+     * Чтение сегмента
+     * @param segment файл сегмента
+     * @param consumer получатель записей в порядке записи
+     * @return число прочитанных записей
+     */
+    public static int replay(Path segment, Entry consumer) throws IOException {
+        ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(segment));
+        CRC32 crc = new CRC32();
+        int records = 0;
+
+        while (buf.remaining() >= Integer.BYTES) {
+            int start = buf.position();
+            int nameLen = buf.getInt();
+            UUID deltaId = null;
+            if (nameLen == DELTA_ID_TAG) {
+                if (buf.remaining() < 2 * Long.BYTES + Integer.BYTES)
+                    break;
+                deltaId = new UUID(buf.getLong(), buf.getLong());
+                nameLen = buf.getInt();
+            }
+            if (nameLen < 0 || buf.remaining() < nameLen + 2 * Integer.BYTES)
+                break;
+
+            byte[] name = new byte[nameLen];
+            buf.get(name);
+            int stars = buf.getInt();
+            int end = buf.position();
+            int storedCrc = buf.getInt();
+
+            crc.reset();
+            crc.update(buf.array(), start, end - start);
+            if ((int) crc.getValue() != storedCrc)
+                break;
+
+            consumer.accept(new String(name, StandardCharsets.UTF_8), stars, deltaId);
+            records++;
+        }
+
+        return records;
+    }
+
+    /**
+     * Открытие нового сегмента для записи
+     */
+    public synchronized void open() throws IOException {
+        current = dir.resolve(String.format("rating-%012d.log", nextSegment++));
+        channel = FileChannel.open(current, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Добавление записи о новом значении рейтинга
+     */
+    public void append(String username, int stars) throws IOException {
+        append(username, stars, null);
+    }
+
+    /**
+     * Добавление записи о новом значении рейтинга вместе с идентификатором изменения, которое его дало;
+     * значение и идентификатор попадают в журнал одной записью
+     * @param deltaId идентификатор изменения или null
+     */
+    public void append(String username, int stars, UUID deltaId) throws IOException {
+        byte[] name = username.getBytes(StandardCharsets.UTF_8);
+        int idBytes = deltaId == null ? 0 : Integer.BYTES + 2 * Long.BYTES;
+        ByteBuffer buf = ByteBuffer.allocate(idBytes + name.length + 3 * Integer.BYTES);
+        if (deltaId != null)
+            buf.putInt(DELTA_ID_TAG)
+                    .putLong(deltaId.getMostSignificantBits())
+                    .putLong(deltaId.getLeastSignificantBits());
+        buf.putInt(name.length).put(name).putInt(stars);
+
+        CRC32 crc = new CRC32();
+        crc.update(buf.array(), 0, buf.position());
+        buf.putInt((int) crc.getValue());
+        buf.flip();
+
+        FileChannel ch;
+        synchronized (this) {
+            ch = channel;
+            while (buf.hasRemaining())
+                ch.write(buf);
+        }
+
+        if (fsync)
+            ch.force(false);
+    }
+
+    /**
+     * Закрытие текущего сегмента и открытие следующего
+     * Вызывающий должен гарантировать, что в это время нет незавершённых вызовов append
+     * @return закрытый сегмент
+     */
+    public synchronized Path rotate() throws IOException {
+        Path closed = current;
+        channel.force(false);
+        channel.close();
+        open();
+        return closed;
+    }
+
+    /**
+     * Удаление сегментов, значения которых уже записаны в базу данных
+     */
+    public void delete(List<Path> segments) throws IOException {
+        for (Path p : segments)
+            Files.deleteIfExists(p);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null && channel.isOpen()) {
+            channel.force(false);
+            channel.close();
+        }
+    }
+
+    private static long segmentNumber(Path segment) {
+        Matcher m = SEGMENT_NAME.matcher(segment.getFileName().toString());
+        if (!m.matches())
+            throw new IllegalArgumentException("Не сегмент журнала: " + segment);
+        return Long.parseLong(m.group(1));
+    }
+}
@@ -0,0 +1,158 @@
+package com.ratingservice.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Класс, применяющий версионированные миграции схемы базы данных
+ * Миграции лежат в ресурсах db/migration и называются V<версия>__<описание>.sql,
+ * номера применённых версий хранятся в таблице schema_version
+ */
+public final class SchemaMigrator {
+    private static final Logger log = LoggerFactory.getLogger(SchemaMigrator.class);
+
+    /**
+     * Расположение файлов миграций
+     */
+    private static final String LOCATION = "classpath*:db/migration/V*__*.sql";
+
+    private static final Pattern FILE_NAME = Pattern.compile("V(\\d+)__(.+)\\.sql");
+
+    /**
+     * Ключ advisory-блокировки: несколько экземпляров сервиса не применяют миграции одновременно
+     */
+    private static final long LOCK_KEY = 0x6D696772L;
+
+    private SchemaMigrator() {
+    }
+
+    /**
+     * Применение всех миграций, версия которых больше последней применённой
+     * Каждая миграция выполняется в отдельной транзакции вместе с записью в schema_version
+     * @throws SQLException при ошибке выполнения миграции
+     * @throws IOException при ошибке чтения файлов миграций
+     */
+    public static void migrate() throws SQLException, IOException {
+        List<Migration> migrations = loadMigrations();
+
+        try (Connection conn = ConnectionManager.get()) {
+            try (Statement lock = conn.createStatement()) {
+                lock.execute("SELECT pg_advisory_lock(" + LOCK_KEY + ")");
+            }
+
+            try {
+                createVersionTable(conn);
+                int current = currentVersion(conn);
+
+                for (Migration m : migrations) {
+                    if (m.version > current)
+                        apply(conn, m);
+                }
+            } finally {
+                try (Statement unlock = conn.createStatement()) {
+                    unlock.execute("SELECT pg_advisory_unlock(" + LOCK_KEY + ")");
+                }
+            }
+        }
+    }
+
+    private static List<Migration> loadMigrations() throws IOException {
+        List<Migration> migrations = new ArrayList<>();
+
+        for (Resource resource : new PathMatchingResourcePatternResolver().getResources(LOCATION)) {
+            Matcher m = FILE_NAME.matcher(resource.getFilename());
+            if (!m.matches())
+                continue;
+
+            try (InputStream in = resource.getInputStream()) {
+                migrations.add(new Migration(Integer.parseInt(m.group(1)), m.group(2).replace('_', ' '),
+                        new String(in.readAllBytes(), StandardCharsets.UTF_8)));
+            }
+        }
+
+        migrations.sort(Comparator.comparingInt(m -> m.version));
+        for (int i = 1; i < migrations.size(); i++) {
+            if (migrations.get(i).version == migrations.get(i - 1).version)
+                throw new IllegalStateException("Две миграции с версией " + migrations.get(i).version);
+        }
+
+        return migrations;
+    }
+
+    private static void createVersionTable(Connection conn) throws SQLException {
+        try (Statement st = conn.createStatement()) {
+            st.execute("CREATE TABLE IF NOT EXISTS public.schema_version (" +
+                    "version INT PRIMARY KEY, " +
+                    "description VARCHAR(255) NOT NULL, " +
+                    "installed_on TIMESTAMP NOT NULL DEFAULT now(), " +
+                    "execution_ms BIGINT NOT NULL)");
+        }
+    }
+
+    private static int currentVersion(Connection conn) throws SQLException {
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("SELECT coalesce(max(version), 0) FROM public.schema_version")) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    private static void apply(Connection conn, Migration m) throws SQLException {
+        long start = System.currentTimeMillis();
+        conn.setAutoCommit(false);
+
+        try {
+            try (Statement st = conn.createStatement()) {
+                st.execute(m.sql);
+            }
+
+            try (PreparedStatement record = conn.prepareStatement(
+                    "INSERT INTO public.schema_version (version, description, execution_ms) VALUES (?, ?, ?)")) {
+                record.setInt(1, m.version);
+                record.setString(2, m.description);
+                record.setLong(3, System.currentTimeMillis() - start);
+                record.executeUpdate();
+            }
+
+            conn.commit();
+            log.info("Применена миграция V{} ({}) за {} мс", m.version, m.description,
+                    System.currentTimeMillis() - start);
+        } catch (SQLException e) {
+            conn.rollback();
+            throw new SQLException("Не удалось применить миграцию V" + m.version + " (" + m.description + ")", e);
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * Одна миграция: номер версии, описание из имени файла и текст SQL
+     */
+    private static final class Migration {
+        final int version;
+        final String description;
+        final String sql;
+
+        Migration(int version, String description, String sql) {
+            this.version = version;
+            this.description = description;
+            this.sql = sql;
+        }
+    }
+}
@@ -0,0 +1,9 @@
+-- Без ограничения уникальности одновременные addUser могли создать несколько записей
+-- для одного пользователя; остаётся самая ранняя (updateRating менял их все одинаково)
+DELETE FROM public.rating r
+    USING public.rating d
+WHERE r.username = d.username
+  AND r.id > d.id;
+
+ALTER TABLE public.rating
+    ADD CONSTRAINT rating_username_key UNIQUE (username);
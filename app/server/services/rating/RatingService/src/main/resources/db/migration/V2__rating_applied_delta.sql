@@ -0,0 +1,10 @@
+-- Идентификаторы применённых изменений рейтинга: повтор пакета после потерянного ответа
+-- не применяет изменение второй раз. Записи старше срока хранения удаляются по applied_at
+CREATE TABLE IF NOT EXISTS public.rating_applied_delta
+(
+    delta_id   uuid PRIMARY KEY,
+    applied_at TIMESTAMP NOT NULL DEFAULT now()
+);
+
+CREATE INDEX IF NOT EXISTS rating_applied_delta_applied_at_idx
+    ON public.rating_applied_delta (applied_at);
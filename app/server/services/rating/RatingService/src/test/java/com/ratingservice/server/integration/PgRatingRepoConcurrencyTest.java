@@ -0,0 +1,166 @@
+package com.ratingservice.server.integration;
+
+import com.ratingservice.entity.AppliedDeltas;
+import com.ratingservice.entity.RatingDelta;
+import com.ratingservice.repository.PgRatingRepo;
+import com.ratingservice.utils.ConnectionManager;
+import io.qameta.allure.Description;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Конкурентное изменение рейтинга одного пользователя на настоящей базе данных
+ * Адрес базы берётся из database.properties или из -Ddb.url=...; если база недоступна, тесты пропускаются
+ */
+public class PgRatingRepoConcurrencyTest {
+    private static final int THREADS = 11;
+    private static final int UPDATES_PER_THREAD = 9;
+
+    private final PgRatingRepo repo = new PgRatingRepo();
+
+    private String username;
+
+    @BeforeClass
+    public static void checkDatabase() {
+        try (Connection conn = ConnectionManager.get()) {
+            Assume.assumeTrue(conn.isValid(2));
+        } catch (SQLException e) {
+            Assume.assumeNoException("База данных недоступна", e);
+        }
+    }
+
+    @Before
+    public void setUp() {
+        username = "concurrency-test-" + UUID.randomUUID();
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        try (Connection conn = ConnectionManager.get();
+             PreparedStatement st = conn.prepareStatement("DELETE FROM public.rating WHERE username = ?")) {
+            st.setString(1, username);
+            st.executeUpdate();
+        }
+    }
+
+    @Test
+    @Description("Конкурентные увеличения рейтинга существующего пользователя: ни одно не теряется")
+    public void checkConcurrentDeltasAreNotLost() throws Exception {
+        // arrange
+        repo.addUser(username, 1);
+
+        // act
+        runConcurrently(() -> {
+            for (int i = 0; i < UPDATES_PER_THREAD; i++)
+                repo.applyDelta(username, 1);
+            return null;
+        });
+
+        // assert
+        assertEquals(1 + THREADS * UPDATES_PER_THREAD, repo.getRatingByUsername(username));
+    }
+
+    @Test
+    @Description("Конкурентные изменения рейтинга нового пользователя: одна вставка, остальные обновления")
+    public void checkConcurrentDeltasForNewUser() throws Exception {
+        // act
+        runConcurrently(() -> {
+            repo.applyDelta(username, 1);
+            return null;
+        });
+
+        // assert
+        assertEquals(THREADS, repo.getRatingByUsername(username));
+    }
+
+    @Test
+    @Description("Рейтинг ограничивается диапазоном от 1 до 100")
+    public void checkDeltaIsClamped() throws Exception {
+        // arrange
+        repo.addUser(username, 50);
+
+        // act
+        int high = repo.applyDelta(username, 1000);
+        int low = repo.applyDelta(username, -1000);
+
+        // assert
+        assertEquals(100, high);
+        assertEquals(1, low);
+    }
+
+    @Test
+    @Description("Пакет изменений применяется по порядку: ограничение диапазоном действует после каждого изменения")
+    public void checkBatchAppliesDeltasInOrder() throws Exception {
+        // arrange
+        repo.addUser(username, 95);
+
+        // act
+        Map<String, Integer> ratings = repo.applyDeltas(Arrays.asList(
+                new RatingDelta(username, 10),
+                new RatingDelta(username, -10))).getRatings();
+
+        // assert
+        assertEquals(90, ratings.get(username));
+        assertEquals(90, repo.getRatingByUsername(username));
+    }
+
+    @Test
+    @Description("Повтор пакета после потерянного ответа: изменение с тем же идентификатором применяется один раз")
+    public void checkReplayedDeltaIsAppliedOnce() throws Exception {
+        // arrange
+        repo.addUser(username, 10);
+        UUID id = UUID.randomUUID();
+        List<RatingDelta> batch = Collections.singletonList(new RatingDelta(username, 5, id));
+        repo.applyDeltas(batch);
+
+        // act
+        AppliedDeltas replay = repo.applyDeltas(batch);
+
+        // assert
+        assertTrue(replay.getAppliedIds().isEmpty());
+        assertEquals(15, replay.getRatings().get(username));
+        assertEquals(15, repo.getRatingByUsername(username));
+    }
+
+    private void runConcurrently(Callable<Void> task) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Void>> results = new ArrayList<>();
+
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+
+            start.countDown();
+            for (Future<Void> result : results)
+                result.get();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+-- Время горячих запросов PgRatingRepo на 1 000 000 пользователей до и после миграции V1
+-- Данные создаются в отдельной схеме bench и удаляются в конце
+\set ON_ERROR_STOP on
+\timing on
+
+DROP SCHEMA IF EXISTS bench CASCADE;
+CREATE SCHEMA bench;
+SET search_path = bench;
+
+-- Исходная схема из ddl/rating.sql: только первичный ключ
+CREATE TABLE rating
+(
+    id       INT PRIMARY KEY,
+    username VARCHAR(80) NOT NULL,
+    stars    INT         NOT NULL
+);
+
+INSERT INTO rating (id, username, stars)
+SELECT g, 'user' || g, 1 + g % 100
+FROM generate_series(1, 1000000) g;
+
+ANALYZE;
+
+\echo '=== До миграции'
+\ir queries.sql
+
+ALTER TABLE rating ADD CONSTRAINT rating_username_key UNIQUE (username);
+VACUUM ANALYZE;
+
+\echo '=== После миграции'
+\ir queries.sql
+
+RESET search_path;
+DROP SCHEMA bench CASCADE;
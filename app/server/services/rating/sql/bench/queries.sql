@@ -0,0 +1,9 @@
+\echo '--- getRatingByUsername'
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+SELECT stars FROM rating WHERE username = 'user424242';
+
+\echo '--- updateRating'
+BEGIN;
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+UPDATE rating SET stars = 50 WHERE username = 'user424242';
+ROLLBACK;
@@ -0,0 +1,76 @@
+package com.reservationservice.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.reservationservice.dto.ReservationResponse;
+import com.reservationservice.entity.Reservation;
+import com.reservationservice.entity.Status;
+import com.reservationservice.mapper.ReservationMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Преобразование истории броней в DTO и её сериализация
+ * toReservationResponse форматирует две даты через DateTimeFormatter.ISO_DATE на каждую бронь
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReservationMapperBenchmark {
+    @Param({"10", "100", "1000"})
+    int size;
+
+    private final ReservationMapper mapper = new ReservationMapper();
+
+    private ObjectWriter writer;
+    private ArrayList<Reservation> reservations;
+    private ReservationResponse[] responses;
+
+    @Setup
+    public void setUp() {
+        writer = new ObjectMapper().writerFor(ReservationResponse[].class);
+
+        Random random = new Random(42);
+        LocalDate start = LocalDate.of(2020, 1, 1);
+        reservations = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            LocalDate startDate = start.plusDays(random.nextInt(1500));
+            reservations.add(new Reservation(i, new UUID(random.nextLong(), random.nextLong()), "Test Max",
+                    new UUID(random.nextLong(), random.nextLong()), new UUID(random.nextLong(), random.nextLong()),
+                    Status.values()[i % 3], startDate, startDate.plusDays(14)));
+        }
+
+        responses = toReservationResponse().toArray(new ReservationResponse[0]);
+    }
+
+    @Benchmark
+    public ArrayList<ReservationResponse> toReservationResponse() {
+        ArrayList<ReservationResponse> result = new ArrayList<>(reservations.size());
+        for (Reservation res : reservations)
+            result.add(mapper.toReservationResponse(res));
+        return result;
+    }
+
+    @Benchmark
+    public byte[] writeReservations() throws Exception {
+        return writer.writeValueAsBytes(responses);
+    }
+}
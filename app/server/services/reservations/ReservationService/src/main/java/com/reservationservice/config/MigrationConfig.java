@@ -0,0 +1,28 @@
+package com.reservationservice.config;
+
+import com.reservationservice.utils.PropertiesUtil;
+import com.reservationservice.utils.SchemaMigrator;
+import org.springframework.context.annotation.Configuration;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.sql.SQLException;
+
+@Configuration
+public class MigrationConfig {
+    /**
+     * Включение миграций при старте сервиса
+     */
+    private static final String ENABLED_KEY = "db.migration.enabled";
+
+    /**
+     * Применение миграций схемы при создании контекста, то есть до того, как сервис начнёт принимать запросы
+     * @throws SQLException при ошибке выполнения миграции
+     * @throws IOException при ошибке чтения файлов миграций
+     */
+    @PostConstruct
+    public void migrate() throws SQLException, IOException {
+        if (PropertiesUtil.getBoolean(ENABLED_KEY, true))
+            SchemaMigrator.migrate();
+    }
+}
@@ -1,17 +1,26 @@
 package com.reservationservice.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reservationservice.dto.ReservationPageResponse;
 import com.reservationservice.dto.ReservationRequest;
 import com.reservationservice.dto.ReservationResponse;
 import com.reservationservice.entity.Reservation;
+import com.reservationservice.entity.ReservationCursor;
+import com.reservationservice.entity.Status;
 import com.reservationservice.mapper.ReservationMapper;
 import com.reservationservice.service.ReservationService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.sql.SQLException;
@@ -22,6 +31,11 @@ import java.util.UUID;
 @Tag(name = "RESERVATIONS")
 @RequestMapping("/reservations")
 public class ReservationController {
+    /**
+     * Наибольший размер страницы истории броней
+     */
+    private static final int MAX_PAGE_SIZE = 100;
+
     /**
      * Сервис, работающий с пользователями
      */
@@ -29,28 +43,92 @@ public class ReservationController {
 
     private final ReservationMapper mapper;
 
-    public ReservationController(ReservationService reservationService, ReservationMapper mapper) {
+    private final ObjectMapper objectMapper;
+
+    public ReservationController(ReservationService reservationService, ReservationMapper mapper,
+                                 ObjectMapper objectMapper) {
         this.reservationService = reservationService;
         this.mapper = mapper;
+        this.objectMapper = objectMapper;
     }
 
     /**
      * Получение списка книг, взятых в прокат по имени пользователя
+     * Брони читаются из базы порциями и сразу пишутся в ответ JSON-массивом, поэтому память
+     * не зависит от длины истории; ошибка базы посреди ответа обрывает его
      * @param username имя пользователя, информацию о котором нужно получить
      * @return список книг, взятых в прокат
-     * @throws SQLException при неуспешном подключении или внутренней ошибке базы данных
      */
     @Operation(summary = "Получение списка книг, взятых пользователем в прокат")
-    @GetMapping()
-    public ResponseEntity<ArrayList<ReservationResponse>> getReservations(@RequestHeader("X-User-Name") String username) throws SQLException {
-        ArrayList<Reservation> reservations = reservationService.getAllReservations(username);
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> getReservations(@RequestHeader("X-User-Name") String username) {
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator gen = objectMapper.getFactory().createGenerator(out)) {
+                gen.writeStartArray();
+                reservationService.streamReservations(username, res -> {
+                    try {
+                        gen.writeObject(mapper.toReservationResponse(res));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                gen.writeEndArray();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            } catch (SQLException e) {
+                throw new IOException("Не удалось прочитать брони пользователя " + username, e);
+            }
+        };
 
-        ArrayList<ReservationResponse> allRes = new ArrayList<>();
-        for (Reservation res : reservations) {
-            allRes.add(mapper.toReservationResponse(res));
+        return ResponseEntity.status(HttpStatus.OK).contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    /**
+     * Получение одной страницы истории броней пользователя, от новых к старым
+     * Страница выбирается курсором из ответа на предыдущую страницу, а не номером,
+     * поэтому брони, созданные между запросами, не сдвигают страницы
+     * @param username имя пользователя, информацию о котором нужно получить
+     * @param size размер страницы, от 1 до MAX_PAGE_SIZE
+     * @param status статус броней, без параметра - брони в любом статусе
+     * @param cursor курсор nextCursor предыдущей страницы, без параметра - первая страница
+     * @return страница броней и курсор следующей страницы,
+     * 400 BAD REQUEST при недопустимом размере, статусе или курсоре
+     * @throws SQLException при неуспешном подключении или внутренней ошибке базы данных
+     */
+    @Operation(summary = "Получение страницы истории броней пользователя")
+    @GetMapping(params = "size")
+    public ResponseEntity<ReservationPageResponse> getReservationsPage(@RequestHeader("X-User-Name") String username,
+                                                                       @RequestParam("size") int size,
+                                                                       @RequestParam(value = "status", required = false) String status,
+                                                                       @RequestParam(value = "cursor", required = false) String cursor) throws SQLException {
+        if (size < 1 || size > MAX_PAGE_SIZE)
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+
+        Status statusFilter = null;
+        ReservationCursor after = null;
+        try {
+            if (status != null)
+                statusFilter = Status.valueOf(status);
+            if (cursor != null)
+                after = mapper.fromCursor(cursor);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+
+        // лишняя строка показывает, есть ли следующая страница
+        ArrayList<Reservation> reservations = reservationService.getReservationsPage(username, statusFilter,
+                after, size + 1);
+        String nextCursor = null;
+        if (reservations.size() > size) {
+            reservations.remove(size);
+            nextCursor = mapper.toCursor(reservations.get(size - 1));
         }
 
-        return ResponseEntity.status(HttpStatus.OK).body(allRes);
+        ArrayList<ReservationResponse> items = new ArrayList<>(reservations.size());
+        for (Reservation res : reservations)
+            items.add(mapper.toReservationResponse(res));
+
+        return ResponseEntity.status(HttpStatus.OK).body(new ReservationPageResponse(size, nextCursor, items));
     }
 
     /**
@@ -98,6 +176,18 @@ public class ReservationController {
         return ResponseEntity.status(HttpStatus.NO_CONTENT).build();
     }
 
+    /**
+     * Отменить бронь, по которой книга так и не была выдана
+     * @param reservationUid UUID отменяемой брони
+     * @throws SQLException при неуспешном подключении или внутренней ошибке базы данных
+     */
+    @Operation(summary = "Отменить бронь")
+    @DeleteMapping("/{reservationUid}")
+    public ResponseEntity<String> cancelReservation(@PathVariable UUID reservationUid) throws SQLException {
+        reservationService.cancelReservation(reservationUid);
+        return ResponseEntity.status(HttpStatus.NO_CONTENT).build();
+    }
+
     /**
      * Получить информацию о брони
      * @param reservationUid UUID брони, о которой нужна информация
@@ -0,0 +1,23 @@
+package com.reservationservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+
+@Getter
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReservationPageResponse {
+    int pageSize;
+
+    /**
+     * Курсор следующей страницы, null на последней странице
+     */
+    String nextCursor;
+
+    ArrayList<ReservationResponse> items;
+}
@@ -0,0 +1,19 @@
+package com.reservationservice.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.LocalDate;
+
+/**
+ * Позиция в истории броней пользователя: последняя бронь предыдущей страницы
+ * История упорядочена по убыванию пары (start_date, id), следующая страница начинается строго после позиции
+ */
+@Builder
+@Getter
+@AllArgsConstructor
+public class ReservationCursor {
+    LocalDate startDate;
+    int id;
+}
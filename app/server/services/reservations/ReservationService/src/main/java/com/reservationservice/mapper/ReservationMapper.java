@@ -3,14 +3,18 @@ package com.reservationservice.mapper;
 import com.reservationservice.dto.ReservationRequest;
 import com.reservationservice.dto.ReservationResponse;
 import com.reservationservice.entity.Reservation;
+import com.reservationservice.entity.ReservationCursor;
 import com.reservationservice.entity.Status;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Clock;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
 import java.util.UUID;
 
 @Component
@@ -27,6 +31,42 @@ public class ReservationMapper {
                 reservation.getTillDate().format(DateTimeFormatter.ISO_DATE));
     }
 
+    /**
+     * Курсор, указывающий на бронь: следующая страница начнётся сразу после неё
+     * @param reservation последняя бронь страницы
+     * @return непрозрачная для клиента строка вида base64url("дата|id")
+     */
+    public String toCursor(Reservation reservation) {
+        String position = reservation.getStartDate().format(DateTimeFormatter.ISO_DATE) + "|" + reservation.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Разбор курсора, полученного от клиента
+     * @param cursor строка, выданная toCursor
+     * @return позиция в истории броней
+     * @throws IllegalArgumentException если строка не является курсором
+     */
+    public ReservationCursor fromCursor(String cursor) {
+        String position;
+        try {
+            position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Некорректный курсор: " + cursor, e);
+        }
+
+        int sep = position.indexOf('|');
+        if (sep < 0)
+            throw new IllegalArgumentException("Некорректный курсор: " + cursor);
+
+        try {
+            return new ReservationCursor(LocalDate.parse(position.substring(0, sep), DateTimeFormatter.ISO_DATE),
+                    Integer.parseInt(position.substring(sep + 1)));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("Некорректный курсор: " + cursor, e);
+        }
+    }
+
     public Reservation fromReservationRequest(ReservationRequest req, String username) {
         return new Reservation(0, UUID.randomUUID(), username, req.getBookUid(), req.getLibraryUid(),
                 Status.RENTED, LocalDate.now(ZoneId.of("UTC")), LocalDate.parse(req.getTillDate(), DateTimeFormatter.ISO_DATE));
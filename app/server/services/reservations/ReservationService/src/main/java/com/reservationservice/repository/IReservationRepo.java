@@ -1,10 +1,13 @@
 package com.reservationservice.repository;
 
 import com.reservationservice.entity.Reservation;
+import com.reservationservice.entity.ReservationCursor;
+import com.reservationservice.entity.Status;
 
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 /**
  * Интерфейс репозитория используется для работы с таблицей, отвечающей за прокат книг
@@ -18,6 +21,29 @@ public interface IReservationRepo {
      */
     public ArrayList<Reservation> getAllReservations(String username) throws SQLException;
 
+    /**
+     * Потоковое чтение всех книг, взятых пользователем в прокат
+     * Брони читаются из базы порциями и передаются обработчику по одной, список целиком в памяти не хранится
+     * @param username имя пользователя, информацию о котором требуется получить
+     * @param consumer обработчик очередной брони
+     * @return число прочитанных броней
+     * @throws SQLException при неуспешном подключении или внутренней ошибке базы данных
+     */
+    public int streamReservations(String username, Consumer<Reservation> consumer) throws SQLException;
+
+    /**
+     * Получение одной страницы истории броней пользователя, от новых к старым
+     * Порядок задаётся парой (start_date, id) по убыванию, страница начинается сразу после курсора
+     * @param username имя пользователя, информацию о котором требуется получить
+     * @param status статус броней, null - брони в любом статусе
+     * @param after последняя бронь предыдущей страницы, null - первая страница
+     * @param limit наибольшее число броней на странице
+     * @return брони страницы в порядке истории
+     * @throws SQLException при неуспешном подключении или внутренней ошибке базы данных
+     */
+    public ArrayList<Reservation> getReservationsPage(String username, Status status, ReservationCursor after,
+                                                      int limit) throws SQLException;
+
     /**
      * Получение количества книг на руках у читателя
      * @param username имя пользователя, информацию о котором требуется получить
@@ -48,4 +74,12 @@ public interface IReservationRepo {
      * @throws SQLException при неуспешном подключении или внутренней ошибке базы данных
      */
     public Reservation getReservation(UUID reservationUid) throws SQLException;
+
+    /**
+     * Отмена брони, по которой книга так и не была выдана
+     * Удаляется только бронь в статусе RENTED, повторная отмена ничего не меняет
+     * @param reservationUid UUID отменяемой брони
+     * @throws SQLException при неуспешном подключении или внутренней ошибке базы данных
+     */
+    public void cancelReservation(UUID reservationUid) throws SQLException;
 }
@@ -1,25 +1,28 @@
 package com.reservationservice.repository;
 
 import com.reservationservice.entity.Reservation;
+import com.reservationservice.entity.ReservationCursor;
 import com.reservationservice.entity.Status;
 import com.reservationservice.utils.ConnectionManager;
+import com.reservationservice.utils.PropertiesUtil;
 import org.springframework.stereotype.Repository;
 
 import java.sql.*;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 /**
  * Интерфейс репозитория используется для работы с таблицей БД PostgreSQL, отвечающей за прокат книг
- * Для подключения используется драйвер JDBC
+ * Для подключения используется драйвер JDBC, соединения берутся из пула на время одного запроса
  */
 @Repository
 public class PgReservationRepo implements IReservationRepo {
     /**
-     * Объект подключения к БД
+     * Число строк, которое драйвер получает от курсора за одно обращение к базе при потоковом чтении
      */
-    private final Connection conn = ConnectionManager.open();
+    private static final int FETCH_SIZE = PropertiesUtil.getInt("db.fetch-size", 500);
 
     /**
      * Получение всех книг, взятых пользователем в прокат
@@ -35,21 +38,105 @@ public class PgReservationRepo implements IReservationRepo {
                 "library_uid, status, start_date, till_date " +
                 "FROM public.reservation " +
                 "WHERE username = ?";
-        PreparedStatement reservationsQuery = conn.prepareStatement(getReservations);
-        reservationsQuery.setString(1, username);
-        ResultSet rs = reservationsQuery.executeQuery();
-
-        while (rs.next())
-        {
-            Reservation reserve = new Reservation(rs.getInt("id"),
-                    rs.getObject("reservation_uid", java.util.UUID.class),
-                    rs.getString("username"),
-                    rs.getObject("book_uid", java.util.UUID.class),
-                    rs.getObject("library_uid", java.util.UUID.class),
-                    Status.valueOf(rs.getString("status")),
-                    rs.getDate("start_date").toLocalDate(),
-                    rs.getDate("till_date").toLocalDate());
-            reservations.add(reserve);
+        try (Connection conn = ConnectionManager.get();
+             PreparedStatement reservationsQuery = conn.prepareStatement(getReservations)) {
+            reservationsQuery.setString(1, username);
+
+            try (ResultSet rs = reservationsQuery.executeQuery()) {
+                while (rs.next())
+                    reservations.add(readReservation(rs));
+            }
+        }
+
+        return reservations;
+    }
+
+    /**
+     * Потоковое чтение всех книг, взятых пользователем в прокат
+     * Запрос выполняется в транзакции только для чтения с заданным размером выборки,
+     * поэтому драйвер читает результат через серверный курсор порциями по FETCH_SIZE строк
+     * @param username имя пользователя, информацию о котором требуется получить
+     * @param consumer обработчик очередной брони
+     * @return число прочитанных броней
+     * @throws SQLException при неуспешном подключении или внутренней ошибке базы данных
+     */
+    @Override
+    public int streamReservations(String username, Consumer<Reservation> consumer) throws SQLException {
+        String getReservations = "SELECT id, reservation_uid, username, book_uid, " +
+                "library_uid, status, start_date, till_date " +
+                "FROM public.reservation " +
+                "WHERE username = ?";
+        int count = 0;
+
+        try (Connection conn = ConnectionManager.get()) {
+            conn.setAutoCommit(false);
+            conn.setReadOnly(true);
+
+            try (PreparedStatement reservationsQuery = conn.prepareStatement(getReservations)) {
+                reservationsQuery.setFetchSize(FETCH_SIZE);
+                reservationsQuery.setString(1, username);
+
+                try (ResultSet rs = reservationsQuery.executeQuery()) {
+                    while (rs.next()) {
+                        consumer.accept(readReservation(rs));
+                        count++;
+                    }
+                }
+
+                conn.commit();
+            } finally {
+                conn.setReadOnly(false);
+                conn.setAutoCommit(true);
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Получение одной страницы истории броней пользователя, от новых к старым
+     * Условие (start_date, id) < (?, ?) с сортировкой по убыванию той же пары читается с позиции курсора
+     * индексом reservation_username_start_date_id_idx, а с фильтром по статусу -
+     * reservation_username_status_start_date_id_idx, поэтому стоимость страницы не зависит ни от её номера,
+     * ни от числа броней в других статусах. Фильтр по статусу добавляется в текст запроса, только если задан
+     * @param username имя пользователя, информацию о котором требуется получить
+     * @param status статус броней, null - брони в любом статусе
+     * @param after последняя бронь предыдущей страницы, null - первая страница
+     * @param limit наибольшее число броней на странице
+     * @return брони страницы в порядке истории
+     * @throws SQLException при неуспешном подключении или внутренней ошибке базы данных
+     */
+    @Override
+    public ArrayList<Reservation> getReservationsPage(String username, Status status, ReservationCursor after,
+                                                      int limit) throws SQLException {
+        ArrayList<Reservation> reservations = new ArrayList<>(limit);
+
+        StringBuilder getReservations = new StringBuilder("SELECT id, reservation_uid, username, book_uid, " +
+                "library_uid, status, start_date, till_date " +
+                "FROM public.reservation " +
+                "WHERE username = ?");
+        if (status != null)
+            getReservations.append(" AND status = ?");
+        if (after != null)
+            getReservations.append(" AND (start_date, id) < (?, ?)");
+        getReservations.append(" ORDER BY start_date DESC, id DESC LIMIT ?");
+
+        try (Connection conn = ConnectionManager.get();
+             PreparedStatement reservationsQuery = conn.prepareStatement(getReservations.toString())) {
+            int i = 1;
+            reservationsQuery.setString(i++, username);
+            if (status != null)
+                reservationsQuery.setString(i++, status.toString());
+            if (after != null) {
+                reservationsQuery.setDate(i++, java.sql.Date.valueOf(after.getStartDate()));
+                reservationsQuery.setInt(i++, after.getId());
+            }
+            reservationsQuery.setInt(i, limit);
+
+            try (ResultSet rs = reservationsQuery.executeQuery()) {
+                while (rs.next())
+                    reservations.add(readReservation(rs));
+            }
         }
 
         return reservations;
@@ -66,14 +153,17 @@ public class PgReservationRepo implements IReservationRepo {
         String getReservations = "SELECT count(*) AS cnt " +
                 "FROM public.reservation " +
                 "WHERE username = ? AND status = 'RENTED'";
-        PreparedStatement reservationsQuery = conn.prepareStatement(getReservations);
-        reservationsQuery.setString(1, username);
-        ResultSet rs = reservationsQuery.executeQuery();
-
         int cntRented = 0;
 
-        if (rs.next())
-            cntRented = rs.getInt("cnt");
+        try (Connection conn = ConnectionManager.get();
+             PreparedStatement reservationsQuery = conn.prepareStatement(getReservations)) {
+            reservationsQuery.setString(1, username);
+
+            try (ResultSet rs = reservationsQuery.executeQuery()) {
+                if (rs.next())
+                    cntRented = rs.getInt("cnt");
+            }
+        }
 
         return cntRented;
     }
@@ -90,15 +180,17 @@ public class PgReservationRepo implements IReservationRepo {
                 "library_uid, status, start_date, till_date) " +
                 "VALUES (?, ?, ?, ?, ?, ?, ?)";
 
-        PreparedStatement reservationInsertion = conn.prepareStatement(reservationAdd);
-        reservationInsertion.setObject(1, reservation.getReservationUid());
-        reservationInsertion.setString(2, reservation.getUsername());
-        reservationInsertion.setObject(3, reservation.getBookUid());
-        reservationInsertion.setObject(4, reservation.getLibraryUid());
-        reservationInsertion.setString(5, reservation.getStatus().toString());
-        reservationInsertion.setDate(6, java.sql.Date.valueOf(reservation.getStartDate()));
-        reservationInsertion.setDate(7, java.sql.Date.valueOf(reservation.getTillDate()));
-        reservationInsertion.executeUpdate();
+        try (Connection conn = ConnectionManager.get();
+             PreparedStatement reservationInsertion = conn.prepareStatement(reservationAdd)) {
+            reservationInsertion.setObject(1, reservation.getReservationUid());
+            reservationInsertion.setString(2, reservation.getUsername());
+            reservationInsertion.setObject(3, reservation.getBookUid());
+            reservationInsertion.setObject(4, reservation.getLibraryUid());
+            reservationInsertion.setString(5, reservation.getStatus().toString());
+            reservationInsertion.setDate(6, java.sql.Date.valueOf(reservation.getStartDate()));
+            reservationInsertion.setDate(7, java.sql.Date.valueOf(reservation.getTillDate()));
+            reservationInsertion.executeUpdate();
+        }
     }
 
     /**
@@ -118,10 +210,31 @@ public class PgReservationRepo implements IReservationRepo {
         String reservationUpd = "UPDATE public.reservation SET status = ? " +
                 "WHERE reservation_uid = ?";
 
-        PreparedStatement reservationUpdate = conn.prepareStatement(reservationUpd);
-        reservationUpdate.setString(1, newStatus);
-        reservationUpdate.setObject(2, reservationUid);
-        reservationUpdate.executeUpdate();
+        try (Connection conn = ConnectionManager.get();
+             PreparedStatement reservationUpdate = conn.prepareStatement(reservationUpd)) {
+            reservationUpdate.setString(1, newStatus);
+            reservationUpdate.setObject(2, reservationUid);
+            reservationUpdate.executeUpdate();
+        }
+    }
+
+    /**
+     * Отмена брони, по которой книга так и не была выдана
+     * Удаляется только бронь в статусе RENTED, повторная отмена ничего не меняет
+     * @param reservationUid UUID отменяемой брони
+     * @throws SQLException при неуспешном подключении или внутренней ошибке базы данных
+     */
+    @Override
+    public void cancelReservation(UUID reservationUid) throws SQLException {
+        String reservationDel = "DELETE FROM public.reservation " +
+                "WHERE reservation_uid = ? AND status = ?";
+
+        try (Connection conn = ConnectionManager.get();
+             PreparedStatement reservationDelete = conn.prepareStatement(reservationDel)) {
+            reservationDelete.setObject(1, reservationUid);
+            reservationDelete.setString(2, Status.RENTED.toString());
+            reservationDelete.executeUpdate();
+        }
     }
 
     /**
@@ -137,22 +250,27 @@ public class PgReservationRepo implements IReservationRepo {
                 "library_uid, status, start_date, till_date " +
                 "FROM public.reservation " +
                 "WHERE reservation_uid = ?";
-        PreparedStatement reservationsQuery = conn.prepareStatement(getReservations);
-        reservationsQuery.setObject(1, reservationUid);
-        ResultSet rs = reservationsQuery.executeQuery();
-
-        if (rs.next())
-        {
-            reservation = new Reservation(rs.getInt("id"),
-                    rs.getObject("reservation_uid", java.util.UUID.class),
-                    rs.getString("username"),
-                    rs.getObject("book_uid", java.util.UUID.class),
-                    rs.getObject("library_uid", java.util.UUID.class),
-                    Status.valueOf(rs.getString("status")),
-                    rs.getDate("start_date").toLocalDate(),
-                    rs.getDate("till_date").toLocalDate());
+        try (Connection conn = ConnectionManager.get();
+             PreparedStatement reservationsQuery = conn.prepareStatement(getReservations)) {
+            reservationsQuery.setObject(1, reservationUid);
+
+            try (ResultSet rs = reservationsQuery.executeQuery()) {
+                if (rs.next())
+                    reservation = readReservation(rs);
+            }
         }
 
         return reservation;
     }
+
+    private static Reservation readReservation(ResultSet rs) throws SQLException {
+        return new Reservation(rs.getInt("id"),
+                rs.getObject("reservation_uid", java.util.UUID.class),
+                rs.getString("username"),
+                rs.getObject("book_uid", java.util.UUID.class),
+                rs.getObject("library_uid", java.util.UUID.class),
+                Status.valueOf(rs.getString("status")),
+                rs.getDate("start_date").toLocalDate(),
+                rs.getDate("till_date").toLocalDate());
+    }
 }
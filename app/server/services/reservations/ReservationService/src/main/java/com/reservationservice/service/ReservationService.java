@@ -1,6 +1,8 @@
 package com.reservationservice.service;
 
 import com.reservationservice.entity.Reservation;
+import com.reservationservice.entity.ReservationCursor;
+import com.reservationservice.entity.Status;
 import com.reservationservice.repository.IReservationRepo;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -8,6 +10,7 @@ import org.springframework.stereotype.Service;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 /**
  * Класс в слое сервисов, обращающийся к репозиторию рейтингов
@@ -34,6 +37,31 @@ public class ReservationService {
         return repo.getAllReservations(username);
     }
 
+    /**
+     * Потоковое чтение всех книг, взятых пользователем в прокат
+     * @param username имя пользователя, информацию о котором требуется получить
+     * @param consumer обработчик очередной брони
+     * @return число прочитанных броней
+     * @throws SQLException при неуспешном подключении или внутренней ошибке базы данных
+     */
+    public int streamReservations(String username, Consumer<Reservation> consumer) throws SQLException {
+        return repo.streamReservations(username, consumer);
+    }
+
+    /**
+     * Получение одной страницы истории броней пользователя, от новых к старым
+     * @param username имя пользователя, информацию о котором требуется получить
+     * @param status статус броней, null - брони в любом статусе
+     * @param after последняя бронь предыдущей страницы, null - первая страница
+     * @param limit наибольшее число броней на странице
+     * @return брони страницы в порядке истории
+     * @throws SQLException при неуспешном подключении или внутренней ошибке базы данных
+     */
+    public ArrayList<Reservation> getReservationsPage(String username, Status status, ReservationCursor after,
+                                                      int limit) throws SQLException {
+        return repo.getReservationsPage(username, status, after, limit);
+    }
+
     /**
      * Получение информации о брони
      * @param reservationUid UUID брони, информацию о которой требуется получить
@@ -72,4 +100,13 @@ public class ReservationService {
     public void closeReservation(UUID reservationUid, boolean isExpired) throws SQLException {
         repo.closeReservation(reservationUid, isExpired);
     }
+
+    /**
+     * Отмена брони, по которой книга так и не была выдана
+     * @param reservationUid UUID отменяемой брони
+     * @throws SQLException при неуспешном подключении или внутренней ошибке базы данных
+     */
+    public void cancelReservation(UUID reservationUid) throws SQLException {
+        repo.cancelReservation(reservationUid);
+    }
 }
@@ -0,0 +1,83 @@
+package com.reservationservice.tracing;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Серверная операция трассы для каждого входящего запроса
+ * Родитель берётся из заголовка traceparent, на время обработки контекст устанавливается в поток.
+ * Для асинхронных ответов операция завершается вместе с асинхронной обработкой.
+ * Запросы /manage/ не трассируются
+ */
+@Component
+public class TracingFilter extends OncePerRequestFilter {
+    private final Tracer tracer;
+
+    public TracingFilter(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getRequestURI().contains("/manage/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        SpanContext parent = SpanContext.parse(request.getHeader(SpanContext.HEADER));
+        Span span = tracer.startSpan(request.getMethod() + " " + request.getRequestURI(), Span.Kind.SERVER, parent)
+                .tag("http.method", request.getMethod())
+                .tag("http.path", request.getRequestURI());
+        response.setHeader(SpanContext.HEADER, span.context().toTraceparent());
+
+        try (Tracer.Scope ignored = tracer.activate(span.context())) {
+            chain.doFilter(request, response);
+        } catch (IOException | ServletException | RuntimeException e) {
+            span.error(e).end();
+            throw e;
+        }
+
+        if (!request.isAsyncStarted()) {
+            finish(span, response);
+            return;
+        }
+
+        request.getAsyncContext().addListener(new AsyncListener() {
+            @Override
+            public void onComplete(AsyncEvent event) {
+                finish(span, response);
+            }
+
+            @Override
+            public void onTimeout(AsyncEvent event) {
+                span.tag("error", "timeout");
+            }
+
+            @Override
+            public void onError(AsyncEvent event) {
+                if (event.getThrowable() != null)
+                    span.error(event.getThrowable());
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+            }
+        });
+    }
+
+    private static void finish(Span span, HttpServletResponse response) {
+        span.tag("http.status_code", Integer.toString(response.getStatus()));
+        if (response.getStatus() >= 500)
+            span.tag("error", Integer.toString(response.getStatus()));
+        span.end();
+    }
+}
@@ -3,6 +3,7 @@ package com.reservationservice.utils;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.Properties;
 
 /**
  * Класс, выполняющий соединение с базой данных
@@ -23,6 +24,42 @@ public final class ConnectionManager {
      */
     private static final String URL_KEY = "db.url";
 
+    /**
+     * Максимальное число соединений в пуле
+     */
+    private static final String POOL_SIZE_KEY = "db.pool.size";
+
+    /**
+     * Время ожидания свободного соединения, мс
+     */
+    private static final String POOL_TIMEOUT_KEY = "db.pool.connection-timeout-ms";
+
+    /**
+     * Время ожидания ответа при проверке соединения, с
+     */
+    private static final String POOL_VALIDATION_TIMEOUT_KEY = "db.pool.validation-timeout-sec";
+
+    /**
+     * Время удержания соединения, после которого оно считается утечкой, мс
+     */
+    private static final String POOL_LEAK_THRESHOLD_KEY = "db.pool.leak-detection-threshold-ms";
+
+    /**
+     * Число выполнений запроса, после которого драйвер подготавливает его на сервере (параметр prepareThreshold)
+     * Выполнения считаются в кэше запросов соединения, в том числе между разными вызовами prepareStatement
+     */
+    private static final String PREPARE_THRESHOLD_KEY = "db.prepare-threshold";
+
+    /**
+     * Число запросов в кэше драйвера на одно соединение (параметр preparedStatementCacheQueries)
+     */
+    private static final String STATEMENT_CACHE_QUERIES_KEY = "db.statement-cache-queries";
+
+    /**
+     * Объём кэша запросов драйвера на одно соединение, МиБ (параметр preparedStatementCacheSizeMiB)
+     */
+    private static final String STATEMENT_CACHE_SIZE_MIB_KEY = "db.statement-cache-size-mib";
+
     static {
         loadDriver();
     }
@@ -47,13 +84,54 @@ public final class ConnectionManager {
      */
     public static Connection open() {
         try {
-            return DriverManager.getConnection(
-                    PropertiesUtil.get(URL_KEY),
-                    PropertiesUtil.get(USERNAME_KEY),
-                    PropertiesUtil.get(PASSWORD_KEY)
-            );
+            return connect();
         } catch (SQLException e) {
             throw new RuntimeException(e);
         }
     }
+
+    /**
+     * Получение соединения из пула
+     * После использования соединение нужно закрыть, тогда оно вернётся в пул
+     * @return объект, описывающий соединение
+     * @throws SQLException если свободное соединение не появилось за отведённое время
+     */
+    public static Connection get() throws SQLException {
+        return PoolHolder.POOL.getConnection();
+    }
+
+    /**
+     * Пул соединений, через который работают репозитории
+     */
+    public static ConnectionPool getPool() {
+        return PoolHolder.POOL;
+    }
+
+    private static Connection connect() throws SQLException {
+        Properties props = new Properties();
+        props.setProperty("user", PropertiesUtil.get(USERNAME_KEY));
+        props.setProperty("password", PropertiesUtil.get(PASSWORD_KEY));
+        props.setProperty("prepareThreshold", String.valueOf(PropertiesUtil.getInt(PREPARE_THRESHOLD_KEY, 5)));
+        props.setProperty("preparedStatementCacheQueries",
+                String.valueOf(PropertiesUtil.getInt(STATEMENT_CACHE_QUERIES_KEY, 256)));
+        props.setProperty("preparedStatementCacheSizeMiB",
+                String.valueOf(PropertiesUtil.getInt(STATEMENT_CACHE_SIZE_MIB_KEY, 5)));
+
+        return DriverManager.getConnection(PropertiesUtil.get(URL_KEY), props);
+    }
+
+    /**
+     * Пул создаётся при первом обращении
+     */
+    private static final class PoolHolder {
+        private static final ConnectionPool POOL = new ConnectionPool(ConnectionManager::connect,
+                PropertiesUtil.getInt(POOL_SIZE_KEY, 10),
+                PropertiesUtil.getInt(POOL_TIMEOUT_KEY, 5000),
+                PropertiesUtil.getInt(POOL_VALIDATION_TIMEOUT_KEY, 2),
+                PropertiesUtil.getInt(POOL_LEAK_THRESHOLD_KEY, 0));
+
+        static {
+            Runtime.getRuntime().addShutdownHook(new Thread(POOL::close, "connection-pool-shutdown"));
+        }
+    }
 }
\ No newline at end of file
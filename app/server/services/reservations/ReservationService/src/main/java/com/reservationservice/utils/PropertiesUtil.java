@@ -25,6 +25,28 @@ public final class PropertiesUtil {
         return PROPERTIES.getProperty(key);
     }
 
+    /**
+     * Получение целочисленного свойства по названию
+     * @param key название свойства (ключ)
+     * @param defaultValue значение, если свойство не задано
+     * @return числовое значение свойства
+     */
+    public static int getInt(String key, int defaultValue) {
+        String value = PROPERTIES.getProperty(key);
+        return value == null ? defaultValue : Integer.parseInt(value.trim());
+    }
+
+    /**
+     * Получение логического свойства по названию
+     * @param key название свойства (ключ)
+     * @param defaultValue значение, если свойство не задано
+     * @return значение свойства
+     */
+    public static boolean getBoolean(String key, boolean defaultValue) {
+        String value = PROPERTIES.getProperty(key);
+        return value == null ? defaultValue : Boolean.parseBoolean(value.trim());
+    }
+
     /**
      * Загрузка свойств в атрибут из файла database.properties
      */
@@ -0,0 +1,4 @@
+-- История пользователя (WHERE username = ?) использует первый столбец индекса,
+-- подсчёт книг на руках (WHERE username = ? AND status = 'RENTED') выполняется только по индексу
+CREATE INDEX IF NOT EXISTS reservation_username_status_idx
+    ON public.reservation (username, status);
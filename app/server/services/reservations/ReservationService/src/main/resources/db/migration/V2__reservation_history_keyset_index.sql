@@ -0,0 +1,14 @@
+-- Постраничная история пользователя (WHERE username = ? AND (start_date, id) < (?, ?)
+-- ORDER BY start_date DESC, id DESC LIMIT ?) читает индекс с позиции курсора без сортировки и OFFSET
+CREATE INDEX IF NOT EXISTS reservation_username_start_date_id_idx
+    ON public.reservation (username, start_date DESC, id DESC);
+
+-- То же с фильтром по статусу (WHERE username = ? AND status = ? AND (start_date, id) < (?, ?) ...):
+-- индекс читается с позиции курсора внутри одного статуса, страница броней RENTED
+-- не просматривает длинную историю RETURNED
+CREATE INDEX IF NOT EXISTS reservation_username_status_start_date_id_idx
+    ON public.reservation (username, status, start_date DESC, id DESC);
+
+-- Подсчёт книг на руках (WHERE username = ? AND status = 'RENTED') выполняется по началу индекса
+-- со статусом, а история без фильтра - по первому индексу, поэтому индекс (username, status) из V1 больше не нужен
+DROP INDEX IF EXISTS public.reservation_username_status_idx;
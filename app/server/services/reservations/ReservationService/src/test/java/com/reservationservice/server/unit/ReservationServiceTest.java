@@ -1,6 +1,8 @@
 package com.reservationservice.server.unit;
 
 import com.reservationservice.entity.Reservation;
+import com.reservationservice.entity.ReservationCursor;
+import com.reservationservice.entity.Status;
 import com.reservationservice.repository.IReservationRepo;
 import com.reservationservice.server.objectmother.ReservationObjectMother;
 import com.reservationservice.server.utils.Assertions;
@@ -9,14 +11,18 @@ import io.qameta.allure.Description;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentMatchers;
 import org.mockito.Mockito;
 import org.mockito.junit.MockitoJUnitRunner;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 import java.sql.SQLException;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 @RunWith(MockitoJUnitRunner.class)
 public class ReservationServiceTest {
@@ -62,6 +68,48 @@ public class ReservationServiceTest {
         }
     }
 
+    @Test
+    @Description("Тестирование получения страницы истории броней после курсора с фильтром по статусу")
+    public void checkGetReservationsPage() throws SQLException {
+        // arrange
+        ArrayList<Reservation> lst = ReservationObjectMother.getReservationList();
+        ReservationCursor after = new ReservationCursor(LocalDate.of(2023, 1, 1), 10);
+        Mockito.when(rep.getReservationsPage("user1", Status.RENTED, after, 3)).thenReturn(lst);
+
+        // act
+        ArrayList<Reservation> resultLst = service.getReservationsPage("user1", Status.RENTED, after, 3);
+
+        // assert
+        Mockito.verify(rep).getReservationsPage("user1", Status.RENTED, after, 3);
+        assertEquals(lst.size(), resultLst.size());
+        for (int i = 0; i < resultLst.size(); i++) {
+            Assertions.myAssertEqual(lst.get(i), resultLst.get(i));
+        }
+    }
+
+    @Test
+    @Description("Тестирование потокового чтения всех броней пользователя")
+    public void checkStreamReservations() throws SQLException {
+        // arrange
+        ArrayList<Reservation> lst = ReservationObjectMother.getReservationList();
+        Mockito.when(rep.streamReservations(Mockito.eq("user1"), ArgumentMatchers.any())).thenAnswer(invocation -> {
+            Consumer<Reservation> consumer = invocation.getArgument(1);
+            lst.forEach(consumer);
+            return lst.size();
+        });
+        List<Reservation> resultLst = new ArrayList<>();
+
+        // act
+        int count = service.streamReservations("user1", resultLst::add);
+
+        // assert
+        assertEquals(lst.size(), count);
+        assertEquals(lst.size(), resultLst.size());
+        for (int i = 0; i < resultLst.size(); i++) {
+            Assertions.myAssertEqual(lst.get(i), resultLst.get(i));
+        }
+    }
+
     @Test
     @Description("Тестирование добавления брони")
     public void checkCreateReservation() throws SQLException {
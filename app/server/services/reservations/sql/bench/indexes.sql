@@ -0,0 +1,46 @@
+-- Время горячих запросов PgReservationRepo на 1 000 000 броней до и после миграций V1, V2
+-- Данные создаются в отдельной схеме bench и удаляются в конце
+\set ON_ERROR_STOP on
+\timing on
+
+DROP SCHEMA IF EXISTS bench CASCADE;
+CREATE SCHEMA bench;
+SET search_path = bench;
+
+-- Исходная схема из ddl/reservation.sql: только первичный ключ и уникальность reservation_uid
+CREATE TABLE reservation
+(
+    id              INT PRIMARY KEY,
+    reservation_uid uuid UNIQUE NOT NULL,
+    username        VARCHAR(80) NOT NULL,
+    book_uid        uuid        NOT NULL,
+    library_uid     uuid        NOT NULL,
+    status          VARCHAR(20) NOT NULL,
+    start_date      TIMESTAMP   NOT NULL,
+    till_date       TIMESTAMP   NOT NULL
+);
+
+-- 10 000 пользователей по 100 броней, у каждого одна книга на руках
+INSERT INTO reservation (id, reservation_uid, username, book_uid, library_uid, status, start_date, till_date)
+SELECT g, gen_random_uuid(), 'user' || (g % 10000), gen_random_uuid(), gen_random_uuid(),
+       CASE WHEN g % 100 = 0 THEN 'RENTED' WHEN g % 7 = 0 THEN 'EXPIRED' ELSE 'RETURNED' END,
+       timestamp '2015-01-01' + (g % 3000) * interval '1 day',
+       timestamp '2015-03-01' + (g % 3000) * interval '1 day'
+FROM generate_series(1, 1000000) g;
+
+ANALYZE;
+
+\echo '=== До миграции'
+\ir queries.sql
+
+-- Индексы после V2: индекс V1 (username, status) заменён индексом со статусом из V2
+CREATE INDEX reservation_username_start_date_id_idx ON reservation (username, start_date DESC, id DESC);
+CREATE INDEX reservation_username_status_start_date_id_idx
+    ON reservation (username, status, start_date DESC, id DESC);
+VACUUM ANALYZE;
+
+\echo '=== После миграций'
+\ir queries.sql
+
+RESET search_path;
+DROP SCHEMA bench CASCADE;
@@ -0,0 +1,26 @@
+\echo '--- getAllReservations'
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+SELECT id, reservation_uid, username, book_uid, library_uid, status, start_date, till_date
+FROM reservation WHERE username = 'user4242';
+
+\echo '--- countRented'
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+SELECT count(*) AS cnt FROM reservation WHERE username = 'user4242' AND status = 'RENTED';
+
+\echo '--- getReservationsPage, первая страница'
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+SELECT id, reservation_uid, username, book_uid, library_uid, status, start_date, till_date
+FROM reservation WHERE username = 'user4242'
+ORDER BY start_date DESC, id DESC LIMIT 10;
+
+\echo '--- getReservationsPage, страница после курсора'
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+SELECT id, reservation_uid, username, book_uid, library_uid, status, start_date, till_date
+FROM reservation WHERE username = 'user4242' AND (start_date, id) < (timestamp '2020-01-01', 500000)
+ORDER BY start_date DESC, id DESC LIMIT 10;
+
+\echo '--- getReservationsPage, status = RENTED'
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+SELECT id, reservation_uid, username, book_uid, library_uid, status, start_date, till_date
+FROM reservation WHERE username = 'user4242' AND status = 'RENTED'
+ORDER BY start_date DESC, id DESC LIMIT 10;
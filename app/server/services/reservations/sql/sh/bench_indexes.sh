@@ -0,0 +1,3 @@
+#!/bin/bash
+# Сравнение времени запросов на 1М строк до и после создания индексов
+PGPASSWORD=$1 psql reservationservice -U dev -f /bench/indexes.sql